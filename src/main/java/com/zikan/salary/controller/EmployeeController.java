@@ -2,22 +2,30 @@ package com.zikan.salary.controller;
 
 import com.zikan.salary.model.Employee;
 import com.zikan.salary.model.SalaryRequest;
+import com.zikan.salary.service.EmployeeImportService;
 import com.zikan.salary.service.EmployeeService;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/employee")
 public class EmployeeController {
 
     private final EmployeeService employeeService;
+    private final EmployeeImportService importService;
 
-    public EmployeeController(EmployeeService employeeService) {
+    public EmployeeController(EmployeeService employeeService, EmployeeImportService importService) {
         this.employeeService = employeeService;
+        this.importService = importService;
     }
 
 @PostMapping("/create")
@@ -26,4 +34,18 @@ public class EmployeeController {
         return ResponseEntity.ok().build();
 
     }
+
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResponseEntity<?> importCsv(InputStream body) throws IOException {
+        try {
+            return ResponseEntity.ok(importService.importCsv(body));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PostMapping(value = "/import", consumes = "application/x-ndjson")
+    public ResponseEntity<EmployeeImportService.ImportReport> importNdjson(InputStream body) throws IOException {
+        return ResponseEntity.ok(importService.importNdjson(body));
+    }
 }
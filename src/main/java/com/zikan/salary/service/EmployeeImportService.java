@@ -0,0 +1,385 @@
+package com.zikan.salary.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.zikan.salary.model.Employee;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk employee import from a streamed CSV or NDJSON body.
+ *
+ * Rows are parsed and validated one at a time as the body is read; valid rows are
+ * collected into chunks and each chunk is upserted with a single JDBC batch in its
+ * own transaction. A chunk that fails is rolled back on its own and its rows are
+ * reported, while the rest of the import carries on.
+ */
+@Service
+public class EmployeeImportService {
+
+    // Standard MERGE: understood by both H2 and PostgreSQL 15+
+    private static final String UPSERT_SQL =
+            "MERGE INTO employee t USING (VALUES (?, ?, ?, ?, ?, CAST(? AS BIGINT))) "
+                    + "AS s(id, employee_id, name, account_number, bank_code, amount) ON t.id = s.id "
+                    + "WHEN MATCHED THEN UPDATE SET employee_id = s.employee_id, name = s.name, "
+                    + "account_number = s.account_number, bank_code = s.bank_code, amount = s.amount "
+                    + "WHEN NOT MATCHED THEN INSERT (id, employee_id, name, account_number, bank_code, amount) "
+                    + "VALUES (s.id, s.employee_id, s.name, s.account_number, s.bank_code, s.amount)";
+
+    private static final String[] COLUMNS = {"id", "employeeId", "name", "accountNumber", "bankCode", "amount"};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectReader employeeReader;
+
+    @Value("${zikan.import.chunkSize:1000}")
+    private int chunkSize;
+
+    @Value("${zikan.import.maxErrors:1000}")
+    private int maxErrors;
+
+    public EmployeeImportService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                 ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.employeeReader = objectMapper.readerFor(Employee.class)
+                .with(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    /**
+     * Import a CSV body whose first line names the columns
+     * (employeeId,name,accountNumber,bankCode,amount and optionally id).
+     * Fields may be quoted as in RFC 4180, e.g. a name containing a comma.
+     */
+    public ImportReport importCsv(InputStream body) throws IOException {
+        ImportReport report = new ImportReport();
+        long start = System.currentTimeMillis();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            CsvRecordReader csv = new CsvRecordReader(reader);
+            String[] header = csv.next();
+            if (header == null) {
+                throw new IllegalArgumentException("Empty CSV body");
+            }
+            int[] positions = columnPositions(header);
+
+            List<Employee> chunk = new ArrayList<>(chunkSize);
+            List<Integer> rowNumbers = new ArrayList<>(chunkSize);
+            while (true) {
+                String[] fields;
+                try {
+                    fields = csv.next();
+                } catch (IllegalArgumentException e) {
+                    // Unterminated quote: the rest of the body was swallowed into this record
+                    report.rowsRead++;
+                    report.reject(csv.getRecordLine(), null, e.getMessage(), maxErrors);
+                    break;
+                }
+                if (fields == null) {
+                    break;
+                }
+                int row = csv.getRecordLine();
+                report.rowsRead++;
+                try {
+                    accept(parseCsvRow(fields, positions), row, chunk, rowNumbers, report);
+                } catch (IllegalArgumentException e) {
+                    report.reject(row, null, e.getMessage(), maxErrors);
+                }
+                if (chunk.size() >= chunkSize) {
+                    flush(chunk, rowNumbers, report);
+                }
+            }
+            flush(chunk, rowNumbers, report);
+        }
+        report.finish(start);
+        return report;
+    }
+
+    /**
+     * Import a newline-delimited JSON body, one employee object per line
+     */
+    public ImportReport importNdjson(InputStream body) throws IOException {
+        ImportReport report = new ImportReport();
+        long start = System.currentTimeMillis();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            List<Employee> chunk = new ArrayList<>(chunkSize);
+            List<Integer> rowNumbers = new ArrayList<>(chunkSize);
+            String line;
+            int row = 0;
+            while ((line = reader.readLine()) != null) {
+                row++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                report.rowsRead++;
+                try {
+                    Employee employee = employeeReader.readValue(line);
+                    if (employee == null) {
+                        report.reject(row, null, "Expected an employee object, got null", maxErrors);
+                    } else {
+                        accept(employee, row, chunk, rowNumbers, report);
+                    }
+                } catch (JsonProcessingException e) {
+                    report.reject(row, null, "Malformed JSON: " + e.getOriginalMessage(), maxErrors);
+                }
+                if (chunk.size() >= chunkSize) {
+                    flush(chunk, rowNumbers, report);
+                }
+            }
+            flush(chunk, rowNumbers, report);
+        }
+        report.finish(start);
+        return report;
+    }
+
+    private void accept(Employee employee, int row, List<Employee> chunk, List<Integer> rowNumbers,
+                        ImportReport report) {
+        String error = validate(employee);
+        if (error != null) {
+            report.reject(row, employee.getEmployeeId(), error, maxErrors);
+            return;
+        }
+        if (employee.getId() == null || employee.getId().isBlank()) {
+            employee.setId(employee.getEmployeeId());
+        }
+        chunk.add(employee);
+        rowNumbers.add(row);
+    }
+
+    /**
+     * Upsert a chunk as one JDBC batch in its own transaction, then empty it
+     */
+    private void flush(List<Employee> chunk, List<Integer> rowNumbers, ImportReport report) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(UPSERT_SQL, chunk, chunk.size(), (ps, e) -> {
+                        ps.setString(1, e.getId());
+                        ps.setString(2, e.getEmployeeId());
+                        ps.setString(3, e.getName());
+                        ps.setString(4, e.getAccountNumber());
+                        ps.setString(5, e.getBankCode());
+                        ps.setLong(6, e.getAmount());
+                    }));
+            report.imported += chunk.size();
+        } catch (RuntimeException ex) {
+            String message = "Chunk rolled back: " + NestedExceptionUtils.getMostSpecificCause(ex).getMessage();
+            for (int i = 0; i < chunk.size(); i++) {
+                report.reject(rowNumbers.get(i), chunk.get(i).getEmployeeId(), message, maxErrors);
+            }
+        }
+        report.chunks++;
+        chunk.clear();
+        rowNumbers.clear();
+    }
+
+    /**
+     * First problem with a row, or null if it can be imported
+     */
+    static String validate(Employee employee) {
+        if (employee.getEmployeeId() == null || employee.getEmployeeId().isBlank()) {
+            return "employeeId is required";
+        }
+        if (employee.getEmployeeId().length() > 255) {
+            return "employeeId is too long";
+        }
+        if (!isDigits(employee.getAccountNumber(), 10)) {
+            return "Invalid account number format (must be 10 digits)";
+        }
+        if (!isDigits(employee.getBankCode(), 3)) {
+            return "Invalid bank code format (must be 3 digits)";
+        }
+        if (employee.getAmount() < 0) {
+            return "Amount must not be negative";
+        }
+        return null;
+    }
+
+    private static boolean isDigits(String s, int length) {
+        if (s == null || s.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Index of each known column in the header, -1 where absent
+     */
+    private static int[] columnPositions(String[] header) {
+        Map<String, Integer> byName = new HashMap<>();
+        for (int i = 0; i < header.length; i++) {
+            byName.put(header[i].trim().toLowerCase(), i);
+        }
+        int[] positions = new int[COLUMNS.length];
+        for (int c = 0; c < COLUMNS.length; c++) {
+            positions[c] = byName.getOrDefault(COLUMNS[c].toLowerCase(), -1);
+        }
+        if (positions[1] < 0) {
+            throw new IllegalArgumentException("CSV header must include employeeId");
+        }
+        return positions;
+    }
+
+    private static Employee parseCsvRow(String[] fields, int[] positions) {
+        Employee employee = new Employee();
+        employee.setId(field(fields, positions[0]));
+        employee.setEmployeeId(field(fields, positions[1]));
+        employee.setName(field(fields, positions[2]));
+        employee.setAccountNumber(field(fields, positions[3]));
+        employee.setBankCode(field(fields, positions[4]));
+        String amount = field(fields, positions[5]);
+        if (amount != null && !amount.isEmpty()) {
+            try {
+                employee.setAmount(Long.parseLong(amount));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid amount: " + amount);
+            }
+        }
+        return employee;
+    }
+
+    private static String field(String[] fields, int position) {
+        return position < 0 || position >= fields.length ? null : fields[position].trim();
+    }
+
+    /**
+     * Reads CSV records one at a time. A field in double quotes may contain commas,
+     * line breaks and doubled quotes ("" for "); blank lines between records are skipped.
+     */
+    private static final class CsvRecordReader {
+        private final BufferedReader reader;
+        private final List<String> fields = new ArrayList<>();
+        private final StringBuilder field = new StringBuilder();
+        private int lineNumber;
+        private int recordLine;
+
+        CsvRecordReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        /**
+         * 1-based line on which the last record read starts
+         */
+        int getRecordLine() {
+            return recordLine;
+        }
+
+        /**
+         * The next record's fields, or null at the end of the body
+         */
+        String[] next() throws IOException {
+            String line;
+            do {
+                line = reader.readLine();
+                lineNumber++;
+                if (line == null) {
+                    return null;
+                }
+            } while (line.isBlank());
+            recordLine = lineNumber;
+
+            fields.clear();
+            field.setLength(0);
+            boolean quoted = false;
+            int i = 0;
+            while (true) {
+                if (i == line.length()) {
+                    if (!quoted) {
+                        break;
+                    }
+                    line = reader.readLine(); // Quoted field continues on the next line
+                    lineNumber++;
+                    if (line == null) {
+                        throw new IllegalArgumentException("Unterminated quoted field");
+                    }
+                    field.append('\n');
+                    i = 0;
+                    continue;
+                }
+                char c = line.charAt(i++);
+                if (quoted) {
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i < line.length() && line.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else if (c == '"' && field.toString().isBlank()) {
+                    field.setLength(0);
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            fields.add(field.toString());
+            return fields.toArray(new String[0]);
+        }
+    }
+
+    /**
+     * Outcome of one import: counts, throughput and the rejected rows
+     */
+    public static class ImportReport {
+        private int rowsRead;
+        private int imported;
+        private int rejected;
+        private int chunks;
+        private long elapsedMs;
+        private double rowsPerSecond;
+        private boolean errorsTruncated;
+        private final List<RowError> errors = new ArrayList<>();
+
+        void reject(int row, String employeeId, String message, int maxErrors) {
+            rejected++;
+            if (maxErrors <= 0 || errors.size() < maxErrors) {
+                errors.add(new RowError(row, employeeId, message));
+            } else {
+                errorsTruncated = true;
+            }
+        }
+
+        void finish(long start) {
+            elapsedMs = System.currentTimeMillis() - start;
+            rowsPerSecond = elapsedMs == 0 ? imported : imported * 1000.0 / elapsedMs;
+        }
+
+        public int getRowsRead() { return rowsRead; }
+        public int getImported() { return imported; }
+        public int getRejected() { return rejected; }
+        public int getChunks() { return chunks; }
+        public long getElapsedMs() { return elapsedMs; }
+        public double getRowsPerSecond() { return rowsPerSecond; }
+        public boolean isErrorsTruncated() { return errorsTruncated; }
+        public List<RowError> getErrors() { return errors; }
+    }
+
+    public record RowError(int row, String employeeId, String message) { }
+}
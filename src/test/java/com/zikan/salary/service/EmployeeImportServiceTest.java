@@ -0,0 +1,150 @@
+package com.zikan.salary.service;
+
+import com.zikan.salary.model.Employee;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Bulk import of CSV and NDJSON bodies into the employee table on in-memory H2
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.jpa.show-sql=false",
+        "zikan.import.chunkSize=500"
+})
+class EmployeeImportServiceTest {
+
+    private static final String HEADER = "employeeId,name,accountNumber,bankCode,amount\n";
+
+    @Autowired
+    private EmployeeImportService importService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @BeforeEach
+    void clear() {
+        jdbcTemplate.update("delete from employee");
+    }
+
+    @Test
+    void quotedCsvFieldsKeepTheirCommasQuotesAndLineBreaks() throws IOException {
+        EmployeeImportService.ImportReport report = importService.importCsv(body(HEADER
+                + "EMP001,\"Doe, John\",1111222233,001,150000\n"
+                + "EMP002,\"Jane \"\"JJ\"\" Roe\",4444555566,002,175000\n"
+                + "EMP003,\"Ann\nMarie\",7777888899,003,90000\n"
+                + "EMP004,Bob,1212121212,004,80000\n"));
+
+        assertThat(report.getImported()).isEqualTo(4);
+        assertThat(report.getRejected()).isZero();
+        assertThat(name("EMP001")).isEqualTo("Doe, John");
+        assertThat(name("EMP002")).isEqualTo("Jane \"JJ\" Roe");
+        assertThat(name("EMP003")).isEqualTo("Ann\nMarie");
+        assertThat(jdbcTemplate.queryForObject("select account_number from employee where employee_id = 'EMP004'",
+                String.class)).isEqualTo("1212121212");
+    }
+
+    @Test
+    void invalidCsvRowsAreReportedByTheLineTheyStartOn() throws IOException {
+        EmployeeImportService.ImportReport report = importService.importCsv(body(HEADER
+                + "EMP001,\"Ann\nMarie\",7777888899,003,90000\n"
+                + "EMP002,Jane Roe,123,002,175000\n"
+                + "EMP003,\"Bob,1212121212,004,80000\n"));
+
+        assertThat(report.getImported()).isEqualTo(1);
+        assertThat(report.getErrors()).extracting(EmployeeImportService.RowError::row).containsExactly(4, 5);
+        assertThat(report.getErrors().get(0).message()).contains("account number");
+        assertThat(report.getErrors().get(1).message()).isEqualTo("Unterminated quoted field");
+    }
+
+    @Test
+    void nullNdjsonLineIsRejectedAndTheRestImported() throws IOException {
+        EmployeeImportService.ImportReport report = importService.importNdjson(body(
+                "{\"employeeId\":\"EMP001\",\"name\":\"John Doe\",\"accountNumber\":\"1111222233\",\"bankCode\":\"001\",\"amount\":150000}\n"
+                        + "null\n"
+                        + "\n"
+                        + "{\"employeeId\":\"EMP002\",\"name\":\"Jane Roe\",\"accountNumber\":\"4444555566\",\"bankCode\":\"002\",\"amount\":175000}\n"
+                        + "{not json}\n"));
+
+        assertThat(report.getRowsRead()).isEqualTo(4);
+        assertThat(report.getImported()).isEqualTo(2);
+        assertThat(report.getErrors()).extracting(EmployeeImportService.RowError::row).containsExactly(2, 5);
+        assertThat(report.getErrors().get(0).message()).isEqualTo("Expected an employee object, got null");
+        assertThat(report.getErrors().get(1).message()).startsWith("Malformed JSON");
+    }
+
+    @Test
+    void importingARowAgainUpdatesIt() throws IOException {
+        importService.importCsv(body(HEADER + "EMP001,John Doe,1111222233,001,150000\n"));
+        importService.importCsv(body(HEADER + "EMP001,John Doe,1111222233,001,160000\n"));
+
+        assertThat(jdbcTemplate.queryForObject("select amount from employee where id = 'EMP001'", Long.class))
+                .isEqualTo(160000L);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from employee", Integer.class)).isEqualTo(1);
+    }
+
+    /**
+     * Rows/s of the bulk import endpoint against one POST /api/employee/create per employee
+     */
+    @Test
+    void bulkImportOutpacesCreatingEmployeesOneByOne() {
+        int rows = 20_000;
+        StringBuilder csv = new StringBuilder(HEADER);
+        for (int i = 0; i < rows; i++) {
+            csv.append(String.format("EMP%07d,Employee %d,%010d,%03d,%d%n", i, i, 1000000000L + i, i % 1000, 100000 + i));
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("text/csv"));
+        long start = System.nanoTime();
+        ResponseEntity<EmployeeImportService.ImportReport> imported = rest.postForEntity("/api/employee/import",
+                new HttpEntity<>(csv.toString(), headers), EmployeeImportService.ImportReport.class);
+        double importRowsPerSecond = rows / ((System.nanoTime() - start) / 1e9);
+
+        int created = 1_000;
+        start = System.nanoTime();
+        for (int i = 0; i < created; i++) {
+            Employee employee = new Employee();
+            employee.setId("NEW" + i);
+            employee.setEmployeeId("NEW" + i);
+            employee.setName("Employee " + i);
+            employee.setAccountNumber(String.format("%010d", 2000000000L + i));
+            employee.setBankCode("001");
+            employee.setAmount(100000);
+            assertThat(rest.postForEntity("/api/employee/create", employee, Void.class).getStatusCode().is2xxSuccessful())
+                    .isTrue();
+        }
+        double createRowsPerSecond = created / ((System.nanoTime() - start) / 1e9);
+
+        System.out.printf("Employee import: %.0f rows/s via /api/employee/import, %.0f rows/s via /api/employee/create%n",
+                importRowsPerSecond, createRowsPerSecond);
+        assertThat(imported.getBody()).isNotNull();
+        assertThat(imported.getBody().getImported()).isEqualTo(rows);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from employee", Integer.class)).isEqualTo(rows + created);
+        assertThat(importRowsPerSecond).isGreaterThan(createRowsPerSecond);
+    }
+
+    private String name(String employeeId) {
+        return jdbcTemplate.queryForObject("select name from employee where employee_id = ?", String.class, employeeId);
+    }
+
+    private static InputStream body(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,23 +1,74 @@
 package com.zikan.salary.controller;
 
+import com.zikan.salary.model.BatchJob;
 import com.zikan.salary.model.SalaryAcknowledgement;
 import com.zikan.salary.model.SalaryRequest;
-import com.zikan.salary.repository.SalaryAcknowledgementRepository;
+import com.zikan.salary.model.SalaryTransaction;
+import com.zikan.salary.repository.SalaryTransactionRepository;
+import com.zikan.salary.service.AcknowledgementDelivery;
+import com.zikan.salary.service.AcknowledgementFileWriter;
+import com.zikan.salary.service.AcknowledgementQueryService;
+import com.zikan.salary.service.ApprovalService;
+import com.zikan.salary.service.BatchJournal;
+import com.zikan.salary.service.ClientBatchScheduler;
+import com.zikan.salary.service.EmployeeMasterDataCache;
+import com.zikan.salary.service.FundsReservationLedger;
+import com.zikan.salary.service.PaymentCheckpointService;
+import com.zikan.salary.service.PaymentStatusReconciler;
+import com.zikan.salary.service.SalaryBatchPipeline;
 import com.zikan.salary.service.SalaryService; // <-- will fix path below
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/salary")
 public class SalaryController {
 
     private final SalaryService service;
-    private final SalaryAcknowledgementRepository repo;
+    private final AcknowledgementQueryService acknowledgements;
+    private final SalaryBatchPipeline pipeline;
+    private final PaymentStatusReconciler reconciler;
+    private final SalaryTransactionRepository transactions;
+    private final EmployeeMasterDataCache masterData;
+    private final FundsReservationLedger funds;
+    private final ApprovalService approvals;
+    private final BatchJournal journal;
+    private final PaymentCheckpointService checkpoints;
+    private final AcknowledgementFileWriter ackFiles;
+    private final AcknowledgementDelivery ackDelivery;
+    private final ClientBatchScheduler scheduler;
 
-    public SalaryController(SalaryService service, SalaryAcknowledgementRepository repo) {
+    public SalaryController(SalaryService service, AcknowledgementQueryService acknowledgements,
+                            SalaryBatchPipeline pipeline, PaymentStatusReconciler reconciler,
+                            SalaryTransactionRepository transactions, EmployeeMasterDataCache masterData,
+                            FundsReservationLedger funds, ApprovalService approvals, BatchJournal journal,
+                            PaymentCheckpointService checkpoints, AcknowledgementFileWriter ackFiles,
+                            AcknowledgementDelivery ackDelivery, ClientBatchScheduler scheduler) {
         this.service = service;
-        this.repo = repo;
+        this.acknowledgements = acknowledgements;
+        this.pipeline = pipeline;
+        this.reconciler = reconciler;
+        this.transactions = transactions;
+        this.masterData = masterData;
+        this.funds = funds;
+        this.approvals = approvals;
+        this.journal = journal;
+        this.checkpoints = checkpoints;
+        this.ackFiles = ackFiles;
+        this.ackDelivery = ackDelivery;
+        this.scheduler = scheduler;
     }
 
     @PostMapping("/process")
@@ -25,13 +76,198 @@ public class SalaryController {
         return service.process(request);
     }
 
+    @PostMapping(value = "/process", params = "async=true")
+    public ResponseEntity<BatchJob> processAsync(@RequestBody SalaryRequest request) {
+        try {
+            BatchJob job = pipeline.submit(request);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (UncheckedIOException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    @GetMapping("/jobs/{batchId}")
+    public ResponseEntity<BatchJob> job(@PathVariable String batchId) {
+        BatchJob job = pipeline.getJob(batchId);
+        return job == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(job);
+    }
+
+    @GetMapping("/pipeline/metrics")
+    public Map<String, Object> pipelineMetrics() {
+        return pipeline.getMetrics();
+    }
+
+    @GetMapping("/journal/metrics")
+    public Map<String, Object> journalMetrics() {
+        return journal.getMetrics();
+    }
+
+    @GetMapping("/checkpoints/metrics")
+    public Map<String, Object> checkpointMetrics() {
+        return checkpoints.getMetrics();
+    }
+
+    @GetMapping("/ackfiles/metrics")
+    public Map<String, Object> ackFileMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>(ackFiles.getMetrics());
+        metrics.put("delivery", ackDelivery.getMetrics());
+        return metrics;
+    }
+
+    @GetMapping("/scheduler/metrics")
+    public Map<String, Object> schedulerMetrics() {
+        return scheduler.getMetrics();
+    }
+
+    @GetMapping("/funds/metrics")
+    public Map<String, Object> fundsMetrics() {
+        return funds.getMetrics();
+    }
+
+    @GetMapping("/reconciler/metrics")
+    public Map<String, Object> reconcilerMetrics() {
+        return reconciler.getMetrics();
+    }
+
+    /**
+     * Checker decision on one batch. Pass the version that was reviewed to have the
+     * decision refused (409) if the batch changed since.
+     */
     @PostMapping("/approve/{batchId}")
-    public SalaryAcknowledgement approve(@PathVariable String batchId) throws Exception {
-        return service.approveBatch(batchId);
+    public ResponseEntity<SalaryAcknowledgement> approve(@PathVariable String batchId,
+                                                         @RequestParam(required = false) Long version,
+                                                         @RequestParam(required = false) String checker) {
+        return decide(batchId, ApprovalService.Decision.APPROVE, version, checker);
     }
 
+    @PostMapping("/reject/{batchId}")
+    public ResponseEntity<SalaryAcknowledgement> reject(@PathVariable String batchId,
+                                                        @RequestParam(required = false) Long version,
+                                                        @RequestParam(required = false) String checker) {
+        return decide(batchId, ApprovalService.Decision.REJECT, version, checker);
+    }
+
+    private ResponseEntity<SalaryAcknowledgement> decide(String batchId, ApprovalService.Decision decision,
+                                                         Long version, String checker) {
+        try {
+            return ResponseEntity.ok(approvals.decide(batchId, decision, version, checker));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException | OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    /**
+     * Approve or reject many PENDING batches in one call, e.g.
+     * {"decision": "APPROVE", "batchIds": ["SAL1", "SAL2"], "checker": "ops1"}
+     */
+    @PostMapping("/approvals")
+    public ApprovalService.BulkResult decideAll(@RequestBody BulkDecision request) {
+        return approvals.decideAll(request.batchIds(), request.decision(), request.checker());
+    }
+
+    /**
+     * The checker's queue: PENDING batches oldest first, paginated like /acknowledgements
+     */
+    @GetMapping("/approvals/pending")
+    public ResponseEntity<List<SalaryAcknowledgement>> pending(@RequestParam(defaultValue = "0") long afterId,
+                                                               @RequestParam(defaultValue = "100") int limit) {
+        int size = Math.max(1, Math.min(limit, AcknowledgementQueryService.MAX_PAGE_SIZE));
+        List<SalaryAcknowledgement> page = approvals.findPending(afterId, size);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.size() == size) {
+            response.header("X-Next-After-Id", String.valueOf(page.get(page.size() - 1).getId()));
+        }
+        return response.body(page);
+    }
+
+    /**
+     * One page of acknowledgements, oldest first. When more may follow, the
+     * X-Next-After-Id header holds the afterId for the next page.
+     */
     @GetMapping("/acknowledgements")
-    public List<SalaryAcknowledgement> acks() {
-        return repo.findAll();
+    public ResponseEntity<List<SalaryAcknowledgement>> acks(@RequestParam(required = false) String status,
+                                                            @RequestParam(required = false) String batchId,
+                                                            @RequestParam(required = false) Instant from,
+                                                            @RequestParam(required = false) Instant to,
+                                                            @RequestParam(defaultValue = "0") long afterId,
+                                                            @RequestParam(defaultValue = "100") int limit) {
+        int size = Math.max(1, Math.min(limit, AcknowledgementQueryService.MAX_PAGE_SIZE));
+        List<SalaryAcknowledgement> page = acknowledgements.findPage(
+                new AcknowledgementQueryService.Filter(status, batchId, from, to), afterId, size);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.size() == size) {
+            response.header("X-Next-After-Id", String.valueOf(page.get(page.size() - 1).getId()));
+        }
+        return response.body(page);
     }
+
+    /**
+     * Every matching acknowledgement as newline-delimited JSON, streamed from the database
+     */
+    @GetMapping(value = "/acknowledgements/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportAcks(@RequestParam(required = false) String status,
+                                                            @RequestParam(required = false) String batchId,
+                                                            @RequestParam(required = false) Instant from,
+                                                            @RequestParam(required = false) Instant to) {
+        AcknowledgementQueryService.Filter filter = new AcknowledgementQueryService.Filter(status, batchId, from, to);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .header("Content-Disposition", "attachment; filename=\"acknowledgements.ndjson\"")
+                .body(out -> acknowledgements.export(filter, out));
+    }
+
+    /**
+     * Per-employee payment results: one page of a batch (keyset on afterId),
+     * or every transaction of an employee or account across batches
+     */
+    @GetMapping("/transactions")
+    public ResponseEntity<List<SalaryTransaction>> transactions(@RequestParam(required = false) String batchId,
+                                                                @RequestParam(required = false) String employeeId,
+                                                                @RequestParam(required = false) String accountNumber,
+                                                                @RequestParam(defaultValue = "0") long afterId,
+                                                                @RequestParam(defaultValue = "100") int limit) {
+        if (batchId != null) {
+            int size = Math.max(1, Math.min(limit, AcknowledgementQueryService.MAX_PAGE_SIZE));
+            List<SalaryTransaction> page = transactions.findBySalaryBatchIdAndIdGreaterThanOrderById(
+                    batchId, afterId, PageRequest.ofSize(size));
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (page.size() == size) {
+                response.header("X-Next-After-Id", String.valueOf(page.get(page.size() - 1).getId()));
+            }
+            return response.body(page);
+        }
+        if (employeeId != null) {
+            return ResponseEntity.ok(transactions.findByEmployeeIdOrderById(employeeId));
+        }
+        if (accountNumber != null) {
+            return ResponseEntity.ok(transactions.findByAccountNumberOrderById(accountNumber));
+        }
+        return ResponseEntity.badRequest().build();
+    }
+
+    /**
+     * Register or update a company's employee master data, used to verify incoming batches
+     */
+    @PostMapping("/employees/{companyAccount}")
+    public ResponseEntity<Map<String, Object>> registerEmployees(@PathVariable String companyAccount,
+                                                                 @RequestBody List<SalaryRequest.Employee> employees) {
+        try {
+            return ResponseEntity.ok(Map.of("registered", masterData.register(companyAccount, employees)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/employees/metrics")
+    public Map<String, Object> masterDataMetrics() {
+        return masterData.getMetrics();
+    }
+
+    public record BulkDecision(ApprovalService.Decision decision, List<String> batchIds, String checker) { }
 }
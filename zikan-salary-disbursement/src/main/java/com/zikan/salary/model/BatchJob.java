@@ -0,0 +1,38 @@
+package com.zikan.salary.model;
+
+import java.time.Instant;
+
+/**
+ * Progress of a salary batch submitted for asynchronous processing.
+ * The job ID is the salaryBatchId.
+ */
+public class BatchJob {
+    private final String salaryBatchId;
+    private volatile String status;   // QUEUED, GENERATING, ENCRYPTING, UPLOADING, ACKNOWLEDGING, COMPLETED, FAILED
+    private volatile String error;
+    private volatile SalaryAcknowledgement acknowledgement;
+    private final Instant submittedAt = Instant.now();
+    private volatile Instant updatedAt = submittedAt;
+
+    public BatchJob(String salaryBatchId) {
+        this.salaryBatchId = salaryBatchId;
+        this.status = "QUEUED";
+    }
+
+    public boolean isFinished() {
+        return "COMPLETED".equals(status) || "FAILED".equals(status);
+    }
+
+    public String getSalaryBatchId() { return salaryBatchId; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) {
+        this.status = status;
+        this.updatedAt = Instant.now();
+    }
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+    public SalaryAcknowledgement getAcknowledgement() { return acknowledgement; }
+    public void setAcknowledgement(SalaryAcknowledgement acknowledgement) { this.acknowledgement = acknowledgement; }
+    public Instant getSubmittedAt() { return submittedAt; }
+    public Instant getUpdatedAt() { return updatedAt; }
+}
@@ -0,0 +1,44 @@
+package com.zikan.salary.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * Which records of a salary batch core banking has accepted, as a bitmap over the
+ * records' positions in the batch (bit i set = record i accepted). Kept until every
+ * record is accepted, so a retry or resubmission only sends the rest.
+ */
+@Entity
+@Table(name = "payment_checkpoints")
+public class PaymentCheckpoint {
+    @Id
+    private String salaryBatchId;
+
+    private String contentHash;
+    private int recordCount;
+    private int acceptedCount;
+
+    @Column(length = 1 << 20) // 8M records
+    private byte[] accepted;
+
+    private Instant updatedAt = Instant.now();
+
+    public PaymentCheckpoint() {}
+    public PaymentCheckpoint(String salaryBatchId, String contentHash, int recordCount) {
+        this.salaryBatchId = salaryBatchId;
+        this.contentHash = contentHash;
+        this.recordCount = recordCount;
+    }
+
+    public String getSalaryBatchId() { return salaryBatchId; }
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+    public int getRecordCount() { return recordCount; }
+    public void setRecordCount(int recordCount) { this.recordCount = recordCount; }
+    public int getAcceptedCount() { return acceptedCount; }
+    public void setAcceptedCount(int acceptedCount) { this.acceptedCount = acceptedCount; }
+    public byte[] getAccepted() { return accepted; }
+    public void setAccepted(byte[] accepted) { this.accepted = accepted; }
+    public Instant getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+}
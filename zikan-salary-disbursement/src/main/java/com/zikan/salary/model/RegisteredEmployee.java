@@ -0,0 +1,49 @@
+package com.zikan.salary.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * Employee master data registered by a corporate client; incoming batch records are
+ * verified against it per company account.
+ */
+@Entity
+@Table(name = "registered_employees",
+        uniqueConstraints = @UniqueConstraint(name = "uk_registered_employee_company_employee",
+                columnNames = {"company_account", "employee_id"}))
+public class RegisteredEmployee {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "registered_employee_seq")
+    @SequenceGenerator(name = "registered_employee_seq", sequenceName = "registered_employee_seq", allocationSize = 500)
+    private Long id;
+
+    @Column(nullable = false)
+    private String companyAccount;
+    @Column(nullable = false)
+    private String employeeId;
+    private String name;
+    private String accountNumber;
+    private String bankCode;
+
+    private Instant updatedAt = Instant.now();
+
+    public RegisteredEmployee() {}
+    public RegisteredEmployee(String companyAccount, String employeeId) {
+        this.companyAccount = companyAccount;
+        this.employeeId = employeeId;
+    }
+
+    public Long getId() { return id; }
+    public String getCompanyAccount() { return companyAccount; }
+    public void setCompanyAccount(String companyAccount) { this.companyAccount = companyAccount; }
+    public String getEmployeeId() { return employeeId; }
+    public void setEmployeeId(String employeeId) { this.employeeId = employeeId; }
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    public String getAccountNumber() { return accountNumber; }
+    public void setAccountNumber(String accountNumber) { this.accountNumber = accountNumber; }
+    public String getBankCode() { return bankCode; }
+    public void setBankCode(String bankCode) { this.bankCode = bankCode; }
+    public Instant getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -4,15 +4,40 @@ import jakarta.persistence.*;
 import java.time.Instant;
 
 @Entity
-@Table(name = "salary_acknowledgements")
+@Table(name = "salary_acknowledgements",
+        uniqueConstraints = @UniqueConstraint(name = "uk_salary_ack_batch_id", columnNames = "salary_batch_id"),
+        indexes = {
+                @Index(name = "idx_salary_ack_status", columnList = "status, id"),
+                @Index(name = "idx_salary_ack_approval", columnList = "approval_status, id"),
+                @Index(name = "idx_salary_ack_created_at", columnList = "created_at, id")
+        })
 public class SalaryAcknowledgement {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
     private String salaryBatchId;
-    private String status;   // SUCCESS, PENDING, FAILED
-    private String message;
+    private String status;   // Payment status at core banking (SUCCESS, PENDING, FAILED, ...), AWAITING_APPROVAL before submission
+    private String message;  // Latest message from core banking (or from intake, before submission)
+    private Instant statusChangedAt; // When status last changed; per-employee results are in salary_transactions
+
+    private String approvalStatus; // Maker-checker decision: PENDING, APPROVED, REJECTED; null if none is needed
+
+    @Version
+    private Long version;    // Optimistic lock for maker-checker transitions
+
+    private String reviewedBy;
+    private Instant reviewedAt;
+
+    @Column(length = 64)
+    private String contentHash; // SHA-256 of the submitted file/payload
+
+    private Instant claimedAt;  // Set while a node is processing the batch (see BatchIntakeGuard)
+
+    private String client;      // SFTP user that uploaded the batch (host-to-host only)
+
+    @Column(length = 1024)
+    private String sourceFile;  // Uploaded file held for approval, submitted once approved
 
     private Instant createdAt = Instant.now();
 
@@ -30,6 +55,23 @@ public class SalaryAcknowledgement {
     public void setStatus(String status) { this.status = status; }
     public String getMessage() { return message; }
     public void setMessage(String message) { this.message = message; }
+    public Instant getStatusChangedAt() { return statusChangedAt; }
+    public void setStatusChangedAt(Instant statusChangedAt) { this.statusChangedAt = statusChangedAt; }
+    public String getApprovalStatus() { return approvalStatus; }
+    public void setApprovalStatus(String approvalStatus) { this.approvalStatus = approvalStatus; }
+    public Long getVersion() { return version; }
+    public String getReviewedBy() { return reviewedBy; }
+    public void setReviewedBy(String reviewedBy) { this.reviewedBy = reviewedBy; }
+    public Instant getReviewedAt() { return reviewedAt; }
+    public void setReviewedAt(Instant reviewedAt) { this.reviewedAt = reviewedAt; }
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+    public Instant getClaimedAt() { return claimedAt; }
+    public void setClaimedAt(Instant claimedAt) { this.claimedAt = claimedAt; }
+    public String getClient() { return client; }
+    public void setClient(String client) { this.client = client; }
+    public String getSourceFile() { return sourceFile; }
+    public void setSourceFile(String sourceFile) { this.sourceFile = sourceFile; }
     public Instant getCreatedAt() { return createdAt; }
     public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
 }
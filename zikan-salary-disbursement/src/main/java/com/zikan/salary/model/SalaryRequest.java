@@ -7,6 +7,8 @@ public class SalaryRequest {
     private String companyName;
     private String companyAccount;
     private String salaryDate; // yyyy-MM-dd
+    private Long controlTotal; // optional declared sum of amounts, minor units
+    private Integer recordCount; // optional declared number of employee records
     private List<Employee> employees;
 
     public static class Employee {
@@ -36,6 +38,10 @@ public class SalaryRequest {
     public void setCompanyAccount(String companyAccount) { this.companyAccount = companyAccount; }
     public String getSalaryDate() { return salaryDate; }
     public void setSalaryDate(String salaryDate) { this.salaryDate = salaryDate; }
+    public Long getControlTotal() { return controlTotal; }
+    public void setControlTotal(Long controlTotal) { this.controlTotal = controlTotal; }
+    public Integer getRecordCount() { return recordCount; }
+    public void setRecordCount(Integer recordCount) { this.recordCount = recordCount; }
     public List<Employee> getEmployees() { return employees; }
     public void setEmployees(List<Employee> employees) { this.employees = employees; }
 }
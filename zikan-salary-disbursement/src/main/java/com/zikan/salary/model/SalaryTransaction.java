@@ -0,0 +1,56 @@
+package com.zikan.salary.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * Result of one employee's payment within a salary batch, as reported by core banking.
+ * Child of the batch's SalaryAcknowledgement via salaryBatchId.
+ */
+@Entity
+@Table(name = "salary_transactions",
+        uniqueConstraints = @UniqueConstraint(name = "uk_salary_txn_batch_employee",
+                columnNames = {"salary_batch_id", "employee_id"}),
+        indexes = {
+                @Index(name = "idx_salary_txn_employee", columnList = "employee_id"),
+                @Index(name = "idx_salary_txn_account", columnList = "account_number")
+        })
+public class SalaryTransaction {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "salary_transaction_seq")
+    @SequenceGenerator(name = "salary_transaction_seq", sequenceName = "salary_transaction_seq", allocationSize = 500)
+    private Long id;
+
+    @Column(nullable = false)
+    private String salaryBatchId;
+    private String employeeId;
+    private String accountNumber;
+    private String status;
+    private String errorCode;
+    private String errorMessage;
+
+    private Instant updatedAt = Instant.now();
+
+    public SalaryTransaction() {}
+    public SalaryTransaction(String salaryBatchId, String employeeId, String accountNumber) {
+        this.salaryBatchId = salaryBatchId;
+        this.employeeId = employeeId;
+        this.accountNumber = accountNumber;
+    }
+
+    public Long getId() { return id; }
+    public String getSalaryBatchId() { return salaryBatchId; }
+    public void setSalaryBatchId(String salaryBatchId) { this.salaryBatchId = salaryBatchId; }
+    public String getEmployeeId() { return employeeId; }
+    public void setEmployeeId(String employeeId) { this.employeeId = employeeId; }
+    public String getAccountNumber() { return accountNumber; }
+    public void setAccountNumber(String accountNumber) { this.accountNumber = accountNumber; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    public String getErrorCode() { return errorCode; }
+    public void setErrorCode(String errorCode) { this.errorCode = errorCode; }
+    public String getErrorMessage() { return errorMessage; }
+    public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
+    public Instant getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,10 @@
+package com.zikan.salary.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.zikan.salary.model.PaymentCheckpoint;
+
+@Repository
+public interface PaymentCheckpointRepository extends JpaRepository<PaymentCheckpoint, String> {
+}
@@ -0,0 +1,22 @@
+package com.zikan.salary.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.zikan.salary.model.RegisteredEmployee;
+
+@Repository
+public interface RegisteredEmployeeRepository extends JpaRepository<RegisteredEmployee, Long> {
+
+    /** employeeId, accountNumber, bankCode of every employee of a company, for the verification cache */
+    @Query("select e.employeeId, e.accountNumber, e.bankCode from RegisteredEmployee e"
+            + " where e.companyAccount = :companyAccount")
+    List<Object[]> findKeysByCompanyAccount(@Param("companyAccount") String companyAccount);
+
+    List<RegisteredEmployee> findByCompanyAccountAndEmployeeIdIn(String companyAccount, Collection<String> employeeIds);
+}
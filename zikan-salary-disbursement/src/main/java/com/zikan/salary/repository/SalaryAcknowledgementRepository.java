@@ -1,11 +1,100 @@
 package com.zikan.salary.repository;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import jakarta.persistence.LockModeType;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.zikan.salary.model.SalaryAcknowledgement;
 
 @Repository
 public interface SalaryAcknowledgementRepository extends JpaRepository<SalaryAcknowledgement, Long> {
+
     SalaryAcknowledgement findBySalaryBatchId(String salaryBatchId);
+    List<SalaryAcknowledgement> findBySalaryBatchIdIn(Collection<String> salaryBatchIds);
+
+    @Query("select a.salaryBatchId from SalaryAcknowledgement a where a.salaryBatchId is not null")
+    List<String> findAllSalaryBatchIds();
+
+    /**
+     * Batch IDs and statuses of every batch submitted to core banking (host-to-host, not held for
+     * or refused approval) whose status is not one of {@code finalStatuses}. An approved batch still
+     * AWAITING_APPROVAL has not been submitted yet and is left out.
+     */
+    @Query("select a.salaryBatchId, a.status from SalaryAcknowledgement a where a.salaryBatchId is not null"
+            + " and a.client is not null and (a.approvalStatus is null or a.approvalStatus = 'APPROVED')"
+            + " and a.status is not null and a.status <> 'AWAITING_APPROVAL' and a.status not in :finalStatuses")
+    List<Object[]> findUnsettled(@Param("finalStatuses") Collection<String> finalStatuses);
+
+    /** Keyset page of one approval status, served by idx_salary_ack_approval (e.g. the checker's PENDING queue) */
+    List<SalaryAcknowledgement> findByApprovalStatusAndIdGreaterThanOrderById(String approvalStatus, long afterId,
+                                                                             Pageable page);
+
+    /** Batch IDs in one approval status and one payment status, e.g. approved batches not yet submitted */
+    @Query("select a.salaryBatchId from SalaryAcknowledgement a where a.approvalStatus = :approvalStatus"
+            + " and a.status = :status and a.sourceFile is not null")
+    List<String> findBatchIds(@Param("approvalStatus") String approvalStatus, @Param("status") String status);
+
+    @Query("select a.salaryBatchId, a.approvalStatus from SalaryAcknowledgement a where a.salaryBatchId in :batchIds")
+    List<Object[]> findApprovalStatuses(@Param("batchIds") Collection<String> batchIds);
+
+    /** The listed batches in {@code approvalStatus}, locked until the transaction ends */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from SalaryAcknowledgement a where a.salaryBatchId in :batchIds and a.approvalStatus = :approvalStatus")
+    List<SalaryAcknowledgement> lockByApprovalStatus(@Param("batchIds") Collection<String> batchIds,
+                                                     @Param("approvalStatus") String approvalStatus);
+
+    /** Move every listed batch still in approval status {@code from} to {@code to} in one statement; returns the rows changed */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("update SalaryAcknowledgement a set a.approvalStatus = :to, a.message = :message, a.reviewedBy = :reviewer,"
+            + " a.reviewedAt = :at, a.version = coalesce(a.version, 0) + 1"
+            + " where a.salaryBatchId in :batchIds and a.approvalStatus = :from")
+    int transitionAll(@Param("batchIds") Collection<String> batchIds, @Param("from") String from,
+                      @Param("to") String to, @Param("message") String message,
+                      @Param("reviewer") String reviewer, @Param("at") Instant at);
+
+    /** Claim a batch whose claim is free or older than {@code staleBefore}; returns 1 if claimed */
+    @Transactional
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("update SalaryAcknowledgement a set a.claimedAt = :now, a.version = coalesce(a.version, 0) + 1"
+            + " where a.salaryBatchId = :batchId and (a.claimedAt is null or a.claimedAt < :staleBefore)")
+    int claim(@Param("batchId") String batchId, @Param("now") Instant now, @Param("staleBefore") Instant staleBefore);
+
+    @Transactional
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("update SalaryAcknowledgement a set a.claimedAt = null where a.salaryBatchId = :batchId")
+    int unclaim(@Param("batchId") String batchId);
+
+    @Transactional
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("delete from SalaryAcknowledgement a where a.salaryBatchId = :batchId and a.status = :status")
+    int deleteBySalaryBatchIdAndStatus(@Param("batchId") String batchId, @Param("status") String status);
+
+    /** Set the status of every listed batch currently in {@code from} */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("update SalaryAcknowledgement a set a.status = :to where a.salaryBatchId in :batchIds and a.status = :from")
+    int updateStatusAll(@Param("batchIds") Collection<String> batchIds, @Param("from") String from,
+                        @Param("to") String to);
+
+    /**
+     * Record the status core banking reported for every listed batch still in {@code from}, with its
+     * message (kept as is when null), in one statement; returns the rows changed
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("update SalaryAcknowledgement a set a.status = :to, a.message = coalesce(cast(:message as String), a.message),"
+            + " a.statusChangedAt = :at, a.version = coalesce(a.version, 0) + 1"
+            + " where a.salaryBatchId in :batchIds and a.status = :from")
+    int reconcileStatusAll(@Param("batchIds") Collection<String> batchIds, @Param("from") String from,
+                           @Param("to") String to, @Param("message") String message, @Param("at") Instant at);
 }
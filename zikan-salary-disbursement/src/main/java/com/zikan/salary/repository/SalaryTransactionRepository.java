@@ -0,0 +1,31 @@
+package com.zikan.salary.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import jakarta.persistence.QueryHint;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import com.zikan.salary.model.SalaryTransaction;
+
+@Repository
+public interface SalaryTransactionRepository extends JpaRepository<SalaryTransaction, Long> {
+    List<SalaryTransaction> findBySalaryBatchIdAndIdGreaterThanOrderById(String salaryBatchId, long afterId, Pageable page);
+    List<SalaryTransaction> findByEmployeeIdOrderById(String employeeId);
+    List<SalaryTransaction> findByAccountNumberOrderById(String accountNumber);
+    List<SalaryTransaction> findBySalaryBatchIdAndEmployeeIdIn(String salaryBatchId, Collection<String> employeeIds);
+
+    /** Every transaction of a batch in id order, fetched in batches; call within a read-only transaction */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    Stream<SalaryTransaction> streamBySalaryBatchIdOrderById(String salaryBatchId);
+}
@@ -0,0 +1,250 @@
+package com.zikan.salary.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.sshd.sftp.client.SftpClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.integration.file.remote.session.Session;
+import org.springframework.integration.sftp.session.DefaultSftpSessionFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pushes acknowledgement files to each client's SFTP drop ({@code remoteDir/<client>}).
+ *
+ * Files are not sent one connection each: the first acknowledgement for a client opens
+ * a short window (zikan.ack.sftp.coalesceMs) and every acknowledgement for that client
+ * completed within it goes out over one SFTP session. Each file is written under a
+ * temporary name and renamed; files of a failed session are retried with the next
+ * window, up to zikan.ack.sftp.maxAttempts.
+ */
+@Service
+public class AcknowledgementDelivery {
+
+    @Value("${zikan.ack.sftp.enabled:false}")
+    private boolean enabled;
+
+    @Value("${zikan.ack.sftp.host:localhost}")
+    private String host;
+
+    @Value("${zikan.ack.sftp.port:22}")
+    private int port;
+
+    @Value("${zikan.ack.sftp.username:}")
+    private String username;
+
+    @Value("${zikan.ack.sftp.password:}")
+    private String password;
+
+    @Value("${zikan.ack.sftp.privateKeyPath:}")
+    private String privateKeyPath;
+
+    @Value("${zikan.ack.sftp.knownHostsPath:}")
+    private String knownHostsPath;
+
+    @Value("${zikan.ack.sftp.allowUnknownKeys:false}")
+    private boolean allowUnknownKeys;
+
+    @Value("${zikan.ack.sftp.remoteDir:/acknowledgements}")
+    private String remoteDir;
+
+    @Value("${zikan.ack.sftp.coalesceMs:200}")
+    private long coalesceMs;
+
+    @Value("${zikan.ack.sftp.maxAttempts:3}")
+    private int maxAttempts;
+
+    private DefaultSftpSessionFactory sessionFactory;
+    private ScheduledExecutorService scheduler;
+
+    // Files waiting for the client's next session; a key is present while a flush is scheduled
+    private final Map<String, List<Pending>> pending = new HashMap<>();
+
+    private final LongAdder sessions = new LongAdder();
+    private final LongAdder filesPushed = new LongAdder();
+    private final LongAdder failedSessions = new LongAdder();
+    private final LongAdder filesDropped = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        sessionFactory = new DefaultSftpSessionFactory(false);
+        sessionFactory.setHost(host);
+        sessionFactory.setPort(port);
+        sessionFactory.setUser(username);
+        if (!password.isEmpty()) {
+            sessionFactory.setPassword(password);
+        }
+        if (!privateKeyPath.isEmpty()) {
+            sessionFactory.setPrivateKey(new FileSystemResource(privateKeyPath));
+        }
+        if (!knownHostsPath.isEmpty()) {
+            sessionFactory.setKnownHostsResource(new FileSystemResource(knownHostsPath));
+        }
+        sessionFactory.setAllowUnknownKeys(allowUnknownKeys);
+
+        AtomicInteger counter = new AtomicInteger();
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(2, r -> {
+            Thread t = new Thread(r, "ack-delivery-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        // Windows still open at shutdown are flushed at once by shutdown(), not waited out
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        scheduler = executor;
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdown();
+        scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        // Anything still queued goes out now rather than waiting for its window
+        List<String> clients;
+        synchronized (pending) {
+            clients = new ArrayList<>(pending.keySet());
+        }
+        for (String client : clients) {
+            flush(client);
+        }
+    }
+
+    /**
+     * Queue an acknowledgement file for delivery to a client
+     */
+    public void enqueue(String client, File file) {
+        if (!enabled) {
+            return;
+        }
+        enqueue(client, List.of(new Pending(file, 1)), coalesceMs);
+    }
+
+    /**
+     * Delivery sessions versus files pushed, and failures
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", enabled);
+        metrics.put("coalesceMs", coalesceMs);
+        metrics.put("sessions", sessions.sum());
+        metrics.put("filesPushed", filesPushed.sum());
+        metrics.put("filesPerSession", sessions.sum() == 0 ? 0.0 : (double) filesPushed.sum() / sessions.sum());
+        metrics.put("failedSessions", failedSessions.sum());
+        metrics.put("filesDropped", filesDropped.sum());
+        synchronized (pending) {
+            metrics.put("filesQueued", pending.values().stream().mapToInt(List::size).sum());
+        }
+        return metrics;
+    }
+
+    private void enqueue(String client, List<Pending> files, long delayMs) {
+        synchronized (pending) {
+            List<Pending> queue = pending.get(client);
+            if (queue != null) {
+                queue.addAll(files);
+                return;
+            }
+            pending.put(client, new ArrayList<>(files));
+        }
+        scheduler.schedule(() -> flush(client), delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Send everything queued for a client over a single session
+     */
+    private void flush(String client) {
+        List<Pending> batch;
+        synchronized (pending) {
+            batch = pending.remove(client);
+        }
+        if (batch == null || batch.isEmpty()) {
+            return;
+        }
+
+        String dir = remoteDir.endsWith("/") ? remoteDir + client : remoteDir + "/" + client;
+        int sent = 0;
+        try (Session<SftpClient.DirEntry> session = sessionFactory.getSession()) {
+            sessions.increment();
+            ensureRemoteDir(session, dir);
+            for (Pending file : batch) {
+                String target = dir + "/" + file.file.getName();
+                String partial = target + ".part";
+                try (InputStream in = new BufferedInputStream(Files.newInputStream(file.file.toPath()))) {
+                    session.write(in, partial);
+                }
+                if (session.exists(target)) {
+                    session.remove(target);
+                }
+                session.rename(partial, target);
+                sent++;
+                filesPushed.increment();
+            }
+        } catch (Exception e) {
+            failedSessions.increment();
+            System.err.println("Acknowledgement delivery to " + client + " failed after " + sent + " of "
+                    + batch.size() + " files: " + e.getMessage());
+            retry(client, batch.subList(sent, batch.size()));
+        }
+    }
+
+    private void retry(String client, List<Pending> undelivered) {
+        List<Pending> again = new ArrayList<>(undelivered.size());
+        int attempt = 0;
+        for (Pending file : undelivered) {
+            if (file.attempt >= maxAttempts) {
+                filesDropped.increment();
+                System.err.println("Giving up on acknowledgement " + file.file.getName() + " for " + client
+                        + " after " + file.attempt + " attempts; it remains at " + file.file);
+            } else {
+                again.add(new Pending(file.file, file.attempt + 1));
+                attempt = Math.max(attempt, file.attempt);
+            }
+        }
+        if (!again.isEmpty() && !scheduler.isShutdown()) {
+            enqueue(client, again, Math.max(coalesceMs, 1000L << attempt));
+        }
+    }
+
+    private static void ensureRemoteDir(Session<SftpClient.DirEntry> session, String dir) throws IOException {
+        String path = "";
+        for (String part : dir.split("/")) {
+            if (part.isEmpty()) {
+                continue;
+            }
+            path += "/" + part;
+            if (!session.exists(path)) {
+                try {
+                    session.mkdir(path);
+                } catch (IOException e) {
+                    // Another session may have created it concurrently
+                    if (!session.exists(path)) {
+                        throw e;
+                    }
+                }
+            }
+        }
+    }
+
+    private record Pending(File file, int attempt) {
+    }
+}
@@ -0,0 +1,274 @@
+package com.zikan.salary.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zikan.salary.model.SalaryAcknowledgement;
+import com.zikan.salary.model.SalaryTransaction;
+import com.zikan.salary.repository.SalaryTransactionRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Writes the acknowledgement file returned to a corporate client for an uploaded batch:
+ * the batch outcome followed by one entry per transaction, as CSV, JSON or XML
+ * depending on the client (zikan.ack.clientFormats, else zikan.ack.format).
+ *
+ * Transactions are streamed from salary_transactions in fetch-size batches and written
+ * through a buffered stream as they arrive, so a 100k-record acknowledgement never
+ * holds more than one fetch batch in memory. The file is written under a temporary
+ * name and renamed when complete.
+ *
+ * Files go to {@code dir/<client>/} and are named after the upload, the batch ID and
+ * the time written, so same-named uploads from different clients, or a file uploaded
+ * again before its first acknowledgement was delivered, never overwrite each other.
+ */
+@Service
+public class AcknowledgementFileWriter {
+
+    public enum Format { CSV, JSON, XML }
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss_SSS");
+
+    private final SalaryTransactionRepository transactions;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final XMLOutputFactory xmlOutput = XMLOutputFactory.newFactory();
+
+    @Value("${zikan.ack.dir:${zikan.workdir}/acknowledgements}")
+    private String dir;
+
+    @Value("${zikan.ack.format:csv}")
+    private String defaultFormat;
+
+    @Value("${zikan.ack.clientFormats:}")
+    private String clientFormats;
+
+    private Format fallback;
+    private final Map<String, Format> formats = new HashMap<>();
+
+    private final LongAdder files = new LongAdder();
+    private final LongAdder records = new LongAdder();
+    private final LongAdder writeNanos = new LongAdder();
+    private final AtomicLong sequence = new AtomicLong();
+
+    public AcknowledgementFileWriter(SalaryTransactionRepository transactions, EntityManager entityManager,
+                                     ObjectMapper objectMapper) {
+        this.transactions = transactions;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    void init() {
+        fallback = parse(defaultFormat);
+        for (String entry : clientFormats.split(",")) {
+            int colon = entry.indexOf(':');
+            if (colon > 0) {
+                formats.put(entry.substring(0, colon).trim(), parse(entry.substring(colon + 1)));
+            }
+        }
+    }
+
+    /**
+     * Format configured for a client (its SFTP user name)
+     */
+    public Format formatFor(String client) {
+        return client == null ? fallback : formats.getOrDefault(client, fallback);
+    }
+
+    /**
+     * Write the acknowledgement of {@code originalFileName} in the client's format and
+     * return the file
+     */
+    @Transactional(readOnly = true)
+    public File write(SalaryAcknowledgement ack, String originalFileName, String client) throws IOException {
+        long started = System.nanoTime();
+        Format format = formatFor(client);
+        Path base = Paths.get(dir).toAbsolutePath().normalize();
+        Path directory = client == null ? base : base.resolve(client).normalize();
+        if (client != null && !base.equals(directory.getParent())) {
+            throw new IllegalArgumentException("Invalid client name for acknowledgement: " + client);
+        }
+        Files.createDirectories(directory);
+        String name = "ACK_" + Paths.get(originalFileName).getFileName().toString().replaceAll("\\.[^.]+$", "")
+                + (ack.getSalaryBatchId() == null ? "" : "_" + ack.getSalaryBatchId().replaceAll("[^A-Za-z0-9._-]", "_"))
+                + "_" + LocalDateTime.now().format(TIMESTAMP) + "_" + sequence.incrementAndGet();
+        Path target = directory.resolve(name + "." + format.name().toLowerCase(Locale.ROOT));
+        Path partial = target.resolveSibling(target.getFileName() + ".part");
+
+        long count;
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(partial), BUFFER_SIZE);
+             Stream<SalaryTransaction> rows = ack.getSalaryBatchId() == null ? Stream.empty()
+                     : transactions.streamBySalaryBatchIdOrderById(ack.getSalaryBatchId())) {
+            Iterable<SalaryTransaction> results = rows::iterator;
+            count = switch (format) {
+                case CSV -> writeCsv(ack, results, out);
+                case JSON -> writeJson(ack, results, out);
+                case XML -> writeXml(ack, results, out);
+            };
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+        Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        files.increment();
+        records.add(count);
+        writeNanos.add(System.nanoTime() - started);
+        return target.toFile();
+    }
+
+    /**
+     * Files and records written, and the average time per file
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("defaultFormat", fallback);
+        metrics.put("clientFormats", formats);
+        metrics.put("files", files.sum());
+        metrics.put("records", records.sum());
+        metrics.put("avgWriteMs", files.sum() == 0 ? 0.0 : writeNanos.sum() / 1e6 / files.sum());
+        return metrics;
+    }
+
+    /**
+     * Batch header row, a blank line, then one row per transaction (the layout of the upload CSV)
+     */
+    private long writeCsv(SalaryAcknowledgement ack, Iterable<SalaryTransaction> results, OutputStream out)
+            throws IOException {
+        Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        w.write("salaryBatchId,status,message,processedAt\n");
+        w.write(String.join(",", csv(ack.getSalaryBatchId()), csv(ack.getStatus()), csv(ack.getMessage()),
+                csv(String.valueOf(Instant.now()))));
+        w.write("\n\nemployeeId,accountNumber,status,errorCode,errorMessage\n");
+        long count = 0;
+        for (SalaryTransaction txn : results) {
+            w.write(String.join(",", csv(txn.getEmployeeId()), csv(txn.getAccountNumber()), csv(txn.getStatus()),
+                    csv(txn.getErrorCode()), csv(txn.getErrorMessage())));
+            w.write('\n');
+            entityManager.detach(txn);
+            count++;
+        }
+        w.flush();
+        return count;
+    }
+
+    private long writeJson(SalaryAcknowledgement ack, Iterable<SalaryTransaction> results, OutputStream out)
+            throws IOException {
+        long count = 0;
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            json.writeStartObject();
+            json.writeStringField("salaryBatchId", ack.getSalaryBatchId());
+            json.writeStringField("status", ack.getStatus());
+            json.writeStringField("message", ack.getMessage());
+            json.writeStringField("processedAt", String.valueOf(Instant.now()));
+            json.writeArrayFieldStart("transactions");
+            for (SalaryTransaction txn : results) {
+                json.writeStartObject();
+                json.writeStringField("employeeId", txn.getEmployeeId());
+                json.writeStringField("accountNumber", txn.getAccountNumber());
+                json.writeStringField("status", txn.getStatus());
+                json.writeStringField("errorCode", txn.getErrorCode());
+                json.writeStringField("errorMessage", txn.getErrorMessage());
+                json.writeEndObject();
+                entityManager.detach(txn);
+                count++;
+            }
+            json.writeEndArray();
+            json.writeNumberField("transactionCount", count);
+            json.writeEndObject();
+        }
+        return count;
+    }
+
+    private long writeXml(SalaryAcknowledgement ack, Iterable<SalaryTransaction> results, OutputStream out)
+            throws IOException {
+        long count = 0;
+        try {
+            XMLStreamWriter xml = xmlOutput.createXMLStreamWriter(out, "UTF-8");
+            xml.writeStartDocument("UTF-8", "1.0");
+            xml.writeStartElement("salaryAcknowledgement");
+            element(xml, "salaryBatchId", ack.getSalaryBatchId());
+            element(xml, "status", ack.getStatus());
+            element(xml, "message", ack.getMessage());
+            element(xml, "processedAt", String.valueOf(Instant.now()));
+            xml.writeStartElement("transactions");
+            for (SalaryTransaction txn : results) {
+                xml.writeStartElement("transaction");
+                element(xml, "employeeId", txn.getEmployeeId());
+                element(xml, "accountNumber", txn.getAccountNumber());
+                element(xml, "status", txn.getStatus());
+                element(xml, "errorCode", txn.getErrorCode());
+                element(xml, "errorMessage", txn.getErrorMessage());
+                xml.writeEndElement();
+                entityManager.detach(txn);
+                count++;
+            }
+            xml.writeEndElement();
+            element(xml, "transactionCount", Long.toString(count));
+            xml.writeEndElement();
+            xml.writeEndDocument();
+            xml.close();
+        } catch (XMLStreamException e) {
+            throw new IOException("Unable to write XML acknowledgement: " + e.getMessage(), e);
+        }
+        return count;
+    }
+
+    private static void element(XMLStreamWriter xml, String name, String value) throws XMLStreamException {
+        if (value != null) {
+            xml.writeStartElement(name);
+            xml.writeCharacters(value);
+            xml.writeEndElement();
+        }
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static Format parse(String format) {
+        try {
+            return Format.valueOf(format.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown acknowledgement format: " + format + " (csv, json or xml)");
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.zikan.salary.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.zikan.salary.model.SalaryAcknowledgement;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Read side for acknowledgements: keyset-paginated listing and NDJSON export.
+ *
+ * Pages are addressed by the last id seen rather than an offset, so fetching page
+ * 1000 costs the same as page 1. The export walks a database cursor and detaches
+ * each row once written, so it runs in constant memory however many rows match.
+ * Only the filters actually given become predicates, so each combination gets a
+ * plain query the database can serve from the matching index (status, created_at
+ * or the batch ID's unique key) rather than one catch-all plan.
+ */
+@Service
+public class AcknowledgementQueryService {
+
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private final EntityManager entityManager;
+    private final ObjectWriter lineWriter;
+
+    public AcknowledgementQueryService(EntityManager entityManager, ObjectMapper objectMapper) {
+        this.entityManager = entityManager;
+        this.lineWriter = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    /**
+     * Up to {@code limit} acknowledgements with id greater than {@code afterId}, oldest first
+     */
+    public List<SalaryAcknowledgement> findPage(Filter filter, long afterId, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        return query(filter, afterId).setMaxResults(size).getResultList();
+    }
+
+    /**
+     * Write every matching acknowledgement to {@code out} as one JSON object per line
+     */
+    @Transactional(readOnly = true)
+    public long export(Filter filter, OutputStream out) throws IOException {
+        OutputStream buffered = new BufferedOutputStream(out, 64 * 1024);
+        long count = 0;
+        TypedQuery<SalaryAcknowledgement> query = query(filter, 0)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, 500)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .setHint(HibernateHints.HINT_CACHEABLE, false);
+        try (Stream<SalaryAcknowledgement> rows = query.getResultStream()) {
+            for (SalaryAcknowledgement ack : (Iterable<SalaryAcknowledgement>) rows::iterator) {
+                lineWriter.writeValue(buffered, ack);
+                buffered.write('\n');
+                entityManager.detach(ack);
+                count++;
+            }
+        }
+        buffered.flush();
+        return count;
+    }
+
+    /**
+     * Matches with id greater than {@code afterId} in id order, restricted only by the filters that are set
+     */
+    private TypedQuery<SalaryAcknowledgement> query(Filter filter, long afterId) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<SalaryAcknowledgement> cq = cb.createQuery(SalaryAcknowledgement.class);
+        Root<SalaryAcknowledgement> a = cq.from(SalaryAcknowledgement.class);
+
+        List<Predicate> where = new ArrayList<>(5);
+        where.add(cb.greaterThan(a.get("id"), afterId));
+        if (filter.status() != null) {
+            where.add(cb.equal(a.get("status"), filter.status()));
+        }
+        if (filter.batchId() != null) {
+            where.add(cb.equal(a.get("salaryBatchId"), filter.batchId()));
+        }
+        if (filter.from() != null) {
+            where.add(cb.greaterThanOrEqualTo(a.get("createdAt"), filter.from()));
+        }
+        if (filter.to() != null) {
+            where.add(cb.lessThan(a.get("createdAt"), filter.to()));
+        }
+        cq.select(a).where(where.toArray(new Predicate[0])).orderBy(cb.asc(a.get("id")));
+        return entityManager.createQuery(cq);
+    }
+
+    /** Optional listing filters; null means no restriction. {@code to} is exclusive. */
+    public record Filter(String status, String batchId, Instant from, Instant to) { }
+}
@@ -0,0 +1,175 @@
+package com.zikan.salary.service;
+
+import com.zikan.salary.model.SalaryAcknowledgement;
+import com.zikan.salary.repository.SalaryAcknowledgementRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Maker-checker approval of salary batches whose approval status is PENDING.
+ *
+ * The decision lives in its own approval_status column, apart from the core banking
+ * payment status the reconciler keeps up to date. A host-to-host batch that needs
+ * approval (zikan.approval.required) is held as AWAITING_APPROVAL with its funds
+ * reserved and is only submitted to core banking once approved; rejecting it releases
+ * the reservation.
+ *
+ * A single decision is a read-modify-write guarded by the acknowledgement's @Version:
+ * if another checker changed the batch first, the commit fails with an optimistic
+ * locking error instead of overwriting their decision. A bulk decision locks the rows
+ * of each slice of batch IDs that are still PENDING and moves exactly those with one
+ * set-based UPDATE, so a month-end approval run cannot flip a batch someone else has
+ * already decided. Each decided batch is published as a {@link Decided} event once the
+ * transaction commits; funds are released and held batches submitted from there.
+ */
+@Service
+public class ApprovalService {
+
+    public static final String PENDING = "PENDING";
+    public static final String APPROVED = "APPROVED";
+    public static final String AWAITING_APPROVAL = "AWAITING_APPROVAL";
+    static final int IN_LIST_SIZE = 1000;
+
+    private final SalaryAcknowledgementRepository repository;
+    private final FundsReservationLedger funds;
+    private final ApplicationEventPublisher events;
+
+    public ApprovalService(SalaryAcknowledgementRepository repository, FundsReservationLedger funds,
+                           ApplicationEventPublisher events) {
+        this.repository = repository;
+        this.funds = funds;
+        this.events = events;
+    }
+
+    /**
+     * Batches waiting for a checker, oldest first, keyset-paginated on id
+     */
+    public List<SalaryAcknowledgement> findPending(long afterId, int limit) {
+        int size = Math.max(1, Math.min(limit, AcknowledgementQueryService.MAX_PAGE_SIZE));
+        return repository.findByApprovalStatusAndIdGreaterThanOrderById(PENDING, afterId, PageRequest.ofSize(size));
+    }
+
+    /**
+     * Approve or reject one batch. If {@code expectedVersion} is given it must match the
+     * version the checker reviewed, otherwise the decision is refused as stale.
+     */
+    @Transactional
+    public SalaryAcknowledgement decide(String batchId, Decision decision, Long expectedVersion, String reviewer) {
+        SalaryAcknowledgement existing = repository.findBySalaryBatchId(batchId);
+        if (existing == null) {
+            throw new IllegalArgumentException("Salary batch not found: " + batchId);
+        }
+        if (expectedVersion != null && !expectedVersion.equals(existing.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(SalaryAcknowledgement.class, batchId);
+        }
+
+        if (PENDING.equals(existing.getApprovalStatus())) {
+            existing.setApprovalStatus(decision.status);
+            if (decision == Decision.REJECT && AWAITING_APPROVAL.equals(existing.getStatus())) {
+                existing.setStatus(decision.status); // Never submitted, so never paid
+            }
+            existing.setMessage(decision.message);
+            existing.setReviewedBy(reviewer);
+            existing.setReviewedAt(Instant.now());
+        } else if (decision.status.equals(existing.getApprovalStatus())) {
+            return existing; // Already decided this way; nothing to write
+        } else {
+            throw new IllegalStateException("Cannot " + decision.name().toLowerCase()
+                    + " batch with approval status: " + existing.getApprovalStatus());
+        }
+
+        SalaryAcknowledgement saved = repository.saveAndFlush(existing); // Version check happens here
+        events.publishEvent(new Decided(batchId, decision));
+        return saved;
+    }
+
+    /**
+     * Apply one decision to many batches with set-based updates. Batches that are not
+     * PENDING approval (or do not exist) are left alone and listed in the result.
+     */
+    @Transactional
+    public BulkResult decideAll(List<String> batchIds, Decision decision, String reviewer) {
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(batchIds));
+        Map<String, String> skipped = new TreeMap<>();
+        Set<String> decided = new LinkedHashSet<>();
+        Set<String> found = new LinkedHashSet<>();
+        Instant now = Instant.now();
+        int updated = 0;
+
+        for (int from = 0; from < ids.size(); from += IN_LIST_SIZE) {
+            List<String> slice = ids.subList(from, Math.min(ids.size(), from + IN_LIST_SIZE));
+            // Lock the rows still pending so the update below moves exactly these and no other decision can
+            List<String> moving = new ArrayList<>();
+            for (SalaryAcknowledgement ack : repository.lockByApprovalStatus(slice, PENDING)) {
+                moving.add(ack.getSalaryBatchId());
+            }
+            if (!moving.isEmpty()) {
+                updated += repository.transitionAll(moving, PENDING, decision.status, decision.message, reviewer, now);
+                if (decision == Decision.REJECT) {
+                    repository.updateStatusAll(moving, AWAITING_APPROVAL, decision.status);
+                }
+                decided.addAll(moving);
+            }
+            for (Object[] row : repository.findApprovalStatuses(slice)) {
+                found.add((String) row[0]);
+                if (!decided.contains(row[0])) {
+                    skipped.put((String) row[0], row[1] == null ? "NO_APPROVAL_REQUIRED" : (String) row[1]);
+                }
+            }
+        }
+        for (String id : ids) {
+            if (!found.contains(id)) {
+                skipped.put(id, "NOT_FOUND");
+            }
+        }
+        for (String id : decided) {
+            events.publishEvent(new Decided(id, decision));
+        }
+        return new BulkResult(decision.status, ids.size(), updated, skipped);
+    }
+
+    /**
+     * A rejected batch will not be paid: give back its reservation once the rejection is committed
+     */
+    @TransactionalEventListener
+    public void releaseRejected(Decided event) {
+        if (event.decision() == Decision.REJECT) {
+            funds.release(event.salaryBatchId());
+        }
+    }
+
+    public enum Decision {
+        APPROVE(APPROVED, "Salary batch approved and payment will be processed."),
+        REJECT("REJECTED", "Salary batch rejected by checker.");
+
+        private final String status;
+        private final String message;
+
+        Decision(String status, String message) {
+            this.status = status;
+            this.message = message;
+        }
+    }
+
+    /**
+     * A batch whose approval status this node moved from PENDING, published on commit
+     */
+    public record Decided(String salaryBatchId, Decision decision) { }
+
+    /**
+     * Outcome of a bulk decision: how many batches changed, and why the others did not
+     */
+    public record BulkResult(String status, int requested, int updated, Map<String, String> skipped) { }
+}
@@ -0,0 +1,366 @@
+package com.zikan.salary.service;
+
+import com.zikan.salary.model.SalaryAcknowledgement;
+import com.zikan.salary.model.SalaryRequest;
+import com.zikan.salary.repository.SalaryAcknowledgementRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Makes batch intake idempotent: each salaryBatchId is processed once, and a replay
+ * of the same batch gets the original acknowledgement back.
+ *
+ * Recently acknowledged batches are kept in a bounded LRU cache keyed by batch ID and
+ * by content hash (so a re-dropped SFTP file is recognised before it is parsed), and
+ * every batch ID ever acknowledged goes into a Bloom filter. A batch that is in
+ * neither is new and needs no database lookup. A FAILED batch may be submitted again.
+ *
+ * The caches are per node, so a batch is also claimed in the database before anything
+ * is paid: a new batch by inserting an IN_PROGRESS acknowledgement (the unique index
+ * on salary_batch_id lets only one node in), an existing one (a retry, resubmission
+ * or approved batch) by setting its claimed_at. A claim older than
+ * zikan.intake.claimTimeoutMs is taken to belong to a node that died. The outcome is
+ * then written over the claimed row.
+ */
+@Service
+public class BatchIntakeGuard {
+
+    public static final String IN_PROGRESS = "IN_PROGRESS";
+
+    private final SalaryAcknowledgementRepository repository;
+
+    @Value("${zikan.intake.cacheSize:10000}")
+    private int cacheSize;
+
+    @Value("${zikan.intake.bloomExpectedBatches:1000000}")
+    private int bloomExpectedBatches;
+
+    @Value("${zikan.intake.bloomFalsePositiveRate:0.01}")
+    private double bloomFalsePositiveRate;
+
+    @Value("${zikan.intake.claimTimeoutMs:1800000}")
+    private long claimTimeoutMs;
+
+    private Map<String, CachedAck> byBatchId;
+    private Map<String, String> batchIdByHash;
+    private BloomFilter seenBatchIds;
+    private final Map<String, String> inFlight = new ConcurrentHashMap<>();
+
+    public BatchIntakeGuard(SalaryAcknowledgementRepository repository) {
+        this.repository = repository;
+    }
+
+    @PostConstruct
+    void init() {
+        byBatchId = lru(cacheSize);
+        batchIdByHash = lru(cacheSize);
+        seenBatchIds = new BloomFilter(bloomExpectedBatches, bloomFalsePositiveRate);
+        for (String batchId : repository.findAllSalaryBatchIds()) {
+            seenBatchIds.add(batchId);
+        }
+    }
+
+    /**
+     * Acknowledgement of an earlier submission of this batch, or null if the batch is new,
+     * failed or not finished. A batch ID reused with different content gets an unsaved
+     * DUPLICATE acknowledgement.
+     */
+    public SalaryAcknowledgement findPrior(String salaryBatchId, String contentHash) {
+        if (salaryBatchId == null) {
+            return null;
+        }
+        CachedAck cached;
+        synchronized (this) {
+            cached = byBatchId.get(salaryBatchId);
+        }
+        SalaryAcknowledgement prior;
+        if (cached != null) {
+            prior = repository.findById(cached.id).orElse(null);
+        } else if (seenBatchIds.mightContain(salaryBatchId)) {
+            prior = repository.findBySalaryBatchId(salaryBatchId);
+            if (prior != null) {
+                remember(prior);
+            }
+        } else {
+            return null;
+        }
+        if (prior == null || IN_PROGRESS.equals(prior.getStatus()) || "FAILED".equals(prior.getStatus())) {
+            return null; // Free to be (re)submitted, or claimed by whoever is processing it
+        }
+        if (contentHash != null && prior.getContentHash() != null && !contentHash.equals(prior.getContentHash())) {
+            return new SalaryAcknowledgement(salaryBatchId, "DUPLICATE",
+                    "Salary batch " + salaryBatchId + " was already submitted with different content (status "
+                            + prior.getStatus() + ").");
+        }
+        return prior;
+    }
+
+    /**
+     * Acknowledgement of a recently seen file with this exact content, or null
+     */
+    public SalaryAcknowledgement findPriorByContent(String contentHash) {
+        String salaryBatchId;
+        synchronized (this) {
+            salaryBatchId = batchIdByHash.get(contentHash);
+        }
+        return salaryBatchId == null ? null : findPrior(salaryBatchId, contentHash);
+    }
+
+    /**
+     * Claim a batch for processing, on this node and in the database; false if it is
+     * already being processed here or elsewhere
+     */
+    public boolean tryBegin(String salaryBatchId, String contentHash) {
+        return begin(salaryBatchId, contentHash, false);
+    }
+
+    /**
+     * Claim a batch this node was processing before it restarted, taking over its
+     * database claim even if that has not yet expired
+     */
+    public boolean tryResume(String salaryBatchId, String contentHash) {
+        return begin(salaryBatchId, contentHash, true);
+    }
+
+    /**
+     * Release a claim taken with {@link #tryBegin}. A batch that ended without an
+     * acknowledgement being saved is forgotten, so it can be submitted again.
+     */
+    public void finish(String salaryBatchId) {
+        if (salaryBatchId == null || inFlight.remove(salaryBatchId) == null) {
+            return;
+        }
+        try {
+            if (repository.deleteBySalaryBatchIdAndStatus(salaryBatchId, IN_PROGRESS) == 0) {
+                repository.unclaim(salaryBatchId);
+            }
+        } catch (RuntimeException e) {
+            // The claim expires after claimTimeoutMs
+            System.err.println("Unable to release the claim on batch " + salaryBatchId + ": " + e.getMessage());
+        }
+    }
+
+    private boolean begin(String salaryBatchId, String contentHash, boolean takeOver) {
+        if (salaryBatchId == null) {
+            return true;
+        }
+        if (inFlight.putIfAbsent(salaryBatchId, contentHash) != null) {
+            return false;
+        }
+        boolean claimed = false;
+        try {
+            claimed = claim(salaryBatchId, contentHash, takeOver);
+        } finally {
+            if (!claimed) {
+                inFlight.remove(salaryBatchId);
+            }
+        }
+        return claimed;
+    }
+
+    private boolean claim(String salaryBatchId, String contentHash, boolean takeOver) {
+        Instant now = Instant.now();
+        Instant staleBefore = takeOver ? now.plusSeconds(1) : now.minusMillis(claimTimeoutMs);
+        if (repository.claim(salaryBatchId, now, staleBefore) == 1) {
+            return true;
+        }
+        if (repository.findBySalaryBatchId(salaryBatchId) != null) {
+            return false; // Claimed by another node
+        }
+        SalaryAcknowledgement row = new SalaryAcknowledgement(salaryBatchId, IN_PROGRESS,
+                "Salary batch " + salaryBatchId + " is being processed.");
+        row.setContentHash(contentHash);
+        row.setClaimedAt(now);
+        try {
+            repository.saveAndFlush(row);
+        } catch (DataIntegrityViolationException e) {
+            return false; // Another node inserted it first
+        }
+        synchronized (this) {
+            seenBatchIds.add(salaryBatchId);
+        }
+        return true;
+    }
+
+    /**
+     * Unsaved acknowledgement for a submission that arrived while the batch is in progress
+     */
+    public SalaryAcknowledgement inProgress(String salaryBatchId) {
+        return new SalaryAcknowledgement(salaryBatchId, "DUPLICATE",
+                "Salary batch " + salaryBatchId + " is already being processed.");
+    }
+
+    /**
+     * Persist the acknowledgement of a claimed batch, over its claimed row if it has one.
+     * If another node stored one first (unique index), that one is returned instead.
+     */
+    public SalaryAcknowledgement save(SalaryAcknowledgement ack) {
+        if (ack.getSalaryBatchId() != null && ack.getContentHash() == null) {
+            ack.setContentHash(inFlight.get(ack.getSalaryBatchId()));
+        }
+        if (ack.getId() == null && ack.getSalaryBatchId() != null && inFlight.containsKey(ack.getSalaryBatchId())) {
+            SalaryAcknowledgement claimed = repository.findBySalaryBatchId(ack.getSalaryBatchId());
+            if (claimed != null) {
+                claimed.setStatus(ack.getStatus());
+                claimed.setMessage(ack.getMessage());
+                claimed.setApprovalStatus(ack.getApprovalStatus());
+                claimed.setClient(ack.getClient());
+                claimed.setSourceFile(ack.getSourceFile());
+                if (ack.getContentHash() != null) {
+                    claimed.setContentHash(ack.getContentHash());
+                }
+                ack = claimed;
+            }
+        }
+        SalaryAcknowledgement saved;
+        try {
+            saved = repository.save(ack);
+        } catch (DataIntegrityViolationException e) {
+            saved = repository.findBySalaryBatchId(ack.getSalaryBatchId());
+            if (saved == null) {
+                throw e;
+            }
+        }
+        remember(saved);
+        return saved;
+    }
+
+    /**
+     * SHA-256 of a file's bytes
+     */
+    public static String hash(File file) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, n);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * SHA-256 over the fields of a request, so the same payload always hashes the same
+     */
+    public static String hash(SalaryRequest request) {
+        MessageDigest digest = sha256();
+        update(digest, request.getSalaryBatchId());
+        update(digest, request.getCompanyName());
+        update(digest, request.getCompanyAccount());
+        update(digest, request.getSalaryDate());
+        if (request.getEmployees() != null) {
+            for (SalaryRequest.Employee e : request.getEmployees()) {
+                update(digest, e.getEmployeeId());
+                update(digest, e.getName());
+                update(digest, e.getAccountNumber());
+                update(digest, e.getBankCode());
+                update(digest, Long.toString(e.getAmount()));
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private synchronized void remember(SalaryAcknowledgement ack) {
+        if (ack.getSalaryBatchId() == null) {
+            return;
+        }
+        seenBatchIds.add(ack.getSalaryBatchId());
+        byBatchId.put(ack.getSalaryBatchId(), new CachedAck(ack.getId()));
+        if (ack.getContentHash() != null) {
+            batchIdByHash.put(ack.getContentHash(), ack.getSalaryBatchId());
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        if (value != null) {
+            digest.update(value.getBytes(StandardCharsets.UTF_8));
+        }
+        digest.update((byte) 0);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static <K, V> Map<K, V> lru(int maxEntries) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    private record CachedAck(Long id) { }
+
+    /**
+     * Bloom filter over strings using double hashing; never gives false negatives
+     */
+    private static final class BloomFilter {
+        private final long[] bits;
+        private final int bitCount;
+        private final int hashes;
+
+        BloomFilter(int expected, double falsePositiveRate) {
+            long m = (long) Math.ceil(-Math.max(1, expected) * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            bitCount = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, m));
+            bits = new long[(bitCount + 63) / 64];
+            hashes = Math.max(1, (int) Math.round((double) bitCount / Math.max(1, expected) * Math.log(2)));
+        }
+
+        synchronized void add(String value) {
+            long h = hash64(value);
+            int h1 = (int) h;
+            int h2 = (int) (h >>> 32);
+            for (int i = 0; i < hashes; i++) {
+                int bit = ((h1 + i * h2) & Integer.MAX_VALUE) % bitCount;
+                bits[bit >>> 6] |= 1L << bit;
+            }
+        }
+
+        synchronized boolean mightContain(String value) {
+            long h = hash64(value);
+            int h1 = (int) h;
+            int h2 = (int) (h >>> 32);
+            for (int i = 0; i < hashes; i++) {
+                int bit = ((h1 + i * h2) & Integer.MAX_VALUE) % bitCount;
+                if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static long hash64(String value) {
+            long h = 0xcbf29ce484222325L; // FNV-1a, then a 64-bit finaliser
+            for (int i = 0; i < value.length(); i++) {
+                h ^= value.charAt(i);
+                h *= 0x100000001b3L;
+            }
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
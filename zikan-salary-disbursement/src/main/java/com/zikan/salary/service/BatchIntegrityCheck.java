@@ -0,0 +1,191 @@
+package com.zikan.salary.service;
+
+import com.zikan.salary.model.SalaryRequest;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Cross-record checks for one salary batch, fed every record in a single pass.
+ *
+ * Flags repeated employee IDs and account numbers, and totals the amounts so the
+ * file's declared control total and record count can be verified at the end.
+ * Employee IDs (base 36) and account numbers (10 digits) are packed into longs and
+ * kept in open-addressing sets of primitives, so a million-row batch costs a few
+ * tens of megabytes instead of a set of boxed strings. Values that cannot be packed
+ * are already rejected by the field rules and are skipped here.
+ */
+public class BatchIntegrityCheck {
+
+    private static final long ID_RADIX_POWER = 3656158440062976L; // 36^10
+
+    private final LongHashSet employeeIds;
+    private final LongHashSet accountNumbers;
+    private long total;
+    private boolean totalOverflow;
+    private int records;
+
+    public BatchIntegrityCheck(int expectedRecords) {
+        employeeIds = new LongHashSet(expectedRecords);
+        accountNumbers = new LongHashSet(expectedRecords);
+    }
+
+    /**
+     * Record every parsed employee of a chunk, in order
+     */
+    public void accept(EmployeeRecordValidator.Chunk chunk, List<String> errors) {
+        for (int i = 0; i < chunk.size; i++) {
+            if (chunk.employees[i] != null) {
+                accept(chunk.employees[i], chunk.recordNumbers[i], errors);
+            }
+        }
+    }
+
+    /**
+     * Record one parsed employee, appending duplicate errors to {@code errors}
+     */
+    public void accept(SalaryRequest.Employee employee, int recordNumber, List<String> errors) {
+        records++;
+        long id = packEmployeeId(employee.getEmployeeId());
+        if (id >= 0 && !employeeIds.add(id)) {
+            errors.add("Record " + recordNumber + ": Duplicate employee ID " + employee.getEmployeeId());
+        }
+        long account = packAccountNumber(employee.getAccountNumber());
+        if (account >= 0 && !accountNumbers.add(account)) {
+            errors.add("Record " + recordNumber + ": Duplicate account number " + employee.getAccountNumber());
+        }
+        if (!totalOverflow) {
+            try {
+                total = Math.addExact(total, employee.getAmount());
+            } catch (ArithmeticException e) {
+                totalOverflow = true;
+            }
+        }
+    }
+
+    /**
+     * Compare the accumulated count and total with the values declared in the header, if any
+     */
+    public void verifyControls(SalaryRequest header, int recordsInFile, List<String> errors) {
+        if (header.getRecordCount() != null && header.getRecordCount() != recordsInFile) {
+            errors.add("Record count mismatch: header declares " + header.getRecordCount()
+                    + ", file contains " + recordsInFile);
+        }
+        if (totalOverflow) {
+            errors.add("Sum of amounts exceeds the supported range");
+        } else if (header.getControlTotal() != null && records == recordsInFile
+                && header.getControlTotal() != total) {
+            errors.add("Control total mismatch: header declares " + header.getControlTotal()
+                    + ", amounts sum to " + total);
+        }
+    }
+
+    public long getTotal() { return total; }
+    public int getRecords() { return records; }
+
+    /**
+     * [A-Z0-9]{1,10} as base 36 plus the length (so "00001" and "000001" differ); -1 if not packable
+     */
+    static long packEmployeeId(String id) {
+        if (id == null || id.isEmpty() || id.length() > 10) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt(i);
+            int digit;
+            if (c >= '0' && c <= '9') {
+                digit = c - '0';
+            } else if (c >= 'A' && c <= 'Z') {
+                digit = c - 'A' + 10;
+            } else {
+                return -1;
+            }
+            value = value * 36 + digit;
+        }
+        return id.length() * ID_RADIX_POWER + value;
+    }
+
+    /**
+     * Exactly 10 digits as a number; -1 otherwise
+     */
+    static long packAccountNumber(String account) {
+        if (account == null || account.length() != 10) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = 0; i < 10; i++) {
+            char c = account.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Set of non-negative longs: linear probing over a power-of-two table, -1 marks an empty slot
+     */
+    static final class LongHashSet {
+        private static final long EMPTY = -1;
+
+        private long[] slots;
+        private int size;
+        private int resizeAt;
+
+        LongHashSet(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(16, (int) Math.min(1 << 30, expected * 4L / 3 + 1)) - 1) << 1;
+            allocate(capacity);
+        }
+
+        /**
+         * Add a value; false if it was already present
+         */
+        boolean add(long value) {
+            int mask = slots.length - 1;
+            int i = mix(value) & mask;
+            while (slots[i] != EMPTY) {
+                if (slots[i] == value) {
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            slots[i] = value;
+            if (++size > resizeAt) {
+                grow();
+            }
+            return true;
+        }
+
+        int size() { return size; }
+
+        private void grow() {
+            long[] old = slots;
+            allocate(old.length << 1);
+            int mask = slots.length - 1;
+            for (long value : old) {
+                if (value != EMPTY) {
+                    int i = mix(value) & mask;
+                    while (slots[i] != EMPTY) {
+                        i = (i + 1) & mask;
+                    }
+                    slots[i] = value;
+                }
+            }
+        }
+
+        private void allocate(int capacity) {
+            slots = new long[capacity];
+            Arrays.fill(slots, EMPTY);
+            resizeAt = (int) (capacity * 0.75);
+        }
+
+        private static int mix(long value) {
+            value ^= value >>> 33;
+            value *= 0xff51afd7ed558ccdL;
+            value ^= value >>> 33;
+            return (int) value;
+        }
+    }
+}
@@ -0,0 +1,542 @@
+package com.zikan.salary.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zikan.salary.model.SalaryRequest;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only write-ahead journal of batch progress, so batches interrupted by a crash
+ * can be resumed from their last completed stage.
+ *
+ * Records go into a memory-mapped segment file under zikan.journal.dir; an append is a
+ * copy into the mapping (a few microseconds) and never waits for the disk. A flusher
+ * forces the segment every flushIntervalMs, so one fsync covers every record appended
+ * since the last one (group commit); callers that need a record on disk before they
+ * answer wait for the next flush. Each record is [length][crc32c][body] with the
+ * length written last, so a record torn by a crash fails its check and ends replay.
+ * The next segment is preallocated in the background, and a full segment is forced by
+ * the flusher, so rolling over costs an append no disk I/O.
+ *
+ * A batch's request is not copied into the journal: it is streamed once into its own
+ * file under {@code requests/}, and the ACCEPTED record holds only that file's name, so
+ * records stay a few dozen bytes whatever the payroll size. The flusher forces new
+ * request files together with the records that name them, and deletes a request file
+ * once its batch's terminal record is on disk.
+ *
+ * On startup all segments are replayed, batches that never reached a terminal stage
+ * are copied into a fresh segment and the old segments are deleted. During operation
+ * a segment is deleted once every batch it started has finished.
+ */
+@Service
+public class BatchJournal {
+
+    public enum Stage { ACCEPTED, GENERATED, ENCRYPTED, UPLOADED, UPLOAD_FAILED, ACKNOWLEDGED, FAILED }
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".wal";
+    private static final String PREPARED_SUFFIX = ".prep";
+    private static final String REQUESTS_DIR = "requests";
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${zikan.journal.enabled:true}")
+    private boolean enabled;
+
+    @Value("${zikan.journal.dir:${zikan.workdir}/journal}")
+    private String dir;
+
+    @Value("${zikan.journal.segmentSizeMb:16}")
+    private int segmentSizeMb;
+
+    @Value("${zikan.journal.flushIntervalMs:2}")
+    private long flushIntervalMs;
+
+    @Value("${zikan.journal.syncOnAccept:true}")
+    private boolean syncOnAccept;
+
+    @Value("${zikan.journal.syncTimeoutMs:5000}")
+    private long syncTimeoutMs;
+
+    private Path directory;
+    private Path requests;
+    private MappedByteBuffer segment;
+    private int segmentIndex;
+    private final List<MappedByteBuffer> sealed = new ArrayList<>(); // rolled over, not yet forced; guarded by this
+    private int preparedIndex;            // next segment preallocated on disk, 0 if none; guarded by this
+    private boolean preparing;            // guarded by this
+    private int oldestRetained;           // flusher only
+    private long appendedSeq;             // guarded by this
+    private volatile long durableSeq;
+    private final Object durable = new Object();
+    private final Map<String, Integer> openBatches = new ConcurrentHashMap<>(); // batch -> segment of its ACCEPTED
+    private final Map<String, Path> requestFiles = new ConcurrentHashMap<>();  // batch -> its request file
+    private final List<Path> unsyncedRequests = new ArrayList<>();             // guarded by this
+    private final ArrayDeque<Finished> finishedRequests = new ArrayDeque<>();   // guarded by this, in seq order
+    private List<Recovered> recovered = new ArrayList<>();
+    private ScheduledExecutorService flusher;
+
+    private final LongAdder appends = new LongAdder();
+    private final LongAdder appendNanos = new LongAdder();
+    private final LongAdder forces = new LongAdder();
+    private final LongAdder forceNanos = new LongAdder();
+
+    public BatchJournal(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        directory = Paths.get(dir);
+        requests = directory.resolve(REQUESTS_DIR);
+        Files.createDirectories(requests);
+
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path stale : files.filter(f -> f.toString().endsWith(PREPARED_SUFFIX)).toList()) {
+                Files.deleteIfExists(stale);
+            }
+        }
+        TreeMap<Integer, Path> previous = listSegments();
+        Map<String, Recovered> pending = new LinkedHashMap<>();
+        for (Path file : previous.values()) {
+            replay(file, pending);
+        }
+
+        segmentIndex = previous.isEmpty() ? 1 : previous.lastKey() + 1;
+        oldestRetained = segmentIndex;
+        openSegment();
+        for (Recovered r : pending.values()) {
+            append(r.batchId, Stage.ACCEPTED, r.requestFile.getFileName().toString());
+            requestFiles.put(r.batchId, r.requestFile);
+            if (r.stage != Stage.ACCEPTED) {
+                append(r.batchId, r.stage, r.data);
+            }
+        }
+        for (MappedByteBuffer full : sealed) {
+            full.force();
+        }
+        sealed.clear();
+        segment.force();
+        for (Path file : previous.values()) {
+            Files.deleteIfExists(file);
+        }
+        Set<Path> needed = Set.copyOf(requestFiles.values());
+        try (Stream<Path> files = Files.list(requests)) {
+            for (Path orphan : files.filter(f -> !needed.contains(f)).toList()) {
+                Files.deleteIfExists(orphan); // Of a finished batch, or written just before a crash
+            }
+        }
+        recovered = new ArrayList<>(pending.values());
+        if (!recovered.isEmpty()) {
+            System.out.println("Journal: " + recovered.size() + " unfinished batch(es) to resume");
+        }
+
+        AtomicInteger counter = new AtomicInteger();
+        flusher = Executors.newScheduledThreadPool(2, r -> { // group commits, plus preparing the next segment
+            Thread t = new Thread(r, "journal-flush-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        if (flusher == null) {
+            return;
+        }
+        flusher.shutdownNow();
+        flush();
+    }
+
+    /**
+     * Journal a newly accepted batch: its request is written to its own file and the
+     * record names that file. Returns once both are on disk when zikan.journal.syncOnAccept
+     * is set.
+     *
+     * @throws UncheckedIOException if the request cannot be written, or is not on disk within syncTimeoutMs
+     */
+    public void accept(SalaryRequest request) {
+        if (!enabled || request.getSalaryBatchId() == null) {
+            return;
+        }
+        String batchId = request.getSalaryBatchId();
+        Path file = requests.resolve(UUID.randomUUID() + ".json");
+        try (OutputStream out = Files.newOutputStream(file, StandardOpenOption.CREATE_NEW)) {
+            objectMapper.writeValue(out, request);
+        } catch (IOException e) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ignored) {
+                // Removed at next startup
+            }
+            throw new UncheckedIOException("Unable to journal batch " + batchId, e);
+        }
+        long seq;
+        synchronized (this) {
+            unsyncedRequests.add(file);
+            Path replaced = requestFiles.put(batchId, file);
+            seq = append(batchId, Stage.ACCEPTED, file.getFileName().toString());
+            if (replaced != null) { // Accepted again, e.g. resubmitted after failing
+                finishedRequests.add(new Finished(seq, replaced));
+            }
+        }
+        if (syncOnAccept) {
+            awaitDurable(seq);
+        }
+    }
+
+    /**
+     * Journal a completed stage; {@code data} is the stage's output (a file path or a
+     * failure reason). Does not wait for the disk.
+     */
+    public void record(String salaryBatchId, Stage stage, String data) {
+        if (enabled && salaryBatchId != null) {
+            append(salaryBatchId, stage, data);
+        }
+    }
+
+    /**
+     * Batches found unfinished at startup, handed out once
+     */
+    public synchronized List<Recovered> takeRecovered() {
+        List<Recovered> taken = recovered;
+        recovered = Collections.emptyList();
+        return taken;
+    }
+
+    /**
+     * Append and fsync cost, for checking the journal stays off the critical path
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", enabled);
+        metrics.put("segment", segmentIndex);
+        metrics.put("openBatches", openBatches.size());
+        metrics.put("appends", appends.sum());
+        metrics.put("avgAppendMicros", appends.sum() == 0 ? 0.0 : appendNanos.sum() / 1e3 / appends.sum());
+        metrics.put("forces", forces.sum());
+        metrics.put("avgForceMs", forces.sum() == 0 ? 0.0 : forceNanos.sum() / 1e6 / forces.sum());
+        return metrics;
+    }
+
+    private long append(String batchId, Stage stage, String data) {
+        long started = System.nanoTime();
+        byte[] id = batchId.getBytes(StandardCharsets.UTF_8);
+        byte[] payload = data == null ? new byte[0] : data.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer body = ByteBuffer.allocate(1 + 2 + id.length + payload.length);
+        body.put((byte) stage.ordinal()).putShort((short) id.length).put(id).put(payload);
+        byte[] bytes = body.array();
+        CRC32C crc = new CRC32C();
+        crc.update(bytes);
+
+        long seq;
+        synchronized (this) {
+            int size = 8 + bytes.length;
+            if (segment.remaining() < size + 4) { // Keep room for the zero length that ends the segment
+                rollover(size);
+            }
+            int pos = segment.position();
+            segment.putInt(pos + 4, (int) crc.getValue());
+            segment.put(pos + 8, bytes);
+            segment.putInt(pos, bytes.length); // Written last: the record counts only once this is set
+            segment.position(pos + size);
+            seq = ++appendedSeq;
+
+            if (stage == Stage.ACCEPTED) {
+                openBatches.putIfAbsent(batchId, segmentIndex);
+            } else if (stage == Stage.ACKNOWLEDGED || stage == Stage.FAILED) {
+                openBatches.remove(batchId);
+                Path request = requestFiles.remove(batchId);
+                if (request != null) {
+                    finishedRequests.add(new Finished(seq, request));
+                }
+            }
+        }
+        appends.increment();
+        appendNanos.add(System.nanoTime() - started);
+        return seq;
+    }
+
+    private void awaitDurable(long seq) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(syncTimeoutMs);
+        synchronized (durable) {
+            while (durableSeq < seq) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new UncheckedIOException(new IOException("Journal not synced to disk within " + syncTimeoutMs + " ms"));
+                }
+                try {
+                    durable.wait(Math.max(1, Math.min(flushIntervalMs * 10, TimeUnit.NANOSECONDS.toMillis(remaining))));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new UncheckedIOException(new InterruptedIOException("Interrupted waiting for the journal to sync"));
+                }
+            }
+        }
+    }
+
+    /**
+     * One group commit: force everything appended so far and the request files it names,
+     * release its waiters, then delete request files and segments no unfinished batch
+     * needs and start preparing the next segment once the current one is half full
+     */
+    private void flush() {
+        try {
+            long target;
+            MappedByteBuffer current;
+            List<MappedByteBuffer> full;
+            List<Path> newRequests;
+            List<Path> finished = new ArrayList<>();
+            int oldestNeeded = Integer.MAX_VALUE;
+            int prepare = 0;
+            synchronized (this) {
+                target = appendedSeq;
+                current = segment;
+                full = new ArrayList<>(sealed);
+                sealed.clear();
+                newRequests = new ArrayList<>(unsyncedRequests);
+                unsyncedRequests.clear();
+                while (!finishedRequests.isEmpty() && finishedRequests.peek().seq() <= target) {
+                    finished.add(finishedRequests.poll().file());
+                }
+                if (oldestRetained < segmentIndex) { // Measured here, so only batches finished by target count
+                    oldestNeeded = segmentIndex;
+                    for (int index : openBatches.values()) {
+                        oldestNeeded = Math.min(oldestNeeded, index);
+                    }
+                }
+                if (!preparing && preparedIndex == 0 && current.position() > current.capacity() / 2) {
+                    preparing = true;
+                    prepare = segmentIndex + 1;
+                }
+            }
+            if (target != durableSeq) {
+                long started = System.nanoTime();
+                for (Path request : newRequests) {
+                    force(request);
+                }
+                if (!newRequests.isEmpty()) {
+                    force(requests); // Their directory entries
+                }
+                for (MappedByteBuffer buffer : full) {
+                    buffer.force();
+                }
+                current.force();
+                forces.increment();
+                forceNanos.add(System.nanoTime() - started);
+                synchronized (durable) {
+                    durableSeq = Math.max(durableSeq, target);
+                    durable.notifyAll();
+                }
+            }
+            for (Path request : finished) {
+                Files.deleteIfExists(request);
+            }
+            if (oldestNeeded > oldestRetained && oldestNeeded != Integer.MAX_VALUE) {
+                for (Path old : listSegments().headMap(oldestNeeded).values()) {
+                    Files.deleteIfExists(old);
+                }
+                oldestRetained = oldestNeeded;
+            }
+            if (prepare > 0 && !flusher.isShutdown()) {
+                int index = prepare;
+                flusher.execute(() -> prepare(index));
+            }
+        } catch (Exception e) {
+            System.err.println("Journal flush failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * fsync a file or directory. Some platforms cannot open a directory for this; the
+     * entries of a new file are then left to the file system.
+     */
+    private static void force(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            if (!Files.isDirectory(path)) {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Write out segment {@code index} under a temporary name, so rolling over to it is a
+     * rename rather than block allocation on first touch of every page
+     */
+    private void prepare(int index) {
+        Path file = segmentFile(index, PREPARED_SUFFIX);
+        boolean ready = false;
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            ByteBuffer zeros = ByteBuffer.allocateDirect(1 << 20);
+            for (long written = 0; written < (long) segmentSizeMb << 20; written += zeros.capacity()) {
+                zeros.clear();
+                while (zeros.hasRemaining()) {
+                    out.write(zeros);
+                }
+            }
+            ready = true;
+        } catch (IOException e) {
+            System.err.println("Journal: unable to prepare segment " + index + ": " + e.getMessage());
+        }
+        synchronized (this) {
+            preparing = false;
+            if (ready && index == segmentIndex + 1) {
+                preparedIndex = index;
+                return;
+            }
+        }
+        try {
+            Files.deleteIfExists(file); // Rolled over without it
+        } catch (IOException ignored) {
+            // Removed at next startup
+        }
+    }
+
+    /**
+     * Switch appends to the next segment; the full one is forced by the next flush
+     */
+    private void rollover(int recordSize) {
+        if (recordSize + 4 > (long) segmentSizeMb << 20) {
+            throw new IllegalArgumentException("Journal record of " + recordSize + " bytes exceeds the segment size");
+        }
+        try {
+            sealed.add(segment);
+            segmentIndex++;
+            if (preparedIndex == segmentIndex) {
+                Files.move(segmentFile(segmentIndex, PREPARED_SUFFIX), segmentFile(segmentIndex, SEGMENT_SUFFIX));
+            }
+            preparedIndex = 0;
+            openSegment();
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to roll journal segment: " + e.getMessage(), e);
+        }
+    }
+
+    private void openSegment() throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentFile(segmentIndex, SEGMENT_SUFFIX),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) segmentSizeMb << 20); // Outlives the channel
+        }
+    }
+
+    private Path segmentFile(int index, String suffix) {
+        return directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, index, suffix));
+    }
+
+    private TreeMap<Integer, Path> listSegments() throws IOException {
+        TreeMap<Integer, Path> segments = new TreeMap<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                String name = file.getFileName().toString();
+                if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                    try {
+                        segments.put(Integer.parseInt(name.substring(SEGMENT_PREFIX.length(),
+                                name.length() - SEGMENT_SUFFIX.length())), file);
+                    } catch (NumberFormatException ignored) {
+                        // Not one of ours
+                    }
+                }
+            });
+        }
+        return segments;
+    }
+
+    /**
+     * Apply every intact record of a segment to {@code pending}, stopping at the first
+     * empty or damaged one
+     */
+    private void replay(Path file, Map<String, Recovered> pending) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            int pos = 0;
+            while (pos + 8 <= buffer.limit()) {
+                int length = buffer.getInt(pos);
+                if (length <= 0 || pos + 8L + length > buffer.limit()) {
+                    break;
+                }
+                byte[] bytes = new byte[length];
+                buffer.get(pos + 8, bytes);
+                CRC32C crc = new CRC32C();
+                crc.update(bytes);
+                if ((int) crc.getValue() != buffer.getInt(pos + 4)) {
+                    System.err.println("Journal: damaged record in " + file.getFileName() + " at " + pos + ", replay stops");
+                    break;
+                }
+                apply(ByteBuffer.wrap(bytes), pending);
+                pos += 8 + length;
+            }
+        }
+    }
+
+    private void apply(ByteBuffer body, Map<String, Recovered> pending) {
+        Stage stage = Stage.values()[body.get()];
+        byte[] id = new byte[body.getShort()];
+        body.get(id);
+        byte[] payload = new byte[body.remaining()];
+        body.get(payload);
+        String batchId = new String(id, StandardCharsets.UTF_8);
+        String data = payload.length == 0 ? null : new String(payload, StandardCharsets.UTF_8);
+
+        switch (stage) {
+            case ACCEPTED -> pending.put(batchId, new Recovered(batchId, Stage.ACCEPTED, requests.resolve(data), null));
+            case ACKNOWLEDGED, FAILED -> pending.remove(batchId);
+            default -> {
+                Recovered r = pending.get(batchId);
+                if (r != null) {
+                    pending.put(batchId, new Recovered(batchId, stage, r.requestFile, data));
+                }
+            }
+        }
+    }
+
+    /**
+     * An unfinished batch: the last stage it completed and that stage's output
+     */
+    public record Recovered(String batchId, Stage stage, Path requestFile, String data) {
+        public SalaryRequest request(ObjectMapper objectMapper) throws IOException {
+            return objectMapper.readValue(requestFile.toFile(), SalaryRequest.class);
+        }
+    }
+
+    /** Request file of a batch whose terminal record is {@code seq}, deleted once that is on disk */
+    private record Finished(long seq, Path file) { }
+}
@@ -0,0 +1,274 @@
+package com.zikan.salary.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Decides which uploaded batch runs next when more are waiting than there are workers
+ * (zikan.scheduler.workers).
+ *
+ * Each client (SFTP user) has its own queue. Queues share the workers by weighted fair
+ * queueing (start-time fair queueing): a batch is tagged on arrival with a virtual start
+ * of {@code max(lane clock, client's last finish)} and a finish of start plus
+ * {@code file size / client weight}, and the waiting batch with the smallest start tag
+ * runs next. A client that drops forty large files at once therefore queues behind
+ * itself, while a client with a single file is served at its next turn. Clients whose
+ * core banking submissions are currently held back by {@link ClientRateLimiter} are
+ * passed over while another client has work.
+ *
+ * The URGENT lane (off-cycle payroll, uploaded to zikan.sftp.urgentDir) is served
+ * ahead of the NORMAL lane; within a lane the same fair queueing applies.
+ */
+@Service
+public class ClientBatchScheduler {
+
+    public enum Lane { URGENT, NORMAL }
+
+    private final ClientRateLimiter rateLimiter;
+
+    @Value("${zikan.scheduler.workers:4}")
+    private int workers;
+
+    @Value("${zikan.scheduler.weights:}")
+    private String clientWeights;
+
+    @Value("${zikan.scheduler.defaultWeight:1}")
+    private double defaultWeight;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private final Map<String, Double> weights = new HashMap<>();
+    private final Map<Lane, LaneQueue> lanes = new EnumMap<>(Lane.class);
+    private final Map<String, ClientStats> stats = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition ready = lock.newCondition();
+    private int queued;
+    private boolean stopping;
+    private ExecutorService executor;
+
+    public ClientBatchScheduler(ClientRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @PostConstruct
+    void init() {
+        for (String entry : clientWeights.split(",")) {
+            int colon = entry.indexOf(':');
+            if (colon > 0) {
+                double weight = Double.parseDouble(entry.substring(colon + 1).trim());
+                if (weight <= 0) {
+                    throw new IllegalArgumentException("Scheduler weight must be positive: " + entry);
+                }
+                weights.put(entry.substring(0, colon).trim(), weight);
+            }
+        }
+        for (Lane lane : Lane.values()) {
+            lanes.put(lane, new LaneQueue());
+        }
+
+        // Virtual mode still runs a fixed number of workers: an unbounded number would leave nothing to schedule
+        AtomicInteger counter = new AtomicInteger();
+        executor = VirtualThreads.executor(virtualThreads, "batch-worker-", () ->
+                Executors.newFixedThreadPool(workers, r -> {
+                    Thread t = new Thread(r, "batch-worker-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }));
+        for (int i = 0; i < workers; i++) {
+            executor.execute(this::work);
+        }
+    }
+
+    /**
+     * Let the workers finish what is queued, then stop them
+     */
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        lock.lock();
+        try {
+            stopping = true;
+            ready.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Queue a batch for {@code client}; {@code cost} is its size (bytes of the uploaded file)
+     */
+    public void submit(String client, Lane lane, long cost, Runnable batch) {
+        String key = client == null ? "" : client;
+        lock.lock();
+        try {
+            if (stopping) {
+                throw new IllegalStateException("Scheduler is shutting down");
+            }
+            LaneQueue laneQueue = lanes.get(lane);
+            ClientQueue clientQueue = laneQueue.clients.computeIfAbsent(key, c -> new ClientQueue());
+            double start = Math.max(laneQueue.clock, clientQueue.lastFinish);
+            clientQueue.lastFinish = start + Math.max(1, cost) / weight(key);
+            clientQueue.batches.add(new Queued(key, lane, start, System.nanoTime(), batch));
+            stats(key).queued.incrementAndGet();
+            queued++;
+            ready.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Per-lane depth and per-client weight, queue depth and time spent waiting for a worker,
+     * plus the per-client rate limits
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> laneMetrics = new LinkedHashMap<>();
+        lock.lock();
+        try {
+            lanes.forEach((lane, laneQueue) -> {
+                Map<String, Object> m = new LinkedHashMap<>();
+                m.put("queued", laneQueue.clients.values().stream().mapToInt(q -> q.batches.size()).sum());
+                m.put("dispatched", laneQueue.dispatched);
+                laneMetrics.put(lane.name(), m);
+            });
+        } finally {
+            lock.unlock();
+        }
+        Map<String, Object> clients = new TreeMap<>();
+        stats.forEach((client, s) -> {
+            long dispatched = s.dispatched.sum();
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("weight", weight(client));
+            m.put("queued", s.queued.get());
+            m.put("dispatched", dispatched);
+            m.put("avgWaitMs", dispatched == 0 ? 0.0 : s.waitNanos.sum() / 1e6 / dispatched);
+            m.put("maxWaitMs", s.maxWaitNanos.get() / 1_000_000);
+            clients.put(client, m);
+        });
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("workers", workers);
+        metrics.put("lanes", laneMetrics);
+        metrics.put("clients", clients);
+        metrics.put("rateLimits", rateLimiter.getMetrics());
+        return metrics;
+    }
+
+    private void work() {
+        while (true) {
+            Queued next;
+            try {
+                next = take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (next == null) {
+                return;
+            }
+            long waited = System.nanoTime() - next.enqueuedAt;
+            ClientStats s = stats(next.client);
+            s.queued.decrementAndGet();
+            s.dispatched.increment();
+            s.waitNanos.add(waited);
+            s.maxWaitNanos.accumulateAndGet(waited, Math::max);
+            try {
+                next.batch.run();
+            } catch (RuntimeException e) {
+                System.err.println("Batch for client " + next.client + " failed: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * The next batch to run, or null once stopping and nothing is left
+     */
+    private Queued take() throws InterruptedException {
+        lock.lock();
+        try {
+            while (queued == 0) {
+                if (stopping) {
+                    return null;
+                }
+                ready.await();
+            }
+            for (Lane lane : Lane.values()) {
+                LaneQueue laneQueue = lanes.get(lane);
+                ClientQueue pick = null;
+                ClientQueue fallback = null;
+                for (Map.Entry<String, ClientQueue> entry : laneQueue.clients.entrySet()) {
+                    ClientQueue candidate = entry.getValue();
+                    Queued head = candidate.batches.peek();
+                    if (head == null) {
+                        continue;
+                    }
+                    if (fallback == null || head.start < fallback.batches.peek().start) {
+                        fallback = candidate;
+                    }
+                    if (!rateLimiter.isThrottled(entry.getKey())
+                            && (pick == null || head.start < pick.batches.peek().start)) {
+                        pick = candidate;
+                    }
+                }
+                if (fallback != null) {
+                    Queued next = (pick != null ? pick : fallback).batches.poll();
+                    laneQueue.clock = Math.max(laneQueue.clock, next.start);
+                    laneQueue.dispatched++;
+                    queued--;
+                    return next;
+                }
+            }
+            throw new IllegalStateException("Scheduler queue count out of step: " + queued);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private double weight(String client) {
+        return weights.getOrDefault(client, defaultWeight);
+    }
+
+    private ClientStats stats(String client) {
+        return stats.computeIfAbsent(client, c -> new ClientStats());
+    }
+
+    private record Queued(String client, Lane lane, double start, long enqueuedAt, Runnable batch) {
+    }
+
+    private static final class LaneQueue {
+        private final Map<String, ClientQueue> clients = new HashMap<>();
+        private double clock;
+        private long dispatched;
+    }
+
+    private static final class ClientQueue {
+        private final ArrayDeque<Queued> batches = new ArrayDeque<>();
+        private double lastFinish;
+    }
+
+    private static final class ClientStats {
+        private final AtomicInteger queued = new AtomicInteger();
+        private final LongAdder dispatched = new LongAdder();
+        private final LongAdder waitNanos = new LongAdder();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+    }
+}
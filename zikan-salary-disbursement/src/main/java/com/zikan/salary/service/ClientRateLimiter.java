@@ -0,0 +1,148 @@
+package com.zikan.salary.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-client token buckets on payment records submitted to core banking.
+ *
+ * Each client (SFTP user) may submit zikan.scheduler.ratePerSecond records per second
+ * (overridden per client by zikan.scheduler.clientRates), with bursts of up to
+ * burstSeconds worth. A submission takes its records from the bucket up front and, if
+ * that leaves the bucket in deficit, waits until the deficit is refilled; a chunk larger
+ * than the bucket is therefore still sent, just later. A rate of 0 means no limit.
+ */
+@Service
+public class ClientRateLimiter {
+
+    @Value("${zikan.scheduler.ratePerSecond:0}")
+    private double defaultRate;
+
+    @Value("${zikan.scheduler.clientRates:}")
+    private String clientRates;
+
+    @Value("${zikan.scheduler.burstSeconds:1}")
+    private double burstSeconds;
+
+    private final Map<String, Double> rates = new HashMap<>();
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        for (String entry : clientRates.split(",")) {
+            int colon = entry.indexOf(':');
+            if (colon > 0) {
+                rates.put(entry.substring(0, colon).trim(), Double.parseDouble(entry.substring(colon + 1).trim()));
+            }
+        }
+    }
+
+    /**
+     * Take {@code records} tokens from the client's bucket and return how long the caller
+     * must wait before submitting them, in nanoseconds (0 when unlimited or within budget)
+     */
+    public long reserve(String client, int records) {
+        Bucket bucket = bucket(client);
+        return bucket == null ? 0 : bucket.reserve(records);
+    }
+
+    /**
+     * Reserve {@code records} tokens and wait until they are available
+     */
+    public void acquire(String client, int records) throws InterruptedException {
+        long wait = reserve(client, records);
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    /**
+     * True if the client has used more than its bucket holds, i.e. its next submission would wait
+     */
+    public boolean isThrottled(String client) {
+        Bucket bucket = client == null ? null : buckets.get(client);
+        return bucket != null && bucket.isInDeficit();
+    }
+
+    /**
+     * Rate, available tokens, records submitted and time spent waiting, per client
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> clients = new TreeMap<>();
+        buckets.forEach((client, bucket) -> clients.put(client, bucket.metrics()));
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("defaultRatePerSecond", defaultRate);
+        metrics.put("burstSeconds", burstSeconds);
+        metrics.put("clients", clients);
+        return metrics;
+    }
+
+    private Bucket bucket(String client) {
+        if (client == null) {
+            return null;
+        }
+        double rate = rates.getOrDefault(client, defaultRate);
+        if (rate <= 0) {
+            return null;
+        }
+        return buckets.computeIfAbsent(client, c -> new Bucket(rate, Math.max(1, rate * burstSeconds)));
+    }
+
+    private static final class Bucket {
+        private final double ratePerNano;
+        private final double ratePerSecond;
+        private final double capacity;
+        private double tokens;
+        private long refilledAt = System.nanoTime();
+        private long records;
+        private long throttledNanos;
+
+        Bucket(double ratePerSecond, double capacity) {
+            this.ratePerSecond = ratePerSecond;
+            this.ratePerNano = ratePerSecond / 1e9;
+            this.capacity = capacity;
+            this.tokens = capacity;
+        }
+
+        synchronized long reserve(int count) {
+            refill();
+            tokens -= count;
+            records += count;
+            if (tokens >= 0) {
+                return 0;
+            }
+            long wait = (long) Math.ceil(-tokens / ratePerNano);
+            throttledNanos += wait;
+            return wait;
+        }
+
+        synchronized boolean isInDeficit() {
+            refill();
+            return tokens < 0;
+        }
+
+        synchronized Map<String, Object> metrics() {
+            refill();
+            Map<String, Object> metrics = new LinkedHashMap<>();
+            metrics.put("ratePerSecond", ratePerSecond);
+            metrics.put("tokens", (long) tokens);
+            metrics.put("records", records);
+            metrics.put("throttledMs", throttledNanos / 1_000_000);
+            return metrics;
+        }
+
+        private void refill() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * ratePerNano);
+            refilledAt = now;
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package com.zikan.salary.service;
+
+import com.zikan.salary.model.RegisteredEmployee;
+import com.zikan.salary.model.SalaryRequest;
+import com.zikan.salary.repository.RegisteredEmployeeRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Verifies batch records against registered employee master data.
+ *
+ * Each company's employees are bulk-loaded with one query into a primitive index:
+ * the employee ID (packed base 36, as in {@link BatchIntegrityCheck}) maps to the
+ * account number and bank code packed into a single long, so a lookup is a probe into
+ * two long arrays and a 100k-employee company costs about 4 MB. Indexes are kept in an
+ * LRU bounded by company count and total entries, reloaded after ttlSeconds, and
+ * dropped when the company's master data is changed through {@link #register}.
+ * Concurrent misses for the same company share one load.
+ */
+@Service
+public class EmployeeMasterDataCache {
+
+    private final RegisteredEmployeeRepository repository;
+
+    @Value("${zikan.masterdata.ttlSeconds:300}")
+    private long ttlSeconds;
+
+    @Value("${zikan.masterdata.maxCompanies:200}")
+    private int maxCompanies;
+
+    @Value("${zikan.masterdata.maxEntries:5000000}")
+    private long maxEntries;
+
+    @Value("${zikan.masterdata.requireRegistration:false}")
+    private boolean requireRegistration;
+
+    @Value("${zikan.validation.maxErrors:1000}")
+    private int maxErrors;
+
+    private final LinkedHashMap<String, CompanyIndex> companies = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedEntries;
+    private final Map<String, CompletableFuture<CompanyIndex>> loading = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadMs = new LongAdder();
+    private final LongAdder recordsVerified = new LongAdder();
+    private final LongAdder mismatches = new LongAdder();
+
+    public EmployeeMasterDataCache(RegisteredEmployeeRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Check every employee of a batch against the company's master data and return the
+     * mismatches in record order. A company with no registered employees passes unless
+     * zikan.masterdata.requireRegistration is set.
+     */
+    public List<String> verify(SalaryRequest request) {
+        List<String> errors = new ArrayList<>();
+        List<SalaryRequest.Employee> employees = request.getEmployees();
+        if (employees == null || employees.isEmpty()) {
+            return errors;
+        }
+        CompanyIndex index = request.getCompanyAccount() == null ? null : index(request.getCompanyAccount());
+        if (index == null || index.size() == 0) {
+            if (requireRegistration) {
+                errors.add("No registered employees for company account " + request.getCompanyAccount());
+            }
+            return errors;
+        }
+
+        int record = 0;
+        for (SalaryRequest.Employee e : employees) {
+            record++;
+            long expected = index.get(e.getEmployeeId());
+            if (expected == CompanyIndex.MISSING) {
+                errors.add("Record " + record + ": Employee " + e.getEmployeeId() + " is not registered");
+            } else if (expected != packPayee(e.getAccountNumber(), e.getBankCode())) {
+                if (expected < 0 || expected / 1000 != BatchIntegrityCheck.packAccountNumber(e.getAccountNumber())) {
+                    errors.add("Record " + record + ": Account number does not match master data for employee "
+                            + e.getEmployeeId());
+                } else {
+                    errors.add("Record " + record + ": Bank code does not match master data for employee "
+                            + e.getEmployeeId());
+                }
+            }
+            if (maxErrors > 0 && errors.size() >= maxErrors) {
+                errors.add("Verification stopped after " + maxErrors + " errors");
+                break;
+            }
+        }
+        recordsVerified.add(record);
+        mismatches.add(errors.size());
+        return errors;
+    }
+
+    /**
+     * Add or update a company's employees, then drop its cached index once committed
+     */
+    @Transactional
+    public int register(String companyAccount, List<SalaryRequest.Employee> employees) {
+        Map<String, SalaryRequest.Employee> byId = new LinkedHashMap<>();
+        for (SalaryRequest.Employee e : employees) {
+            if (!EmployeeRecordValidator.EMPLOYEE_ID.matches(e.getEmployeeId())
+                    || !EmployeeRecordValidator.ACCOUNT_NUMBER.matches(e.getAccountNumber())
+                    || !EmployeeRecordValidator.BANK_CODE.matches(e.getBankCode())) {
+                throw new IllegalArgumentException("Invalid master data for employee " + e.getEmployeeId());
+            }
+            byId.put(e.getEmployeeId(), e);
+        }
+
+        Map<String, RegisteredEmployee> existing = new HashMap<>();
+        for (RegisteredEmployee r : repository.findByCompanyAccountAndEmployeeIdIn(companyAccount, byId.keySet())) {
+            existing.put(r.getEmployeeId(), r);
+        }
+        List<RegisteredEmployee> rows = new ArrayList<>(byId.size());
+        for (SalaryRequest.Employee e : byId.values()) {
+            RegisteredEmployee row = existing.getOrDefault(e.getEmployeeId(),
+                    new RegisteredEmployee(companyAccount, e.getEmployeeId()));
+            row.setName(e.getName());
+            row.setAccountNumber(e.getAccountNumber());
+            row.setBankCode(e.getBankCode());
+            row.setUpdatedAt(Instant.now());
+            rows.add(row);
+        }
+        repository.saveAll(rows);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(companyAccount);
+                }
+            });
+        } else {
+            invalidate(companyAccount);
+        }
+        return rows.size();
+    }
+
+    /**
+     * Forget a company's index so the next batch reloads it
+     */
+    public synchronized void invalidate(String companyAccount) {
+        CompanyIndex removed = companies.remove(companyAccount);
+        if (removed != null) {
+            cachedEntries -= removed.size();
+        }
+    }
+
+    /**
+     * Cache size, hit/load counts and verification totals
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        synchronized (this) {
+            metrics.put("cachedCompanies", companies.size());
+            metrics.put("cachedEntries", cachedEntries);
+        }
+        metrics.put("hits", hits.sum());
+        metrics.put("loads", loads.sum());
+        metrics.put("avgLoadMs", loads.sum() == 0 ? 0.0 : (double) loadMs.sum() / loads.sum());
+        metrics.put("recordsVerified", recordsVerified.sum());
+        metrics.put("mismatches", mismatches.sum());
+        return metrics;
+    }
+
+    /**
+     * Cached index for a company, loading it (once, however many callers) if absent or expired
+     */
+    private CompanyIndex index(String companyAccount) {
+        synchronized (this) {
+            CompanyIndex cached = companies.get(companyAccount);
+            if (cached != null && cached.loadedAt > System.currentTimeMillis() - ttlSeconds * 1000) {
+                hits.increment();
+                return cached;
+            }
+        }
+        CompletableFuture<CompanyIndex> mine = new CompletableFuture<>();
+        CompletableFuture<CompanyIndex> running = loading.putIfAbsent(companyAccount, mine);
+        if (running != null) {
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw new IllegalStateException("Unable to load master data: " + e.getCause().getMessage(), e.getCause());
+            }
+        }
+        try {
+            CompanyIndex index = load(companyAccount);
+            put(companyAccount, index);
+            mine.complete(index);
+            return index;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(companyAccount, mine);
+        }
+    }
+
+    private CompanyIndex load(String companyAccount) {
+        long start = System.currentTimeMillis();
+        List<Object[]> rows = repository.findKeysByCompanyAccount(companyAccount);
+        CompanyIndex index = new CompanyIndex(rows.size());
+        for (Object[] row : rows) {
+            index.put((String) row[0], packPayee((String) row[1], (String) row[2]));
+        }
+        loads.increment();
+        loadMs.add(System.currentTimeMillis() - start);
+        return index;
+    }
+
+    private synchronized void put(String companyAccount, CompanyIndex index) {
+        CompanyIndex previous = companies.put(companyAccount, index);
+        cachedEntries += index.size() - (previous == null ? 0 : previous.size());
+        Iterator<Map.Entry<String, CompanyIndex>> eldest = companies.entrySet().iterator();
+        while ((companies.size() > maxCompanies || cachedEntries > maxEntries) && companies.size() > 1) {
+            Map.Entry<String, CompanyIndex> entry = eldest.next();
+            if (entry.getValue() != index) {
+                cachedEntries -= entry.getValue().size();
+                eldest.remove();
+            }
+        }
+    }
+
+    /**
+     * Account number and bank code as account * 1000 + bank; -1 if either is malformed
+     */
+    static long packPayee(String accountNumber, String bankCode) {
+        long account = BatchIntegrityCheck.packAccountNumber(accountNumber);
+        if (account < 0 || bankCode == null || bankCode.length() != 3) {
+            return -1;
+        }
+        long bank = 0;
+        for (int i = 0; i < 3; i++) {
+            char c = bankCode.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            bank = bank * 10 + (c - '0');
+        }
+        return account * 1000 + bank;
+    }
+
+    /**
+     * One company's employees: packed employee ID to packed payee, linear probing over
+     * parallel long arrays. IDs that cannot be packed fall back to a small map.
+     */
+    static final class CompanyIndex {
+        static final long MISSING = Long.MIN_VALUE;
+        private static final long EMPTY = -1;
+
+        private final long loadedAt = System.currentTimeMillis();
+        private final long[] keys;
+        private final long[] values;
+        private final Map<String, Long> unpacked = new HashMap<>();
+        private int size;
+
+        CompanyIndex(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(16, (int) Math.min(1 << 30, expected * 4L / 3 + 1)) - 1) << 1;
+            keys = new long[capacity];
+            values = new long[capacity];
+            Arrays.fill(keys, EMPTY);
+        }
+
+        void put(String employeeId, long payee) {
+            long key = BatchIntegrityCheck.packEmployeeId(employeeId);
+            if (key < 0) {
+                if (unpacked.put(employeeId, payee) == null) {
+                    size++;
+                }
+                return;
+            }
+            int mask = keys.length - 1;
+            int i = mix(key) & mask;
+            while (keys[i] != EMPTY && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (keys[i] == EMPTY) {
+                size++;
+            }
+            keys[i] = key;
+            values[i] = payee;
+        }
+
+        long get(String employeeId) {
+            long key = BatchIntegrityCheck.packEmployeeId(employeeId);
+            if (key < 0) {
+                Long payee = employeeId == null ? null : unpacked.get(employeeId);
+                return payee == null ? MISSING : payee;
+            }
+            int mask = keys.length - 1;
+            int i = mix(key) & mask;
+            while (keys[i] != EMPTY) {
+                if (keys[i] == key) {
+                    return values[i];
+                }
+                i = (i + 1) & mask;
+            }
+            return MISSING;
+        }
+
+        int size() { return size; }
+
+        private static int mix(long value) {
+            value ^= value >>> 33;
+            value *= 0xff51afd7ed558ccdL;
+            value ^= value >>> 33;
+            return (int) value;
+        }
+    }
+}
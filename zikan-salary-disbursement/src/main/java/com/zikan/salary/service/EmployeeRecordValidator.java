@@ -0,0 +1,221 @@
+package com.zikan.salary.service;
+
+import com.zikan.salary.model.SalaryRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Field rules for employee records, compiled once into character-class lookups.
+ *
+ * A valid record is checked without allocating anything; strings are only built
+ * for the errors that are reported. Large chunks of records are split across a
+ * fork/join pool, and every worker stops once the shared error cap is reached.
+ */
+public class EmployeeRecordValidator {
+
+    static final CharClassRule EMPLOYEE_ID = CharClassRule.of("A-Z0-9", 6, 10);
+    static final CharClassRule ACCOUNT_NUMBER = CharClassRule.of("0-9", 10, 10);
+    static final CharClassRule BANK_CODE = CharClassRule.of("0-9", 3, 3);
+
+    static final long MAX_AMOUNT = 100000000; // 1 million in minor units
+
+    private final ForkJoinPool pool;
+    private final int splitThreshold;
+
+    public EmployeeRecordValidator(ForkJoinPool pool, int splitThreshold) {
+        this.pool = pool;
+        this.splitThreshold = Math.max(1, splitThreshold);
+    }
+
+    /**
+     * Validate a chunk of records and return its errors in record order. Stops adding
+     * errors once {@code errorCount} reaches {@code maxErrors} (0 = no limit).
+     */
+    public List<String> validate(Chunk chunk, AtomicInteger errorCount, int maxErrors) {
+        Task task = new Task(chunk, 0, chunk.size, errorCount, maxErrors);
+        return chunk.size <= splitThreshold ? task.compute() : pool.invoke(task);
+    }
+
+    /**
+     * Validate a single record, appending any errors to {@code errors}
+     */
+    static void validate(SalaryRequest.Employee employee, int recordNumber, List<String> errors) {
+        if (!EMPLOYEE_ID.matches(employee.getEmployeeId())) {
+            errors.add("Record " + recordNumber + ": Invalid employee ID format");
+        }
+        if (isBlank(employee.getName())) {
+            errors.add("Record " + recordNumber + ": Employee name is required");
+        }
+        if (!ACCOUNT_NUMBER.matches(employee.getAccountNumber())) {
+            errors.add("Record " + recordNumber + ": Invalid account number format (must be 10 digits)");
+        }
+        if (!BANK_CODE.matches(employee.getBankCode())) {
+            errors.add("Record " + recordNumber + ": Invalid bank code format (must be 3 digits)");
+        }
+        if (employee.getAmount() <= 0) {
+            errors.add("Record " + recordNumber + ": Amount must be greater than 0");
+        }
+        if (employee.getAmount() > MAX_AMOUNT) {
+            errors.add("Record " + recordNumber + ": Amount exceeds maximum limit");
+        }
+    }
+
+    private static boolean isBlank(String s) {
+        if (s == null) {
+            return true;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) > ' ') { // same notion of blank as String.trim()
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A run of records as read from the file. A record that could not be parsed has
+     * a null employee and its parse error in {@code parseErrors}.
+     */
+    public static class Chunk {
+        final SalaryRequest.Employee[] employees;
+        final int[] recordNumbers;
+        final String[] parseErrors;
+        int size;
+
+        public Chunk(int capacity) {
+            employees = new SalaryRequest.Employee[capacity];
+            recordNumbers = new int[capacity];
+            parseErrors = new String[capacity];
+        }
+
+        public void add(SalaryRequest.Employee employee, int recordNumber) {
+            employees[size] = employee;
+            recordNumbers[size] = recordNumber;
+            parseErrors[size++] = null;
+        }
+
+        public void addParseError(String message, int recordNumber) {
+            employees[size] = null;
+            recordNumbers[size] = recordNumber;
+            parseErrors[size++] = message;
+        }
+
+        public void clear() { size = 0; }
+        public boolean isFull() { return size == employees.length; }
+        public boolean isEmpty() { return size == 0; }
+
+        public void addTo(List<SalaryRequest.Employee> target) {
+            for (int i = 0; i < size; i++) {
+                target.add(employees[i]);
+            }
+        }
+    }
+
+    /**
+     * Validates records [from, to) of a chunk, splitting in half above the threshold
+     */
+    private class Task extends RecursiveTask<List<String>> {
+        private final Chunk chunk;
+        private final int from;
+        private final int to;
+        private final AtomicInteger errorCount;
+        private final int maxErrors;
+
+        Task(Chunk chunk, int from, int to, AtomicInteger errorCount, int maxErrors) {
+            this.chunk = chunk;
+            this.from = from;
+            this.to = to;
+            this.errorCount = errorCount;
+            this.maxErrors = maxErrors;
+        }
+
+        @Override
+        protected List<String> compute() {
+            if (to - from > splitThreshold) {
+                int mid = (from + to) >>> 1;
+                Task right = new Task(chunk, mid, to, errorCount, maxErrors);
+                right.fork();
+                List<String> errors = new Task(chunk, from, mid, errorCount, maxErrors).compute();
+                errors.addAll(right.join());
+                return errors;
+            }
+
+            List<String> errors = new ArrayList<>();
+            for (int i = from; i < to; i++) {
+                if (maxErrors > 0 && errorCount.get() >= maxErrors) {
+                    break;
+                }
+                int before = errors.size();
+                if (chunk.parseErrors[i] != null) {
+                    errors.add("Record " + chunk.recordNumbers[i] + ": " + chunk.parseErrors[i]);
+                } else {
+                    validate(chunk.employees[i], chunk.recordNumbers[i], errors);
+                }
+                if (errors.size() > before) {
+                    errorCount.addAndGet(errors.size() - before);
+                }
+            }
+            return errors;
+        }
+    }
+
+    /**
+     * Fixed-length check over an ASCII character class, e.g. {@code of("A-Z0-9", 6, 10)}
+     * for {@code ^[A-Z0-9]{6,10}$}
+     */
+    static final class CharClassRule {
+        private final long low;  // chars 0-63
+        private final long high; // chars 64-127
+        private final int minLength;
+        private final int maxLength;
+
+        private CharClassRule(long low, long high, int minLength, int maxLength) {
+            this.low = low;
+            this.high = high;
+            this.minLength = minLength;
+            this.maxLength = maxLength;
+        }
+
+        static CharClassRule of(String ranges, int minLength, int maxLength) {
+            long low = 0;
+            long high = 0;
+            for (int i = 0; i < ranges.length(); i++) {
+                char first = ranges.charAt(i);
+                char last = first;
+                if (i + 2 < ranges.length() && ranges.charAt(i + 1) == '-') {
+                    last = ranges.charAt(i + 2);
+                    i += 2;
+                }
+                for (char c = first; c <= last; c++) {
+                    if (c >= 128) {
+                        throw new IllegalArgumentException("Only ASCII character classes are supported: " + ranges);
+                    }
+                    if (c < 64) {
+                        low |= 1L << c;
+                    } else {
+                        high |= 1L << (c - 64);
+                    }
+                }
+            }
+            return new CharClassRule(low, high, minLength, maxLength);
+        }
+
+        boolean matches(String s) {
+            if (s == null || s.length() < minLength || s.length() > maxLength) {
+                return false;
+            }
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                long bits = c < 64 ? low : c < 128 ? high : 0;
+                if ((bits & (1L << c)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -1,12 +1,17 @@
 package com.zikan.salary.service;
 
 import com.zikan.salary.model.SalaryRequest;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Pattern;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Service for validating salary files and implementing maker-checker workflow
@@ -14,9 +19,21 @@ import java.util.regex.Pattern;
 @Service
 public class FileValidationService {
 
-    private static final Pattern ACCOUNT_NUMBER_PATTERN = Pattern.compile("^[0-9]{10}$");
-    private static final Pattern BANK_CODE_PATTERN = Pattern.compile("^[0-9]{3}$");
-    private static final Pattern EMPLOYEE_ID_PATTERN = Pattern.compile("^[A-Z0-9]{6,10}$");
+    @Value("${zikan.validation.maxErrors:1000}")
+    private int maxErrors;
+
+    @Value("${zikan.validation.chunkSize:8192}")
+    private int chunkSize;
+
+    @Value("${zikan.validation.parallelThreshold:2048}")
+    private int parallelThreshold;
+
+    private EmployeeRecordValidator recordValidator;
+
+    @PostConstruct
+    void init() {
+        recordValidator = new EmployeeRecordValidator(ForkJoinPool.commonPool(), parallelThreshold);
+    }
 
     /**
      * Validate uploaded salary file
@@ -31,8 +48,8 @@ public class FileValidationService {
                 return result;
             }
 
-            // 2. Parse file based on format
-            SalaryRequest salaryRequest = parseFile(file, fileName);
+            // 2. Parse file based on format, validating records and cross-record integrity as they are read
+            SalaryRequest salaryRequest = parseFile(file, fileName, result);
             if (salaryRequest == null) {
                 result.addError("Failed to parse file. Please check file format and content.");
                 return result;
@@ -41,9 +58,6 @@ public class FileValidationService {
             // 3. Business validation
             validateBusinessRules(salaryRequest, result);
 
-            // 4. Data integrity validation
-            validateDataIntegrity(salaryRequest, result);
-
             result.setSalaryRequest(salaryRequest);
             result.setValid(result.getErrors().isEmpty());
 
@@ -65,45 +79,107 @@ public class FileValidationService {
     }
 
     /**
-     * Parse file based on format
+     * Parse file based on format, validating employee records a chunk at a time as
+     * they are read: while one chunk is validated on the fork/join pool the next is
+     * being parsed, and reading stops once zikan.validation.maxErrors errors have been
+     * found. Validation itself holds two chunks and the duplicate sets of
+     * {@link BatchIntegrityCheck}, however large the file.
+     *
+     * The records of a valid file are returned on the request, so an accepted batch is
+     * held in memory in full: the stages after validation (master data verification,
+     * funds reservation, chunked Infosys submission, payment checkpoints and the
+     * per-record statuses returned by core banking) all work on the whole batch, and the
+     * Infosys response alone carries one status per record. Records stop being kept as
+     * soon as the file has an error, so a bad file is rejected without building up the
+     * payroll.
      */
-    private SalaryRequest parseFile(File file, String fileName) {
-        String lowerCase = fileName.toLowerCase();
-        
-        if (lowerCase.endsWith(".csv")) {
-            return parseCsvFile(file);
-        } else if (lowerCase.endsWith(".xml")) {
-            return parseXmlFile(file);
-        } else if (lowerCase.endsWith(".json")) {
-            return parseJsonFile(file);
+    private SalaryRequest parseFile(File file, String fileName, ValidationResult result) throws IOException {
+        try (SalaryRecordReader reader = SalaryRecordReader.open(file, fileName)) {
+            List<SalaryRequest.Employee> employees = new ArrayList<>();
+            AtomicInteger errorCount = new AtomicInteger();
+            BatchIntegrityCheck integrity = new BatchIntegrityCheck(chunkSize);
+            EmployeeRecordValidator.Chunk reading = new EmployeeRecordValidator.Chunk(chunkSize);
+            EmployeeRecordValidator.Chunk validating = new EmployeeRecordValidator.Chunk(chunkSize);
+            ForkJoinTask<List<String>> pending = null;
+
+            while (reader.hasNext()) {
+                if (isErrorLimitReached(result)) {
+                    markTruncated(result);
+                    break;
+                }
+                try {
+                    reading.add(reader.next(), reader.getRecordNumber());
+                } catch (IllegalArgumentException e) {
+                    reading.addParseError(e.getMessage(), reader.getRecordNumber());
+                }
+                if (reading.isFull()) {
+                    if (pending != null) {
+                        collect(pending.join(), validating, integrity, employees, result);
+                    }
+                    EmployeeRecordValidator.Chunk submitted = reading;
+                    pending = ForkJoinPool.commonPool().submit(
+                            () -> recordValidator.validate(submitted, errorCount, maxErrors));
+                    reading = validating;
+                    reading.clear();
+                    validating = submitted;
+                }
+            }
+            if (pending != null) {
+                collect(pending.join(), validating, integrity, employees, result);
+            }
+            if (!reading.isEmpty() && !result.isTruncated()) {
+                collect(recordValidator.validate(reading, errorCount, maxErrors), reading, integrity, employees, result);
+            }
+            SalaryRequest request = reader.getHeader();
+            if (!result.isTruncated()) {
+                List<String> controlErrors = new ArrayList<>();
+                integrity.verifyControls(request, reader.getRecordNumber(), controlErrors);
+                addErrors(controlErrors, result);
+            }
+            if (isErrorLimitReached(result)) {
+                markTruncated(result);
+            }
+
+            request.setEmployees(result.getErrors().isEmpty() ? employees : new ArrayList<>());
+            result.setRecordCount(reader.getRecordNumber());
+            return request;
         }
-        
-        return null;
     }
 
     /**
-     * Parse CSV file
+     * Run the cross-record checks over a validated chunk, record its errors and keep
+     * its records if the file is still clean
      */
-    private SalaryRequest parseCsvFile(File file) {
-        // Implementation for CSV parsing
-        // This would read the CSV and convert to SalaryRequest object
-        return new SalaryRequest(); // Placeholder
+    private void collect(List<String> errors, EmployeeRecordValidator.Chunk chunk, BatchIntegrityCheck integrity,
+                         List<SalaryRequest.Employee> employees, ValidationResult result) {
+        integrity.accept(chunk, errors);
+        addErrors(errors, result);
+        if (result.getErrors().isEmpty()) {
+            chunk.addTo(employees);
+        } else {
+            employees.clear();
+        }
     }
 
-    /**
-     * Parse XML file
-     */
-    private SalaryRequest parseXmlFile(File file) {
-        // Implementation for XML parsing
-        return new SalaryRequest(); // Placeholder
+    private void addErrors(List<String> errors, ValidationResult result) {
+        for (String error : errors) {
+            if (isErrorLimitReached(result)) {
+                markTruncated(result);
+                return;
+            }
+            result.addError(error);
+        }
     }
 
-    /**
-     * Parse JSON file
-     */
-    private SalaryRequest parseJsonFile(File file) {
-        // Implementation for JSON parsing
-        return new SalaryRequest(); // Placeholder
+    private boolean isErrorLimitReached(ValidationResult result) {
+        return maxErrors > 0 && result.getErrors().size() >= maxErrors;
+    }
+
+    private void markTruncated(ValidationResult result) {
+        if (!result.isTruncated()) {
+            result.setTruncated(true);
+            result.addError("Validation stopped after " + maxErrors + " errors");
+        }
     }
 
     /**
@@ -130,57 +206,11 @@ public class FileValidationService {
         }
 
         // 4. Employee validation
-        if (request.getEmployees() == null || request.getEmployees().isEmpty()) {
+        if (result.getRecordCount() == 0) {
             result.addError("At least one employee record is required");
         }
     }
 
-    /**
-     * Validate data integrity
-     */
-    private void validateDataIntegrity(SalaryRequest request, ValidationResult result) {
-        if (request.getEmployees() != null) {
-            for (int i = 0; i < request.getEmployees().size(); i++) {
-                SalaryRequest.Employee employee = request.getEmployees().get(i);
-                validateEmployee(employee, i + 1, result);
-            }
-        }
-    }
-
-    /**
-     * Validate individual employee record
-     */
-    private void validateEmployee(SalaryRequest.Employee employee, int recordNumber, ValidationResult result) {
-        // Employee ID validation
-        if (employee.getEmployeeId() == null || !EMPLOYEE_ID_PATTERN.matcher(employee.getEmployeeId()).matches()) {
-            result.addError("Record " + recordNumber + ": Invalid employee ID format");
-        }
-
-        // Name validation
-        if (employee.getName() == null || employee.getName().trim().isEmpty()) {
-            result.addError("Record " + recordNumber + ": Employee name is required");
-        }
-
-        // Account number validation
-        if (employee.getAccountNumber() == null || !ACCOUNT_NUMBER_PATTERN.matcher(employee.getAccountNumber()).matches()) {
-            result.addError("Record " + recordNumber + ": Invalid account number format (must be 10 digits)");
-        }
-
-        // Bank code validation
-        if (employee.getBankCode() == null || !BANK_CODE_PATTERN.matcher(employee.getBankCode()).matches()) {
-            result.addError("Record " + recordNumber + ": Invalid bank code format (must be 3 digits)");
-        }
-
-        // Amount validation
-        if (employee.getAmount() <= 0) {
-            result.addError("Record " + recordNumber + ": Amount must be greater than 0");
-        }
-
-        if (employee.getAmount() > 100000000) { // 1 million in minor units
-            result.addError("Record " + recordNumber + ": Amount exceeds maximum limit");
-        }
-    }
-
     /**
      * Validation result class
      */
@@ -189,6 +219,8 @@ public class FileValidationService {
         private List<String> errors = new ArrayList<>();
         private List<String> warnings = new ArrayList<>();
         private SalaryRequest salaryRequest;
+        private int recordCount;
+        private boolean truncated;
 
         public void addError(String error) {
             errors.add(error);
@@ -205,5 +237,9 @@ public class FileValidationService {
         public List<String> getWarnings() { return warnings; }
         public SalaryRequest getSalaryRequest() { return salaryRequest; }
         public void setSalaryRequest(SalaryRequest salaryRequest) { this.salaryRequest = salaryRequest; }
+        public int getRecordCount() { return recordCount; }
+        public void setRecordCount(int recordCount) { this.recordCount = recordCount; }
+        public boolean isTruncated() { return truncated; }
+        public void setTruncated(boolean truncated) { this.truncated = truncated; }
     }
 }
@@ -0,0 +1,215 @@
+package com.zikan.salary.service;
+
+import com.zikan.salary.model.SalaryRequest;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sufficient-funds check for salary batches.
+ *
+ * The batch total is reserved against the company account's available balance, which
+ * comes from core banking and is cached for balanceTtlMs. Amounts already reserved by
+ * other in-flight batches of the same account are subtracted, so two batches from one
+ * corporate cannot both pass against the same money. Check-and-reserve runs under one
+ * of a fixed set of striped locks chosen by account, so corporates on different stripes
+ * never wait on each other. A reservation is released when the batch is not paid, or
+ * settled (released, and the cached balance dropped) once core banking reports a final
+ * status.
+ */
+@Service
+public class FundsReservationLedger {
+
+    private final InfosysIntegrationService infosysService;
+
+    @Value("${zikan.funds.enabled:true}")
+    private boolean enabled;
+
+    @Value("${zikan.funds.balanceTtlMs:5000}")
+    private long balanceTtlMs;
+
+    @Value("${zikan.funds.lockStripes:64}")
+    private int lockStripes;
+
+    private ReentrantLock[] stripes;
+    private final Map<String, CachedBalance> balances = new ConcurrentHashMap<>();
+    private final Map<String, Long> reservedByAccount = new ConcurrentHashMap<>();
+    private final Map<String, Reservation> reservations = new ConcurrentHashMap<>();
+
+    private final LongAdder balanceFetches = new LongAdder();
+    private final LongAdder balanceCacheHits = new LongAdder();
+    private final LongAdder granted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public FundsReservationLedger(InfosysIntegrationService infosysService) {
+        this.infosysService = infosysService;
+    }
+
+    @PostConstruct
+    void init() {
+        int count = Integer.highestOneBit(Math.max(1, lockStripes) * 2 - 1); // round up to a power of two
+        stripes = new ReentrantLock[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Reserve a batch's total against its company account. The returned reservation
+     * says whether it was granted and, if not, why.
+     */
+    public Reservation reserve(SalaryRequest request) {
+        String batchId = request.getSalaryBatchId();
+        String account = request.getCompanyAccount();
+        long total = 0;
+        try {
+            for (SalaryRequest.Employee e : request.getEmployees()) {
+                total = Math.addExact(total, e.getAmount());
+            }
+        } catch (ArithmeticException e) {
+            rejected.increment();
+            return Reservation.refused(batchId, account, "Batch total exceeds the supported range");
+        }
+        if (!enabled) {
+            return new Reservation(batchId, account, total, true, null);
+        }
+        if (account == null) {
+            rejected.increment();
+            return Reservation.refused(batchId, null, "Company account is required for the funds check");
+        }
+
+        long balance = balance(account); // Fetched outside the lock: a slow core banking call must not block the stripe
+        ReentrantLock lock = stripeFor(account);
+        lock.lock();
+        try {
+            Reservation existing = batchId == null ? null : reservations.get(batchId);
+            if (existing != null) {
+                return existing;
+            }
+            long reserved = reservedByAccount.getOrDefault(account, 0L);
+            long available = balance - reserved;
+            if (total > available) {
+                rejected.increment();
+                return Reservation.refused(batchId, account, "Insufficient funds in account " + account
+                        + ": batch total " + total + ", available " + available
+                        + " (balance " + balance + ", reserved by other batches " + reserved + ")");
+            }
+            Reservation reservation = new Reservation(batchId, account, total, true, null);
+            reservedByAccount.put(account, reserved + total);
+            if (batchId != null) {
+                reservations.put(batchId, reservation);
+            }
+            granted.increment();
+            return reservation;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Give back the amount reserved for a batch that will not be paid
+     */
+    public void release(String salaryBatchId) {
+        Reservation reservation = salaryBatchId == null ? null : reservations.get(salaryBatchId);
+        if (reservation == null) {
+            return;
+        }
+        ReentrantLock lock = stripeFor(reservation.companyAccount);
+        lock.lock();
+        try {
+            if (reservations.remove(salaryBatchId, reservation)) {
+                reservedByAccount.computeIfPresent(reservation.companyAccount,
+                        (account, reserved) -> reserved - reservation.amount == 0 ? null : reserved - reservation.amount);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Release a paid batch's reservation and drop the cached balance, which no longer
+     * reflects the debit
+     */
+    public void settle(String salaryBatchId) {
+        Reservation reservation = salaryBatchId == null ? null : reservations.get(salaryBatchId);
+        if (reservation != null) {
+            release(salaryBatchId);
+            balances.remove(reservation.companyAccount);
+        }
+    }
+
+    /**
+     * Reservation counts, amounts held and balance cache effectiveness
+     */
+    public Map<String, Object> getMetrics() {
+        long held = 0;
+        for (long reserved : reservedByAccount.values()) {
+            held += reserved;
+        }
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("activeReservations", reservations.size());
+        metrics.put("accountsWithReservations", reservedByAccount.size());
+        metrics.put("reservedTotal", held);
+        metrics.put("granted", granted.sum());
+        metrics.put("rejected", rejected.sum());
+        metrics.put("balanceFetches", balanceFetches.sum());
+        metrics.put("balanceCacheHits", balanceCacheHits.sum());
+        return metrics;
+    }
+
+    private long balance(String account) {
+        long now = System.currentTimeMillis();
+        CachedBalance cached = balances.get(account);
+        if (cached != null && cached.fetchedAt > now - balanceTtlMs) {
+            balanceCacheHits.increment();
+            return cached.amount;
+        }
+        balanceFetches.increment();
+        long amount = infosysService.fetchAccountBalance(account);
+        balances.put(account, new CachedBalance(amount, now));
+        return amount;
+    }
+
+    private ReentrantLock stripeFor(String account) {
+        int h = account.hashCode();
+        h ^= h >>> 16;
+        return stripes[h & (stripes.length - 1)];
+    }
+
+    private record CachedBalance(long amount, long fetchedAt) { }
+
+    /**
+     * Outcome of a reserve call
+     */
+    public static class Reservation {
+        private final String salaryBatchId;
+        private final String companyAccount;
+        private final long amount;
+        private final boolean granted;
+        private final String message;
+
+        Reservation(String salaryBatchId, String companyAccount, long amount, boolean granted, String message) {
+            this.salaryBatchId = salaryBatchId;
+            this.companyAccount = companyAccount;
+            this.amount = amount;
+            this.granted = granted;
+            this.message = message;
+        }
+
+        static Reservation refused(String salaryBatchId, String companyAccount, String message) {
+            return new Reservation(salaryBatchId, companyAccount, 0, false, message);
+        }
+
+        public String getSalaryBatchId() { return salaryBatchId; }
+        public String getCompanyAccount() { return companyAccount; }
+        public long getAmount() { return amount; }
+        public boolean isGranted() { return granted; }
+        public String getMessage() { return message; }
+    }
+}
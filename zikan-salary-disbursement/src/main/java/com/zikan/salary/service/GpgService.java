@@ -1,19 +1,71 @@
 package com.zikan.salary.service;
 
+import org.bouncycastle.bcpg.CompressionAlgorithmTags;
+import org.bouncycastle.bcpg.SignatureSubpacketTags;
+import org.bouncycastle.bcpg.SymmetricKeyAlgorithmTags;
+import org.bouncycastle.bcpg.sig.KeyFlags;
+import org.bouncycastle.openpgp.PGPCompressedDataGenerator;
+import org.bouncycastle.openpgp.PGPEncryptedDataGenerator;
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPLiteralData;
+import org.bouncycastle.openpgp.PGPLiteralDataGenerator;
+import org.bouncycastle.openpgp.PGPPublicKey;
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.bouncycastle.openpgp.PGPPublicKeyRingCollection;
+import org.bouncycastle.openpgp.PGPSignature;
+import org.bouncycastle.openpgp.PGPUtil;
+import org.bouncycastle.openpgp.operator.bc.BcKeyFingerprintCalculator;
+import org.bouncycastle.openpgp.operator.bc.BcPGPDataEncryptorBuilder;
+import org.bouncycastle.openpgp.operator.bc.BcPublicKeyKeyEncryptionMethodGenerator;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.security.SecureRandom;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Simple wrapper around the system GPG CLI to encrypt files with a given public key file.
- * Requires gpg to be installed and available on PATH.
+ * Encrypts files for a recipient public key file.
+ *
+ * Two modes, selected by {@code zikan.encryption.mode}:
+ * <ul>
+ *   <li>{@code cli} - wraps the system GPG CLI; requires gpg on PATH.</li>
+ *   <li>{@code native} - in-process Bouncy Castle OpenPGP encryption. The recipient key is
+ *       parsed once and cached until the key file changes, and callers can encrypt
+ *       straight from an output stream via {@link #openEncryptedStream}.</li>
+ * </ul>
  */
 @Service
 public class GpgService {
 
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Map<String, CachedKey> keyCache = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+
+    @Value("${zikan.encryption.mode:cli}")
+    private String mode;
+
     public File encryptFile(File input, File publicKeyFile) throws IOException, InterruptedException {
         File out = new File(input.getAbsolutePath() + ".gpg");
+        if ("native".equalsIgnoreCase(mode)) {
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(input.toPath()), BUFFER_SIZE);
+                 OutputStream enc = openEncryptedStream(Files.newOutputStream(out.toPath()), publicKeyFile, input.getName())) {
+                in.transferTo(enc);
+            }
+            return out;
+        }
+
         ProcessBuilder pb = new ProcessBuilder(
                 "gpg",
                 "--batch", "--yes",
@@ -30,4 +82,132 @@ public class GpgService {
         }
         return out;
     }
+
+    /**
+     * Wrap {@code out} so that bytes written to the returned stream are compressed and
+     * OpenPGP-encrypted for the recipient key. Closing the returned stream finishes the
+     * OpenPGP message and closes {@code out}. Always uses the in-process engine.
+     */
+    public OutputStream openEncryptedStream(OutputStream out, File publicKeyFile, String fileName) throws IOException {
+        PGPPublicKey key = getEncryptionKey(publicKeyFile);
+
+        PGPEncryptedDataGenerator encryptor = new PGPEncryptedDataGenerator(
+                new BcPGPDataEncryptorBuilder(SymmetricKeyAlgorithmTags.AES_256)
+                        .setWithIntegrityPacket(true)
+                        .setSecureRandom(random));
+        encryptor.addMethod(new BcPublicKeyKeyEncryptionMethodGenerator(key));
+        PGPCompressedDataGenerator compressor = new PGPCompressedDataGenerator(CompressionAlgorithmTags.ZIP);
+        PGPLiteralDataGenerator literal = new PGPLiteralDataGenerator();
+
+        OutputStream target = new BufferedOutputStream(out, BUFFER_SIZE);
+        try {
+            OutputStream encrypted = encryptor.open(target, new byte[BUFFER_SIZE]);
+            OutputStream compressed = compressor.open(encrypted, new byte[BUFFER_SIZE]);
+            OutputStream plain = literal.open(compressed, PGPLiteralData.BINARY, fileName, new Date(), new byte[BUFFER_SIZE]);
+            return new FilterOutputStream(plain) {
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    plain.write(b, off, len);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    try {
+                        literal.close();
+                        compressor.close();
+                        encryptor.close();
+                    } finally {
+                        target.close();
+                    }
+                }
+            };
+        } catch (PGPException e) {
+            target.close();
+            throw new IOException("OpenPGP encryption setup failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Parsed recipient key, re-read only when the key file's timestamp or size changes
+     */
+    private PGPPublicKey getEncryptionKey(File publicKeyFile) throws IOException {
+        String path = publicKeyFile.getAbsolutePath();
+        long lastModified = publicKeyFile.lastModified();
+        long length = publicKeyFile.length();
+
+        CachedKey cached = keyCache.get(path);
+        if (cached != null && cached.lastModified == lastModified && cached.length == length) {
+            return cached.key;
+        }
+        PGPPublicKey key = readEncryptionKey(publicKeyFile);
+        keyCache.put(path, new CachedKey(key, lastModified, length));
+        return key;
+    }
+
+    /**
+     * The key to encrypt to: the newest encryption subkey that is not revoked or expired and
+     * whose binding signature allows encryption, else the primary key if it may encrypt.
+     * Rings whose primary key is revoked or expired are skipped altogether.
+     */
+    private PGPPublicKey readEncryptionKey(File publicKeyFile) throws IOException {
+        long now = System.currentTimeMillis();
+        boolean unusable = false;
+        try (InputStream in = PGPUtil.getDecoderStream(new BufferedInputStream(Files.newInputStream(publicKeyFile.toPath())))) {
+            PGPPublicKeyRingCollection rings = new PGPPublicKeyRingCollection(in, new BcKeyFingerprintCalculator());
+            for (PGPPublicKeyRing ring : rings) {
+                PGPPublicKey primary = ring.getPublicKey();
+                if (primary.hasRevocation() || isExpired(primary, now)) {
+                    unusable = true;
+                    continue;
+                }
+                PGPPublicKey best = null;
+                for (PGPPublicKey key : ring) {
+                    if (key.isMasterKey() || !key.isEncryptionKey() || !allowsEncryption(key)) {
+                        continue;
+                    }
+                    if (key.hasRevocation() || isExpired(key, now)) {
+                        unusable = true;
+                    } else if (best == null || key.getCreationTime().after(best.getCreationTime())) {
+                        best = key;
+                    }
+                }
+                if (best != null) {
+                    return best;
+                }
+                if (primary.isEncryptionKey() && allowsEncryption(primary)) {
+                    return primary;
+                }
+            }
+        } catch (PGPException e) {
+            throw new IOException("Unable to read public key " + publicKeyFile + ": " + e.getMessage(), e);
+        }
+        throw new IOException(unusable ? "Every encryption key in " + publicKeyFile + " is revoked or expired"
+                : "No encryption key found in " + publicKeyFile);
+    }
+
+    private static boolean isExpired(PGPPublicKey key, long now) {
+        long validSeconds = key.getValidSeconds(); // 0 = never expires
+        return validSeconds > 0 && key.getCreationTime().getTime() + validSeconds * 1000 <= now;
+    }
+
+    /**
+     * Whether the key's latest self-signature (subkey binding for a subkey) allows
+     * encryption; a key without key flags may be used for whatever its algorithm can do
+     */
+    private static boolean allowsEncryption(PGPPublicKey key) {
+        Iterator<PGPSignature> signatures = key.isMasterKey() ? key.getSignatures()
+                : key.getSignaturesOfType(PGPSignature.SUBKEY_BINDING);
+        PGPSignature latest = null;
+        while (signatures.hasNext()) {
+            PGPSignature signature = signatures.next();
+            if (signature.hasSubpackets() && signature.getHashedSubPackets().hasSubpacket(SignatureSubpacketTags.KEY_FLAGS)
+                    && (latest == null || signature.getCreationTime().after(latest.getCreationTime()))) {
+                latest = signature;
+            }
+        }
+        return latest == null
+                || (latest.getHashedSubPackets().getKeyFlags() & (KeyFlags.ENCRYPT_COMMS | KeyFlags.ENCRYPT_STORAGE)) != 0;
+    }
+
+    private record CachedKey(PGPPublicKey key, long lastModified, long length) {}
 }
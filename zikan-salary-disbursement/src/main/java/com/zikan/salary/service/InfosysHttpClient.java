@@ -0,0 +1,192 @@
+package com.zikan.salary.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zikan.salary.service.InfosysIntegrationService.InfosysPaymentItem;
+import com.zikan.salary.service.InfosysIntegrationService.InfosysPaymentRequest;
+import com.zikan.salary.service.InfosysIntegrationService.InfosysPaymentResponse;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Non-blocking client for the Infosys payment API built on the JDK HttpClient.
+ *
+ * Connections are kept alive and reused, HTTP/2 is negotiated where the server
+ * supports it, zikan.infosys.timeout is enforced on connect and on every request,
+ * and payment requests are serialised item by item as the body is sent rather
+ * than rendered into one large string first.
+ *
+ * The connection pool itself is configured JVM-wide and read once, when the first
+ * HttpClient in the process starts, so it is set with JVM flags rather than here:
+ * {@code -Djdk.httpclient.connectionPoolSize} (idle connections kept, default
+ * unlimited) and {@code -Djdk.httpclient.keepalive.timeout} (seconds, default 1200).
+ * Concurrent payment requests are bounded by zikan.infosys.maxInFlight in
+ * {@link InfosysIntegrationService}, and status polls by zikan.reconciler.concurrency.
+ */
+@Service
+public class InfosysHttpClient {
+
+    private static final int BODY_CHUNK_SIZE = 32 * 1024;
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${zikan.infosys.baseUrl:http://localhost:8081}")
+    private String infosysBaseUrl;
+
+    @Value("${zikan.infosys.timeout:30000}")
+    private int timeout;
+
+    @Value("${zikan.infosys.http.http2:true}")
+    private boolean http2;
+
+    private HttpClient client;
+
+    public InfosysHttpClient(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    void init() {
+        client = HttpClient.newBuilder()
+                .version(http2 ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(timeout))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+    }
+
+    /**
+     * POST a payment batch; the body is streamed from the payment items
+     */
+    public CompletableFuture<InfosysPaymentResponse> postPaymentBatch(InfosysPaymentRequest paymentRequest, String token) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(infosysBaseUrl + "/api/v1/payments/batch"))
+                .timeout(Duration.ofMillis(timeout))
+                .header("Content-Type", "application/json")
+                .header("Authorization", "Bearer " + token)
+                .POST(HttpRequest.BodyPublishers.ofInputStream(() -> new PaymentRequestBody(paymentRequest)))
+                .build();
+        return send(request);
+    }
+
+    /**
+     * GET the status of a previously submitted batch
+     */
+    public CompletableFuture<InfosysPaymentResponse> getPaymentStatus(String batchId, String token) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(infosysBaseUrl + "/api/v1/payments/batch/" + batchId + "/status"))
+                .timeout(Duration.ofMillis(timeout))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+        return send(request);
+    }
+
+    private CompletableFuture<InfosysPaymentResponse> send(HttpRequest request) {
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(response -> {
+                    if (response.statusCode() / 100 != 2) {
+                        throw new CompletionException(new IOException(
+                                "HTTP " + response.statusCode() + " from " + request.uri()));
+                    }
+                    try {
+                        return objectMapper.readValue(response.body(), InfosysPaymentResponse.class);
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                });
+    }
+
+    /**
+     * Renders a payment request as JSON on demand: each time the buffer runs dry the
+     * next few items are serialised, so only about one chunk is in memory at a time.
+     */
+    private class PaymentRequestBody extends InputStream {
+        private final InfosysPaymentRequest paymentRequest;
+        private final Iterator<InfosysPaymentItem> items;
+        private final Buffer buffer = new Buffer();
+        private JsonGenerator generator;
+        private boolean finished;
+        private byte[] chunk = new byte[0];
+        private int position;
+
+        PaymentRequestBody(InfosysPaymentRequest paymentRequest) {
+            this.paymentRequest = paymentRequest;
+            List<InfosysPaymentItem> list = paymentRequest.getPaymentItems();
+            this.items = list == null ? List.<InfosysPaymentItem>of().iterator() : list.iterator();
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            while (position >= chunk.length) {
+                if (finished) {
+                    return -1;
+                }
+                fill();
+            }
+            int n = Math.min(len, chunk.length - position);
+            System.arraycopy(chunk, position, b, off, n);
+            position += n;
+            return n;
+        }
+
+        private void fill() throws IOException {
+            if (generator == null) {
+                generator = objectMapper.getFactory().createGenerator(buffer);
+                generator.writeStartObject();
+                generator.writeStringField("batchId", paymentRequest.getBatchId());
+                generator.writeStringField("companyName", paymentRequest.getCompanyName());
+                generator.writeStringField("companyAccount", paymentRequest.getCompanyAccount());
+                generator.writeStringField("paymentDate", paymentRequest.getPaymentDate());
+                generator.writeStringField("transactionType", paymentRequest.getTransactionType());
+                generator.writeStringField("currency", paymentRequest.getCurrency());
+                if (paymentRequest.getChunkNumber() != null) {
+                    generator.writeNumberField("chunkNumber", paymentRequest.getChunkNumber());
+                    generator.writeNumberField("totalChunks", paymentRequest.getTotalChunks());
+                }
+                generator.writeArrayFieldStart("paymentItems");
+            }
+            while (items.hasNext() && buffer.size() < BODY_CHUNK_SIZE) {
+                objectMapper.writeValue(generator, items.next());
+                generator.flush();
+            }
+            if (!items.hasNext()) {
+                generator.writeEndArray();
+                generator.writeEndObject();
+                generator.close();
+                finished = true;
+            } else {
+                generator.flush();
+            }
+            chunk = buffer.drain();
+            position = 0;
+        }
+    }
+
+    private static class Buffer extends ByteArrayOutputStream {
+        Buffer() { super(BODY_CHUNK_SIZE + 1024); }
+
+        byte[] drain() {
+            byte[] out = toByteArray();
+            reset();
+            return out;
+        }
+    }
+}
@@ -2,19 +2,34 @@ package com.zikan.salary.service;
 
 import com.zikan.salary.model.SalaryRequest;
 import com.zikan.salary.model.SalaryAcknowledgement;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 
 import java.time.LocalDateTime;
+import java.util.ArrayDeque;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Service for integrating with Infosys Core Banking System
@@ -35,46 +50,357 @@ public class InfosysIntegrationService {
     @Value("${zikan.infosys.timeout:30000}")
     private int timeout;
 
-    private final RestTemplate restTemplate;
+    @Value("${zikan.infosys.chunkSize:0}")
+    private int chunkSize;
 
-    public InfosysIntegrationService() {
-        this.restTemplate = new RestTemplate();
+    @Value("${zikan.infosys.maxInFlight:4}")
+    private int maxInFlight;
+
+    @Value("${zikan.infosys.chunkRetries:2}")
+    private int chunkRetries;
+
+    @Value("${zikan.infosys.chunkRetryBackoffMs:500}")
+    private long chunkRetryBackoffMs;
+
+    @Value("${zikan.infosys.client:blocking}")
+    private String clientMode;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${zikan.infosys.balance.stub:true}")
+    private boolean balanceStub;
+
+    @Value("${zikan.infosys.balance.stubAmount:100000000000}")
+    private long balanceStubAmount;
+
+    private final InfosysHttpClient httpClient;
+    private final InfosysTokenProvider tokenProvider;
+    private final PaymentCheckpointService checkpoints;
+    private final ClientRateLimiter rateLimiter;
+    private RestTemplate restTemplate;
+    private ExecutorService chunkExecutor;
+    private ChunkPermits chunkPermits;
+
+    public InfosysIntegrationService(InfosysHttpClient httpClient, InfosysTokenProvider tokenProvider,
+                                     PaymentCheckpointService checkpoints, ClientRateLimiter rateLimiter) {
+        this.httpClient = httpClient;
+        this.tokenProvider = tokenProvider;
+        this.checkpoints = checkpoints;
+        this.rateLimiter = rateLimiter;
+    }
+
+    @PostConstruct
+    void init() {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(timeout);
+        requestFactory.setReadTimeout(timeout);
+        this.restTemplate = new RestTemplate(requestFactory);
+
+        // maxInFlight is enforced by the permits: virtual threads have no pool to cap the calls,
+        // and the async client sends without holding a thread at all
+        AtomicInteger counter = new AtomicInteger();
+        chunkPermits = new ChunkPermits(maxInFlight);
+        chunkExecutor = VirtualThreads.executor(virtualThreads, "infosys-chunk-", () ->
+                Executors.newFixedThreadPool(maxInFlight, r -> {
+                    Thread t = new Thread(r, "infosys-chunk-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        chunkExecutor.shutdownNow();
+    }
+
+    /**
+     * Process salary batch through Infosys core banking system.
+     * Only records not already accepted for this batch (see {@link PaymentCheckpointService})
+     * are sent; batches with more of them than zikan.infosys.chunkSize are split and
+     * submitted in chunks. Single requests and chunks alike take one of the
+     * zikan.infosys.maxInFlight permits, so that bounds the payment requests open at once. A batch left with some records accepted and others not is
+     * PARTIAL, and resubmitting it sends only the rest. Every submission first takes its
+     * records from {@code client}'s token bucket (null = not rate limited).
+     */
+    public InfosysResponse processSalaryBatch(SalaryRequest salaryRequest, String client) {
+        PaymentCheckpointService.Checkpoint checkpoint = checkpoints.open(salaryRequest);
+        List<SalaryRequest.Employee> outstanding = checkpoint.outstanding(salaryRequest.getEmployees());
+        int alreadyAccepted = checkpoint.getAcceptedCount();
+
+        InfosysResponse result;
+        if (outstanding.isEmpty()) {
+            result = new InfosysResponse();
+            result.setBatchId(salaryRequest.getSalaryBatchId());
+            result.setStatus("SUCCESS");
+            result.setMessage("All records were already accepted.");
+            result.setProcessedAt(LocalDateTime.now());
+        } else if (chunkSize > 0 && outstanding.size() > chunkSize) {
+            result = processInChunks(salaryRequest, outstanding, checkpoint, client);
+        } else {
+            InfosysPaymentResponse response;
+            try {
+                // 1. Prepare payment request for Infosys
+                InfosysPaymentRequest paymentRequest = preparePaymentRequest(salaryRequest, outstanding);
+
+                // 2. Send to Infosys, holding one of the maxInFlight permits like a chunk
+                rateLimiter.acquire(client, outstanding.size());
+                response = submitPaymentAsync(paymentRequest).get();
+                if (response == null) {
+                    throw new IllegalStateException("Empty response from core banking");
+                }
+            } catch (Exception e) {
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+                // Nothing was accepted: report every record FAILED so a resubmission retries them
+                response = failedChunk(outstanding, "Failed to process payment batch: " + cause.getMessage());
+            }
+            checkpoint(checkpoint, outstanding, response);
+
+            // 3. Process response
+            result = processInfosysResponse(response, salaryRequest);
+        }
+
+        if (!checkpoint.isComplete() && checkpoint.getAcceptedCount() > 0) {
+            result.setStatus("PARTIAL");
+        }
+        if (alreadyAccepted > 0 || !checkpoint.isComplete()) {
+            result.setMessage(result.getMessage() + " [" + checkpoint.getAcceptedCount() + " of "
+                    + checkpoint.getRecordCount() + " records accepted, " + alreadyAccepted + " before this submission]");
+        }
+        return result;
     }
 
     /**
-     * Process salary batch through Infosys core banking system
+     * Split the outstanding payment items into chunks and submit them concurrently, at most
+     * zikan.infosys.maxInFlight at a time across all batches. Each chunk is retried
+     * on its own; items of a chunk that still fails are reported as FAILED without
+     * failing the rest of the batch.
      */
-    public InfosysResponse processSalaryBatch(SalaryRequest salaryRequest) {
+    private InfosysResponse processInChunks(SalaryRequest salaryRequest, List<SalaryRequest.Employee> employees,
+                                            PaymentCheckpointService.Checkpoint checkpoint, String client) {
+        int totalChunks = (employees.size() + chunkSize - 1) / chunkSize;
+
+        List<Supplier<CompletableFuture<InfosysPaymentResponse>>> tasks = new ArrayList<>(totalChunks);
+        for (int i = 0; i < totalChunks; i++) {
+            List<SalaryRequest.Employee> slice = employees.subList(i * chunkSize, Math.min(employees.size(), (i + 1) * chunkSize));
+            int chunkNumber = i + 1;
+            tasks.add(() -> submitChunk(salaryRequest, slice, chunkNumber, totalChunks, client)
+                    .thenApply(response -> checkpoint(checkpoint, slice, response)));
+        }
+        List<CompletableFuture<InfosysPaymentResponse>> futures = runWindowed(tasks, maxInFlight);
+
+        List<TransactionStatus> statuses = new ArrayList<>(employees.size());
+        List<String> transactionIds = new ArrayList<>();
+        int succeeded = 0, failed = 0;
+        String commonStatus = null;
+        boolean mixed = false;
+
+        for (int i = 0; i < totalChunks; i++) {
+            InfosysPaymentResponse chunk;
+            try {
+                chunk = futures.get(i).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                return createErrorResponse(salaryRequest.getSalaryBatchId(), "Interrupted while submitting payment chunks");
+            } catch (ExecutionException e) {
+                chunk = failedChunk(employees.subList(i * chunkSize, Math.min(employees.size(), (i + 1) * chunkSize)),
+                        e.getCause().getMessage());
+            }
+            if ("FAILED".equals(chunk.getStatus())) {
+                failed++;
+            } else {
+                succeeded++;
+            }
+            if (commonStatus == null) {
+                commonStatus = chunk.getStatus();
+            } else if (!commonStatus.equals(chunk.getStatus())) {
+                mixed = true;
+            }
+            if (chunk.getTransactionId() != null) {
+                transactionIds.add(chunk.getTransactionId());
+            }
+            if (chunk.getTransactionStatuses() != null) {
+                statuses.addAll(chunk.getTransactionStatuses());
+            }
+        }
+
+        InfosysResponse result = new InfosysResponse();
+        result.setBatchId(salaryRequest.getSalaryBatchId());
+        result.setStatus(mixed ? "PARTIAL" : commonStatus);
+        result.setMessage("Processed " + totalChunks + " chunks: " + succeeded + " accepted, " + failed + " failed");
+        result.setTransactionId(transactionIds.isEmpty() ? null : String.join(",", transactionIds));
+        result.setProcessedAt(LocalDateTime.now());
+        result.setTransactionStatuses(statuses);
+        return result;
+    }
+
+    /**
+     * Record which items of a submitted slice core banking accepted and persist the
+     * checkpoint, so a crash or failure later in the batch does not resend them
+     */
+    private InfosysPaymentResponse checkpoint(PaymentCheckpointService.Checkpoint checkpoint,
+                                              List<SalaryRequest.Employee> slice, InfosysPaymentResponse response) {
+        if (response.getTransactionStatuses() != null) {
+            checkpoint.markAccepted(response.getTransactionStatuses());
+        } else if (!"FAILED".equals(response.getStatus())) {
+            checkpoint.markAllAccepted(slice);
+        }
         try {
-            // 1. Prepare payment request for Infosys
-            InfosysPaymentRequest paymentRequest = preparePaymentRequest(salaryRequest);
+            checkpoints.save(checkpoint);
+        } catch (RuntimeException e) {
+            System.err.println("Unable to save payment checkpoint for batch " + checkpoint.getSalaryBatchId()
+                    + ": " + e.getMessage());
+        }
+        return response;
+    }
 
-            // 2. Send to Infosys
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("Authorization", "Bearer " + getInfosysToken());
+    /**
+     * Submit one chunk, retrying with exponential backoff before giving up on it
+     */
+    private CompletableFuture<InfosysPaymentResponse> submitChunk(SalaryRequest salaryRequest, List<SalaryRequest.Employee> slice,
+                                                                  int chunkNumber, int totalChunks, String client) {
+        InfosysPaymentRequest paymentRequest = preparePaymentRequest(salaryRequest, slice);
+        paymentRequest.setChunkNumber(chunkNumber);
+        paymentRequest.setTotalChunks(totalChunks);
+
+        // Charged once per chunk, not per attempt. A throttled client's chunk waits on a timer,
+        // not on a chunk thread or permit other clients need
+        long throttle = rateLimiter.reserve(client, slice.size());
+        if (throttle == 0) {
+            return submitChunkAttempt(paymentRequest, slice, 1, chunkRetryBackoffMs);
+        }
+        return CompletableFuture.supplyAsync(() -> null, CompletableFuture.delayedExecutor(throttle, TimeUnit.NANOSECONDS, chunkExecutor))
+                .thenCompose(ignored -> submitChunkAttempt(paymentRequest, slice, 1, chunkRetryBackoffMs));
+    }
 
-            HttpEntity<InfosysPaymentRequest> entity = new HttpEntity<>(paymentRequest, headers);
+    private CompletableFuture<InfosysPaymentResponse> submitChunkAttempt(InfosysPaymentRequest paymentRequest,
+                                                                         List<SalaryRequest.Employee> slice,
+                                                                         int attempt, long backoff) {
+        return submitPaymentAsync(paymentRequest)
+                .thenApply(response -> {
+                    if (response == null) {
+                        throw new IllegalStateException("Empty response from core banking");
+                    }
+                    return CompletableFuture.completedFuture(response);
+                })
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    if (attempt > chunkRetries) {
+                        return CompletableFuture.completedFuture(failedChunk(slice, "Chunk " + paymentRequest.getChunkNumber()
+                                + "/" + paymentRequest.getTotalChunks() + " failed after " + attempt + " attempts: "
+                                + cause.getMessage()));
+                    }
+                    Executor delayed = CompletableFuture.delayedExecutor(backoff, TimeUnit.MILLISECONDS, chunkExecutor);
+                    return CompletableFuture.supplyAsync(() -> null, delayed)
+                            .thenCompose(ignored -> submitChunkAttempt(paymentRequest, slice, attempt + 1, backoff * 2));
+                })
+                .thenCompose(Function.identity());
+    }
 
-            ResponseEntity<InfosysPaymentResponse> response = restTemplate.postForEntity(
-                infosysBaseUrl + "/api/v1/payments/batch",
-                entity,
-                InfosysPaymentResponse.class
-            );
+    /**
+     * Start at most {@code window} tasks at a time, launching the next as each one completes
+     */
+    private static <T> List<CompletableFuture<T>> runWindowed(List<Supplier<CompletableFuture<T>>> tasks, int window) {
+        List<CompletableFuture<T>> results = new ArrayList<>(tasks.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            results.add(new CompletableFuture<>());
+        }
+        AtomicInteger next = new AtomicInteger();
+        Runnable launch = new Runnable() {
+            @Override
+            public void run() {
+                int i = next.getAndIncrement();
+                if (i >= tasks.size()) {
+                    return;
+                }
+                CompletableFuture<T> started;
+                try {
+                    started = tasks.get(i).get();
+                } catch (RuntimeException e) {
+                    started = CompletableFuture.failedFuture(e);
+                }
+                started.whenComplete((value, error) -> {
+                    if (error != null) {
+                        results.get(i).completeExceptionally(error);
+                    } else {
+                        results.get(i).complete(value);
+                    }
+                    run();
+                });
+            }
+        };
+        for (int w = 0; w < Math.min(window, tasks.size()); w++) {
+            launch.run();
+        }
+        return results;
+    }
 
-            // 3. Process response
-            return processInfosysResponse(response.getBody(), salaryRequest);
+    /**
+     * Submit a payment request without tying up the caller: on the non-blocking client
+     * when zikan.infosys.client=async, otherwise on the chunk pool via RestTemplate.
+     * Either way it is sent only once it holds one of the maxInFlight permits, which it
+     * keeps until the response arrives.
+     */
+    private CompletableFuture<InfosysPaymentResponse> submitPaymentAsync(InfosysPaymentRequest paymentRequest) {
+        return chunkPermits.acquire().thenCompose(ignored -> {
+            CompletableFuture<InfosysPaymentResponse> sent;
+            try {
+                sent = isAsyncClient() ? httpClient.postPaymentBatch(paymentRequest, getInfosysToken())
+                        : CompletableFuture.supplyAsync(() -> submitPaymentRequest(paymentRequest), chunkExecutor);
+            } catch (RuntimeException e) {
+                sent = CompletableFuture.failedFuture(e);
+            }
+            return sent.whenComplete((response, error) -> chunkPermits.release());
+        });
+    }
 
-        } catch (Exception e) {
-            return createErrorResponse(salaryRequest.getSalaryBatchId(), 
-                "Failed to process payment batch: " + e.getMessage());
+    private boolean isAsyncClient() {
+        return "async".equalsIgnoreCase(clientMode);
+    }
+
+    private InfosysPaymentResponse failedChunk(List<SalaryRequest.Employee> slice, String errorMessage) {
+        InfosysPaymentResponse response = new InfosysPaymentResponse();
+        response.setStatus("FAILED");
+        response.setMessage(errorMessage);
+        List<TransactionStatus> statuses = new ArrayList<>(slice.size());
+        for (SalaryRequest.Employee employee : slice) {
+            TransactionStatus status = new TransactionStatus();
+            status.setEmployeeId(employee.getEmployeeId());
+            status.setAccountNumber(employee.getAccountNumber());
+            status.setStatus("FAILED");
+            status.setErrorMessage(errorMessage);
+            statuses.add(status);
         }
+        response.setTransactionStatuses(statuses);
+        return response;
+    }
+
+    /**
+     * POST a payment request with RestTemplate, blocking until core banking answers
+     */
+    private InfosysPaymentResponse submitPaymentRequest(InfosysPaymentRequest paymentRequest) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("Authorization", "Bearer " + getInfosysToken());
+
+        HttpEntity<InfosysPaymentRequest> entity = new HttpEntity<>(paymentRequest, headers);
+
+        ResponseEntity<InfosysPaymentResponse> response = restTemplate.postForEntity(
+            infosysBaseUrl + "/api/v1/payments/batch",
+            entity,
+            InfosysPaymentResponse.class
+        );
+        return response.getBody();
     }
 
     /**
      * Prepare payment request for Infosys
      */
-    private InfosysPaymentRequest preparePaymentRequest(SalaryRequest salaryRequest) {
+    private InfosysPaymentRequest preparePaymentRequest(SalaryRequest salaryRequest, List<SalaryRequest.Employee> employees) {
         InfosysPaymentRequest request = new InfosysPaymentRequest();
         
         request.setBatchId(salaryRequest.getSalaryBatchId());
@@ -85,8 +411,8 @@ public class InfosysIntegrationService {
         request.setCurrency("NGN");
         
         // Convert employees to payment items
-        List<InfosysPaymentItem> paymentItems = new ArrayList<>();
-        for (SalaryRequest.Employee employee : salaryRequest.getEmployees()) {
+        List<InfosysPaymentItem> paymentItems = new ArrayList<>(employees.size());
+        for (SalaryRequest.Employee employee : employees) {
             InfosysPaymentItem item = new InfosysPaymentItem();
             item.setEmployeeId(employee.getEmployeeId());
             item.setEmployeeName(employee.getName());
@@ -94,6 +420,7 @@ public class InfosysIntegrationService {
             item.setBankCode(employee.getBankCode());
             item.setAmount(employee.getAmount());
             item.setNarration("Salary payment for " + employee.getName());
+            item.setIdempotencyKey(salaryRequest.getSalaryBatchId() + ":" + employee.getEmployeeId());
             paymentItems.add(item);
         }
         
@@ -133,12 +460,10 @@ public class InfosysIntegrationService {
     }
 
     /**
-     * Get authentication token from Infosys
+     * Get authentication token from Infosys (cached and refreshed by the token provider)
      */
     private String getInfosysToken() {
-        // Implementation for getting authentication token
-        // This would typically involve calling Infosys authentication endpoint
-        return "dummy_token"; // Placeholder
+        return tokenProvider.getToken();
     }
 
     /**
@@ -146,25 +471,103 @@ public class InfosysIntegrationService {
      */
     public InfosysResponse checkPaymentStatus(String batchId) {
         try {
+            return fetchPaymentStatus(batchId);
+        } catch (Exception e) {
+            return createErrorResponse(batchId, "Failed to check payment status: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Check payment status, throwing if core banking could not be reached so callers
+     * can tell a transient error from a FAILED payment
+     */
+    public InfosysResponse fetchPaymentStatus(String batchId) {
+        InfosysPaymentResponse body;
+        if (isAsyncClient()) {
+            body = httpClient.getPaymentStatus(batchId, getInfosysToken()).join();
+        } else {
             HttpHeaders headers = new HttpHeaders();
             headers.set("Authorization", "Bearer " + getInfosysToken());
 
-            ResponseEntity<InfosysPaymentResponse> response = restTemplate.getForEntity(
+            ResponseEntity<InfosysPaymentResponse> response = restTemplate.exchange(
                 infosysBaseUrl + "/api/v1/payments/batch/" + batchId + "/status",
+                HttpMethod.GET,
+                new HttpEntity<>(headers),
                 InfosysPaymentResponse.class
             );
+            body = response.getBody();
+        }
+        if (body == null) {
+            throw new IllegalStateException("Empty status response for batch " + batchId);
+        }
 
-            InfosysResponse result = new InfosysResponse();
-            result.setBatchId(batchId);
-            result.setStatus(response.getBody().getStatus());
-            result.setMessage(response.getBody().getMessage());
-            result.setTransactionId(response.getBody().getTransactionId());
-            result.setProcessedAt(LocalDateTime.now());
+        InfosysResponse result = new InfosysResponse();
+        result.setBatchId(batchId);
+        result.setStatus(body.getStatus());
+        result.setMessage(body.getMessage());
+        result.setTransactionId(body.getTransactionId());
+        result.setProcessedAt(LocalDateTime.now());
+        result.setTransactionStatuses(body.getTransactionStatuses());
+        return result;
+    }
+
+    /**
+     * Available balance of an account in minor units, from the core-banking balance endpoint
+     */
+    @SuppressWarnings("unchecked")
+    public long fetchAccountBalance(String accountNumber) {
+        if (balanceStub) {
+            return balanceStubAmount; // Placeholder until the core banking balance API is configured
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Bearer " + getInfosysToken());
+
+        ResponseEntity<Map> response = restTemplate.exchange(
+            infosysBaseUrl + "/api/v1/accounts/" + accountNumber + "/balance",
+            HttpMethod.GET,
+            new HttpEntity<>(headers),
+            Map.class
+        );
+        Map<String, Object> body = response.getBody();
+        if (body == null || !(body.get("availableBalance") instanceof Number balance)) {
+            throw new IllegalStateException("Balance response for account " + accountNumber + " has no availableBalance");
+        }
+        return balance.longValue();
+    }
+
+    /**
+     * Counting permits that are waited for without blocking a thread: a caller with no
+     * permit free gets a future completed (on the chunk pool) when one is released
+     */
+    private final class ChunkPermits {
+        private final ArrayDeque<CompletableFuture<Void>> waiting = new ArrayDeque<>();
+        private int available;
 
-            return result;
+        ChunkPermits(int permits) {
+            this.available = permits;
+        }
 
-        } catch (Exception e) {
-            return createErrorResponse(batchId, "Failed to check payment status: " + e.getMessage());
+        synchronized CompletableFuture<Void> acquire() {
+            if (available > 0) {
+                available--;
+                return CompletableFuture.completedFuture(null);
+            }
+            CompletableFuture<Void> waiter = new CompletableFuture<>();
+            waiting.add(waiter);
+            return waiter;
+        }
+
+        void release() {
+            CompletableFuture<Void> next;
+            synchronized (this) {
+                next = waiting.poll();
+                if (next == null) {
+                    available++;
+                    return;
+                }
+            }
+            // Handed over directly; completed on the pool so a chain of releases does not recurse
+            next.completeAsync(() -> null, chunkExecutor);
         }
     }
 
@@ -177,6 +580,8 @@ public class InfosysIntegrationService {
         private String transactionType;
         private String currency;
         private List<InfosysPaymentItem> paymentItems;
+        private Integer chunkNumber;  // set only when the batch is submitted in chunks
+        private Integer totalChunks;
 
         // Getters and setters
         public String getBatchId() { return batchId; }
@@ -193,6 +598,10 @@ public class InfosysIntegrationService {
         public void setCurrency(String currency) { this.currency = currency; }
         public List<InfosysPaymentItem> getPaymentItems() { return paymentItems; }
         public void setPaymentItems(List<InfosysPaymentItem> paymentItems) { this.paymentItems = paymentItems; }
+        public Integer getChunkNumber() { return chunkNumber; }
+        public void setChunkNumber(Integer chunkNumber) { this.chunkNumber = chunkNumber; }
+        public Integer getTotalChunks() { return totalChunks; }
+        public void setTotalChunks(Integer totalChunks) { this.totalChunks = totalChunks; }
     }
 
     public static class InfosysPaymentItem {
@@ -202,6 +611,7 @@ public class InfosysIntegrationService {
         private String bankCode;
         private long amount;
         private String narration;
+        private String idempotencyKey;  // batchId:employeeId, so a resent record is not paid twice
 
         // Getters and setters
         public String getEmployeeId() { return employeeId; }
@@ -216,6 +626,8 @@ public class InfosysIntegrationService {
         public void setAmount(long amount) { this.amount = amount; }
         public String getNarration() { return narration; }
         public void setNarration(String narration) { this.narration = narration; }
+        public String getIdempotencyKey() { return idempotencyKey; }
+        public void setIdempotencyKey(String idempotencyKey) { this.idempotencyKey = idempotencyKey; }
     }
 
     public static class InfosysPaymentResponse {
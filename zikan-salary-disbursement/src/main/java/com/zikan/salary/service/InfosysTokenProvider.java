@@ -0,0 +1,149 @@
+package com.zikan.salary.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Supplies the bearer token for Infosys calls.
+ *
+ * The token is fetched once and cached until shortly before it expires; a background
+ * refresh replaces it ahead of expiry so payment calls never wait on the auth round
+ * trip. When a caller does need a fresh token, concurrent callers share one
+ * in-flight fetch instead of each calling the auth endpoint.
+ */
+@Service
+public class InfosysTokenProvider {
+
+    @Value("${zikan.infosys.baseUrl:http://localhost:8081}")
+    private String infosysBaseUrl;
+
+    @Value("${zikan.infosys.username:bank_user}")
+    private String infosysUsername;
+
+    @Value("${zikan.infosys.password:bank_password}")
+    private String infosysPassword;
+
+    @Value("${zikan.infosys.timeout:30000}")
+    private int timeout;
+
+    @Value("${zikan.infosys.auth.enabled:false}")
+    private boolean authEnabled;
+
+    @Value("${zikan.infosys.auth.path:/api/v1/auth/token}")
+    private String authPath;
+
+    @Value("${zikan.infosys.auth.refreshAheadSeconds:60}")
+    private long refreshAheadSeconds;
+
+    @Value("${zikan.infosys.auth.retrySeconds:5}")
+    private long retrySeconds;
+
+    private RestTemplate restTemplate;
+    private ScheduledExecutorService refresher;
+
+    private volatile Token current;
+    private CompletableFuture<Token> inFlight;
+    private ScheduledFuture<?> nextRefresh;
+
+    @PostConstruct
+    void init() {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(timeout);
+        requestFactory.setReadTimeout(timeout);
+        restTemplate = new RestTemplate(requestFactory);
+
+        refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "infosys-token-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * Current bearer token, fetching one only if none is cached or it has expired
+     */
+    public String getToken() {
+        if (!authEnabled) {
+            return "dummy_token"; // Placeholder until core banking auth is configured
+        }
+        Token token = current;
+        if (token != null && token.isValid()) {
+            return token.value;
+        }
+        try {
+            return refresh().join().value;
+        } catch (CompletionException e) {
+            throw new IllegalStateException("Unable to obtain Infosys token: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Start a fetch unless one is already running, and return it
+     */
+    private synchronized CompletableFuture<Token> refresh() {
+        if (inFlight == null || inFlight.isDone()) {
+            inFlight = CompletableFuture.supplyAsync(this::fetchToken, refresher)
+                    .whenComplete((token, error) -> onRefreshed(token, error));
+        }
+        return inFlight;
+    }
+
+    private synchronized void onRefreshed(Token token, Throwable error) {
+        long delaySeconds;
+        if (error == null) {
+            current = token;
+            delaySeconds = Math.max(1, token.expiresAt.getEpochSecond() - Instant.now().getEpochSecond() - refreshAheadSeconds);
+        } else {
+            System.err.println("Infosys token refresh failed: " + error.getMessage());
+            Token stale = current;
+            if (stale == null || !stale.isValid()) {
+                return; // Nothing to keep alive; the next caller fetches again
+            }
+            delaySeconds = retrySeconds;
+        }
+        if (nextRefresh != null) {
+            nextRefresh.cancel(false);
+        }
+        if (!refresher.isShutdown()) {
+            nextRefresh = refresher.schedule(this::refresh, delaySeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Token fetchToken() {
+        Map<String, Object> response = restTemplate.postForObject(
+                infosysBaseUrl + authPath,
+                Map.of("username", infosysUsername, "password", infosysPassword),
+                Map.class);
+        if (response == null || response.get("accessToken") == null) {
+            throw new IllegalStateException("Auth response did not contain an access token");
+        }
+        Object expiresIn = response.get("expiresIn");
+        long seconds = expiresIn instanceof Number n ? n.longValue() : 300;
+        return new Token(String.valueOf(response.get("accessToken")), Instant.now().plusSeconds(seconds));
+    }
+
+    private record Token(String value, Instant expiresAt) {
+        boolean isValid() {
+            return Instant.now().isBefore(expiresAt);
+        }
+    }
+}
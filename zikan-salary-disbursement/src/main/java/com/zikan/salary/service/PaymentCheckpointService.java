@@ -0,0 +1,203 @@
+package com.zikan.salary.service;
+
+import com.zikan.salary.model.PaymentCheckpoint;
+import com.zikan.salary.model.SalaryRequest;
+import com.zikan.salary.repository.PaymentCheckpointRepository;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Record-level checkpoints for payments sent to core banking.
+ *
+ * Each batch has a bitmap over its records' positions (12.5 KB for 100k records) with
+ * a bit set once core banking has accepted that record. Only records whose bit is
+ * clear are sent, so retrying a partly failed batch, or resubmitting the same file,
+ * pays only for the records still outstanding; finding them is a scan for clear bits.
+ * The bitmap is written after every chunk and dropped once the whole batch is
+ * accepted. Each payment item also carries an idempotency key of batch and employee
+ * ID, so a record whose acceptance was lost in transit is not paid twice.
+ */
+@Service
+public class PaymentCheckpointService {
+
+    private final PaymentCheckpointRepository repository;
+
+    private final LongAdder recordsSent = new LongAdder();
+    private final LongAdder recordsSkipped = new LongAdder();
+    private final LongAdder resumedBatches = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+
+    public PaymentCheckpointService(PaymentCheckpointRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * The checkpoint of a batch: the stored one if this exact batch was sent before,
+     * otherwise a fresh one with no record accepted
+     */
+    public Checkpoint open(SalaryRequest request) {
+        Checkpoint checkpoint = load(request);
+        if (checkpoint.getAcceptedCount() > 0) {
+            resumedBatches.increment();
+        }
+        return checkpoint;
+    }
+
+    private Checkpoint load(SalaryRequest request) {
+        String contentHash = BatchIntakeGuard.hash(request);
+        int recordCount = request.getEmployees().size();
+        PaymentCheckpoint stored = repository.findById(request.getSalaryBatchId()).orElse(null);
+        if (stored != null && contentHash.equals(stored.getContentHash()) && stored.getRecordCount() == recordCount) {
+            return new Checkpoint(stored, BitSet.valueOf(stored.getAccepted() == null ? new byte[0] : stored.getAccepted()));
+        }
+        return new Checkpoint(stored != null ? reset(stored, contentHash, recordCount)
+                : new PaymentCheckpoint(request.getSalaryBatchId(), contentHash, recordCount), new BitSet(recordCount));
+    }
+
+    /**
+     * True if part of this batch was sent and some records are still not accepted
+     */
+    public boolean hasOutstanding(String salaryBatchId) {
+        return salaryBatchId != null && repository.existsById(salaryBatchId);
+    }
+
+    /**
+     * A copy of the request holding only the records not yet accepted, e.g. to reserve
+     * funds for a resubmission
+     */
+    public SalaryRequest outstanding(SalaryRequest request) {
+        SalaryRequest copy = new SalaryRequest();
+        copy.setCompanyName(request.getCompanyName());
+        copy.setSalaryBatchId(request.getSalaryBatchId());
+        copy.setCompanyAccount(request.getCompanyAccount());
+        copy.setSalaryDate(request.getSalaryDate());
+        copy.setEmployees(load(request).collect(request.getEmployees()));
+        return copy;
+    }
+
+    /**
+     * Persist progress; a fully accepted batch's checkpoint is deleted instead. Writes of one
+     * batch run one at a time under its checkpoint's lock, so an older, incomplete bitmap
+     * cannot land after a newer one (or after the delete) and two first writes cannot both insert.
+     */
+    public void save(Checkpoint checkpoint) {
+        PaymentCheckpoint row = checkpoint.row;
+        synchronized (checkpoint) {
+            if (checkpoint.isComplete()) {
+                if (repository.existsById(row.getSalaryBatchId())) {
+                    repository.deleteById(row.getSalaryBatchId());
+                }
+                return;
+            }
+            row.setAccepted(checkpoint.accepted.toByteArray());
+            row.setAcceptedCount(checkpoint.accepted.cardinality());
+            row.setUpdatedAt(Instant.now());
+            repository.save(row);
+        }
+        writes.increment();
+    }
+
+    /**
+     * Records sent versus skipped as already accepted, and checkpoint activity
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("recordsSent", recordsSent.sum());
+        metrics.put("recordsSkipped", recordsSkipped.sum());
+        metrics.put("resumedBatches", resumedBatches.sum());
+        metrics.put("checkpointWrites", writes.sum());
+        metrics.put("batchesWithOutstandingRecords", repository.count());
+        return metrics;
+    }
+
+    private static PaymentCheckpoint reset(PaymentCheckpoint stored, String contentHash, int recordCount) {
+        stored.setContentHash(contentHash);
+        stored.setRecordCount(recordCount);
+        stored.setAcceptedCount(0);
+        stored.setAccepted(null);
+        return stored;
+    }
+
+    /**
+     * One batch's accepted-records bitmap while it is being sent
+     */
+    public final class Checkpoint {
+        private final PaymentCheckpoint row;
+        private final BitSet accepted;
+        private final Map<String, Integer> outstandingPositions = new HashMap<>();
+
+        private Checkpoint(PaymentCheckpoint row, BitSet accepted) {
+            this.row = row;
+            this.accepted = accepted;
+        }
+
+        /**
+         * The records not yet accepted, in batch order
+         */
+        public synchronized List<SalaryRequest.Employee> outstanding(List<SalaryRequest.Employee> employees) {
+            List<SalaryRequest.Employee> outstanding = collect(employees);
+            recordsSent.add(outstanding.size());
+            recordsSkipped.add(row.getRecordCount() - outstanding.size());
+            return outstanding;
+        }
+
+        private synchronized List<SalaryRequest.Employee> collect(List<SalaryRequest.Employee> employees) {
+            List<SalaryRequest.Employee> outstanding = new ArrayList<>(row.getRecordCount() - accepted.cardinality());
+            outstandingPositions.clear();
+            for (int i = accepted.nextClearBit(0); i < row.getRecordCount(); i = accepted.nextClearBit(i + 1)) {
+                SalaryRequest.Employee e = employees.get(i);
+                outstanding.add(e);
+                outstandingPositions.putIfAbsent(e.getEmployeeId(), i);
+            }
+            return outstanding;
+        }
+
+        /**
+         * Set the bit of every record core banking did not report as FAILED
+         */
+        public synchronized void markAccepted(List<InfosysIntegrationService.TransactionStatus> statuses) {
+            for (InfosysIntegrationService.TransactionStatus status : statuses) {
+                Integer position = outstandingPositions.get(status.getEmployeeId());
+                if (position != null && !"FAILED".equals(status.getStatus())) {
+                    accepted.set(position);
+                }
+            }
+        }
+
+        /**
+         * Set the bit of every record in a slice accepted as a whole (no per-record statuses)
+         */
+        public synchronized void markAllAccepted(List<SalaryRequest.Employee> slice) {
+            for (SalaryRequest.Employee e : slice) {
+                Integer position = outstandingPositions.get(e.getEmployeeId());
+                if (position != null) {
+                    accepted.set(position);
+                }
+            }
+        }
+
+        public synchronized int getAcceptedCount() {
+            return accepted.cardinality();
+        }
+
+        public String getSalaryBatchId() {
+            return row.getSalaryBatchId();
+        }
+
+        public int getRecordCount() {
+            return row.getRecordCount();
+        }
+
+        public synchronized boolean isComplete() {
+            return accepted.nextClearBit(0) >= row.getRecordCount();
+        }
+    }
+}
@@ -0,0 +1,360 @@
+package com.zikan.salary.service;
+
+import com.zikan.salary.model.SalaryAcknowledgement;
+import com.zikan.salary.repository.SalaryAcknowledgementRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Follows batches submitted to Infosys until they reach a final status.
+ *
+ * Tracked batches sit in a queue ordered by their next check time. Every tick the
+ * due batches are taken off the queue and their statuses fetched concurrently on a
+ * bounded pool. Batches whose status moved are stored with one update statement per
+ * (old status, new status, message); only when that statement does not match every
+ * batch it names (another writer got there first) are those batches saved one by one,
+ * so a failure (e.g. an optimistic-lock conflict) on one batch only delays that batch.
+ * The acknowledgement keeps the latest message and the time of the last change; the
+ * per-transaction results go to salary_transactions. A batch whose status has not moved backs off exponentially
+ * (with jitter) up to maxDelayMs; a batch whose status did move is checked again soon.
+ * Every due batch goes back on the queue unless its final status was stored, which
+ * also settles its funds reservation. On startup every stored batch without a final
+ * status is tracked again.
+ */
+@Service
+public class PaymentStatusReconciler {
+
+    private final InfosysIntegrationService infosysService;
+    private final SalaryAcknowledgementRepository repository;
+    private final TransactionStatusService transactionStatusService;
+    private final FundsReservationLedger funds;
+
+    @Value("${zikan.reconciler.enabled:true}")
+    private boolean enabled;
+
+    @Value("${zikan.reconciler.tickMs:1000}")
+    private long tickMs;
+
+    @Value("${zikan.reconciler.initialDelayMs:2000}")
+    private long initialDelayMs;
+
+    @Value("${zikan.reconciler.maxDelayMs:300000}")
+    private long maxDelayMs;
+
+    @Value("${zikan.reconciler.maxPerTick:500}")
+    private int maxPerTick;
+
+    @Value("${zikan.reconciler.concurrency:8}")
+    private int concurrency;
+
+    @Value("${zikan.reconciler.finalStatuses:SUCCESS,COMPLETED,FAILED,REJECTED}")
+    private Set<String> finalStatuses;
+
+    private final PriorityQueue<TrackedBatch> schedule = new PriorityQueue<>(
+            (a, b) -> Long.compare(a.nextCheckAt, b.nextCheckAt));
+    private final Map<String, TrackedBatch> tracked = new ConcurrentHashMap<>();
+
+    private final long startedAt = System.currentTimeMillis();
+    private final LongAdder polls = new LongAdder();
+    private final LongAdder pollErrors = new LongAdder();
+    private final LongAdder saveErrors = new LongAdder();
+    private final LongAdder finalised = new LongAdder();
+    private final LongAdder timeToFinalMs = new LongAdder();
+    private final AtomicLong maxTimeToFinalMs = new AtomicLong();
+    private final AtomicLong lastTickMs = new AtomicLong();
+
+    private ScheduledExecutorService ticker;
+    private ExecutorService statusExecutor;
+
+    public PaymentStatusReconciler(InfosysIntegrationService infosysService, SalaryAcknowledgementRepository repository,
+                                   TransactionStatusService transactionStatusService, FundsReservationLedger funds) {
+        this.infosysService = infosysService;
+        this.repository = repository;
+        this.transactionStatusService = transactionStatusService;
+        this.funds = funds;
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        AtomicInteger counter = new AtomicInteger();
+        statusExecutor = Executors.newFixedThreadPool(concurrency, r -> {
+            Thread t = new Thread(r, "reconciler-status-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "reconciler-tick");
+            t.setDaemon(true);
+            return t;
+        });
+        resume();
+        ticker.scheduleWithFixedDelay(this::tick, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Track every stored batch whose status is not final, e.g. after a restart
+     */
+    private void resume() {
+        int resumed = 0;
+        for (Object[] row : repository.findUnsettled(finalStatuses)) {
+            if (track((String) row[0], (String) row[1])) {
+                resumed++;
+            }
+        }
+        if (resumed > 0) {
+            System.out.println("Payment status reconciler resumed " + resumed + " unsettled batch(es)");
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+            statusExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Check if a status needs no further polling
+     */
+    public boolean isFinal(String status) {
+        return status == null || finalStatuses.contains(status);
+    }
+
+    /**
+     * Start following a submitted batch. Returns false, and does nothing, if the
+     * reconciler is disabled or the status is already final.
+     */
+    public boolean track(String salaryBatchId, String status) {
+        if (!enabled || salaryBatchId == null || isFinal(status)) {
+            return false;
+        }
+        TrackedBatch batch = new TrackedBatch(salaryBatchId, status, System.currentTimeMillis() + initialDelayMs);
+        if (tracked.putIfAbsent(salaryBatchId, batch) == null) {
+            synchronized (schedule) {
+                schedule.add(batch);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Poll every due batch once and persist what changed
+     */
+    void tick() {
+        long now = System.currentTimeMillis();
+        List<TrackedBatch> due = new ArrayList<>();
+        synchronized (schedule) {
+            while (due.size() < maxPerTick && !schedule.isEmpty() && schedule.peek().nextCheckAt <= now) {
+                due.add(schedule.poll());
+            }
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+
+        Set<TrackedBatch> settled = new HashSet<>();
+        try {
+            List<Future<InfosysIntegrationService.InfosysResponse>> futures = new ArrayList<>(due.size());
+            for (TrackedBatch batch : due) {
+                futures.add(statusExecutor.submit(() -> infosysService.fetchPaymentStatus(batch.batchId)));
+            }
+            List<InfosysIntegrationService.InfosysResponse> responses = new ArrayList<>(due.size());
+            for (Future<InfosysIntegrationService.InfosysResponse> future : futures) {
+                polls.increment();
+                try {
+                    responses.add(future.get());
+                } catch (ExecutionException e) {
+                    pollErrors.increment();
+                    responses.add(null);
+                }
+            }
+            Set<String> unsaved = saveChanges(due, responses);
+
+            for (int i = 0; i < due.size(); i++) {
+                TrackedBatch batch = due.get(i);
+                InfosysIntegrationService.InfosysResponse response = responses.get(i);
+                String status = response == null ? null : response.getStatus();
+                if (status == null || unsaved.contains(batch.batchId)) {
+                    // Not polled, or not stored: keep the old status so the change is picked up again next time
+                    batch.attempt++;
+                    continue;
+                }
+
+                try {
+                    if (response.getTransactionStatuses() != null && !response.getTransactionStatuses().isEmpty()) {
+                        transactionStatusService.applyUpdates(batch.batchId, response.getTransactionStatuses());
+                    }
+                } catch (RuntimeException e) {
+                    // Not stored: keep the old status so the change is picked up again next time
+                    saveErrors.increment();
+                    batch.attempt++;
+                    System.err.println("Unable to store payment status of batch " + batch.batchId + ": " + e.getMessage());
+                    continue;
+                }
+
+                if (!status.equals(batch.status)) {
+                    batch.status = status;
+                    batch.attempt = 0; // Moving along: look again soon
+                } else {
+                    batch.attempt++;
+                }
+                if (isFinal(status)) {
+                    settled.add(batch);
+                    tracked.remove(batch.batchId);
+                    funds.settle(batch.batchId);
+                    long elapsed = System.currentTimeMillis() - batch.trackedAt;
+                    finalised.increment();
+                    timeToFinalMs.add(elapsed);
+                    maxTimeToFinalMs.accumulateAndGet(elapsed, Math::max);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            System.err.println("Payment status reconciliation failed: " + e.getMessage());
+        } finally {
+            // Whatever happened above, every batch not settled is checked again
+            long later = System.currentTimeMillis();
+            List<TrackedBatch> requeue = new ArrayList<>(due.size());
+            for (TrackedBatch batch : due) {
+                if (!settled.contains(batch)) {
+                    batch.nextCheckAt = later + backoff(batch.attempt);
+                    requeue.add(batch);
+                }
+            }
+            synchronized (schedule) {
+                schedule.addAll(requeue);
+            }
+            lastTickMs.set(later - now);
+        }
+    }
+
+    /**
+     * Poll counts, backlog and time-to-final-status, for sizing the poller
+     */
+    public Map<String, Object> getMetrics() {
+        long uptimeSeconds = Math.max(1, (System.currentTimeMillis() - startedAt) / 1000);
+        long done = finalised.sum();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("tracked", tracked.size());
+        metrics.put("polls", polls.sum());
+        metrics.put("pollErrors", pollErrors.sum());
+        metrics.put("saveErrors", saveErrors.sum());
+        metrics.put("pollsPerSecond", (double) polls.sum() / uptimeSeconds);
+        metrics.put("finalised", done);
+        metrics.put("avgTimeToFinalMs", done == 0 ? 0.0 : (double) timeToFinalMs.sum() / done);
+        metrics.put("maxTimeToFinalMs", maxTimeToFinalMs.get());
+        metrics.put("lastTickMs", lastTickMs.get());
+        return metrics;
+    }
+
+    /**
+     * Store the new status of every polled batch whose status moved, one statement per
+     * (old status, new status, message). Returns the IDs of the batches not stored.
+     */
+    private Set<String> saveChanges(List<TrackedBatch> due, List<InfosysIntegrationService.InfosysResponse> responses) {
+        Map<List<String>, List<String>> changes = new LinkedHashMap<>();
+        for (int i = 0; i < due.size(); i++) {
+            TrackedBatch batch = due.get(i);
+            InfosysIntegrationService.InfosysResponse response = responses.get(i);
+            if (response != null && response.getStatus() != null && !response.getStatus().equals(batch.status)) {
+                changes.computeIfAbsent(Arrays.asList(batch.status, response.getStatus(), response.getMessage()),
+                        k -> new ArrayList<>()).add(batch.batchId);
+            }
+        }
+
+        Set<String> unsaved = new HashSet<>();
+        Instant at = Instant.now();
+        for (Map.Entry<List<String>, List<String>> change : changes.entrySet()) {
+            String from = change.getKey().get(0);
+            String to = change.getKey().get(1);
+            String message = change.getKey().get(2);
+            List<String> batchIds = change.getValue();
+            int updated;
+            try {
+                updated = repository.reconcileStatusAll(batchIds, from, to, message, at);
+            } catch (RuntimeException e) {
+                updated = -1;
+            }
+            if (updated == batchIds.size()) {
+                continue;
+            }
+            // Some were no longer in the status last seen (or the statement failed): save them one by one
+            for (String batchId : batchIds) {
+                try {
+                    saveChange(batchId, to, message, at);
+                } catch (RuntimeException e) {
+                    saveErrors.increment();
+                    unsaved.add(batchId);
+                    System.err.println("Unable to store payment status of batch " + batchId + ": " + e.getMessage());
+                }
+            }
+        }
+        return unsaved;
+    }
+
+    private void saveChange(String batchId, String status, String message, Instant at) {
+        SalaryAcknowledgement ack = repository.findBySalaryBatchId(batchId);
+        if (ack == null) {
+            System.err.println("No acknowledgement stored for reconciled batch " + batchId);
+            return;
+        }
+        if (status.equals(ack.getStatus())) {
+            return; // Stored by the set-based update
+        }
+        ack.setStatus(status);
+        if (message != null) {
+            ack.setMessage(message);
+        }
+        ack.setStatusChangedAt(at);
+        repository.save(ack);
+    }
+
+    private long backoff(int attempt) {
+        long delay = initialDelayMs << Math.min(attempt, 20);
+        delay = Math.min(maxDelayMs, delay);
+        // +/-20% jitter so batches submitted together do not poll in lockstep
+        return delay + ThreadLocalRandom.current().nextLong(-delay / 5, delay / 5 + 1);
+    }
+
+    private static class TrackedBatch {
+        private final String batchId;
+        private final long trackedAt = System.currentTimeMillis();
+        private String status;
+        private int attempt;
+        private long nextCheckAt;
+
+        TrackedBatch(String batchId, String status, long nextCheckAt) {
+            this.batchId = batchId;
+            this.status = status;
+            this.nextCheckAt = nextCheckAt;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.zikan.salary.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Legacy transport: runs {@code rclone copy} as a child process per file.
+ * Requires rclone to be installed and the remote configured.
+ */
+@Service
+@ConditionalOnProperty(name = "zikan.upload.transport", havingValue = "rclone", matchIfMissing = true)
+public class RcloneUploadTransport implements UploadTransport {
+
+    @Value("${zikan.rclone.remote}")
+    private String rcloneRemote;
+
+    @Value("${zikan.rclone.dest}")
+    private String rcloneDest;
+
+    @Override
+    public void upload(File file) throws IOException {
+        ProcessBuilder pb = new ProcessBuilder(
+                "rclone", "copy",
+                file.getAbsolutePath(),
+                rcloneRemote + ":/" + rcloneDest
+        );
+        pb.inheritIO();
+        Process r = pb.start();
+        try {
+            int exit = r.waitFor();
+            if (exit != 0) {
+                throw new IOException("rclone exited with code " + exit);
+            }
+        } catch (InterruptedException e) {
+            r.destroy();
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for rclone", e);
+        }
+    }
+}
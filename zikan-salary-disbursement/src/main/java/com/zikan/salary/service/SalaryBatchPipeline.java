@@ -0,0 +1,340 @@
+package com.zikan.salary.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zikan.salary.model.BatchJob;
+import com.zikan.salary.model.SalaryAcknowledgement;
+import com.zikan.salary.model.SalaryRequest;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Asynchronous generate -> encrypt -> upload -> acknowledge pipeline.
+ *
+ * Each stage runs on its own fixed-size pool with a bounded queue. A stage that
+ * finishes a batch blocks until the next stage has room, so a slow upload stage
+ * throttles generation instead of piling files up in the work directory. When the
+ * first stage is full new submissions are rejected rather than queued without limit.
+ *
+ * Every completed stage is written to the {@link BatchJournal}; on startup, batches the
+ * journal recovered are re-queued at the stage after the last one they completed.
+ */
+@Service
+public class SalaryBatchPipeline {
+
+    private final SalaryService salaryService;
+    private final BatchIntakeGuard intakeGuard;
+    private final BatchJournal journal;
+    private final ObjectMapper objectMapper;
+    private final Map<String, BatchJob> jobs = new ConcurrentHashMap<>();
+
+    @Value("${zikan.pipeline.queueCapacity:100}")
+    private int queueCapacity;
+
+    @Value("${zikan.pipeline.generate.threads:2}")
+    private int generateThreads;
+
+    @Value("${zikan.pipeline.encrypt.threads:2}")
+    private int encryptThreads;
+
+    @Value("${zikan.pipeline.upload.threads:4}")
+    private int uploadThreads;
+
+    @Value("${zikan.pipeline.acknowledge.threads:2}")
+    private int acknowledgeThreads;
+
+    @Value("${zikan.pipeline.jobRetentionMinutes:60}")
+    private long jobRetentionMinutes;
+
+    private Stage generate;
+    private Stage encrypt;
+    private Stage upload;
+    private Stage acknowledge;
+
+    public SalaryBatchPipeline(SalaryService salaryService, BatchIntakeGuard intakeGuard,
+                               BatchJournal journal, ObjectMapper objectMapper) {
+        this.salaryService = salaryService;
+        this.intakeGuard = intakeGuard;
+        this.journal = journal;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    void start() {
+        Consumer<BatchJob> release = job -> {
+            journal.record(job.getSalaryBatchId(), BatchJournal.Stage.FAILED, job.getError());
+            intakeGuard.finish(job.getSalaryBatchId());
+        };
+        generate = new Stage("generate", generateThreads, queueCapacity, release);
+        encrypt = new Stage("encrypt", encryptThreads, queueCapacity, release);
+        upload = new Stage("upload", uploadThreads, queueCapacity, release);
+        acknowledge = new Stage("acknowledge", acknowledgeThreads, queueCapacity, release);
+    }
+
+    @PreDestroy
+    void stop() {
+        for (Stage stage : new Stage[]{generate, encrypt, upload, acknowledge}) {
+            stage.executor.shutdown();
+        }
+    }
+
+    /**
+     * Queue a batch for processing. Returns the existing job if the same batch is
+     * still in flight, or an already completed job carrying the original
+     * acknowledgement if the batch was processed before.
+     *
+     * @throws RejectedExecutionException if the pipeline is at capacity
+     * @throws IllegalStateException if the batch is being processed outside the pipeline
+     * @throws UncheckedIOException if the batch could not be journaled
+     */
+    public BatchJob submit(SalaryRequest request) {
+        evictFinishedJobs();
+
+        BatchJob job = new BatchJob(request.getSalaryBatchId());
+        BatchJob existing = jobs.putIfAbsent(job.getSalaryBatchId(), job);
+        if (existing != null) {
+            if (!existing.isFinished()) {
+                return existing;
+            }
+            jobs.put(job.getSalaryBatchId(), job);
+        }
+
+        String contentHash = BatchIntakeGuard.hash(request);
+        SalaryAcknowledgement prior = intakeGuard.findPrior(request.getSalaryBatchId(), contentHash);
+        if (prior != null) {
+            job.setAcknowledgement(prior);
+            job.setStatus("COMPLETED");
+            return job;
+        }
+        if (!intakeGuard.tryBegin(request.getSalaryBatchId(), contentHash)) {
+            jobs.remove(job.getSalaryBatchId(), job);
+            throw new IllegalStateException("Salary batch " + request.getSalaryBatchId() + " is already being processed");
+        }
+
+        try {
+            journal.accept(request);
+            generate.submit(job, false, () -> runGenerate(job, request));
+        } catch (RuntimeException e) {
+            // Not queued: give up the job and the claim so the batch can be submitted again
+            journal.record(job.getSalaryBatchId(), BatchJournal.Stage.FAILED, e instanceof RejectedExecutionException
+                    ? "Rejected: pipeline at capacity" : "Not accepted: " + e.getMessage());
+            jobs.remove(job.getSalaryBatchId(), job);
+            intakeGuard.finish(job.getSalaryBatchId());
+            throw e;
+        }
+        return job;
+    }
+
+    /**
+     * Re-queue the batches the journal found unfinished at startup, each at the stage
+     * after the last one it completed. A stage whose file has gone is redone from
+     * generation.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    void resume() {
+        for (BatchJournal.Recovered recovered : journal.takeRecovered()) {
+            String batchId = recovered.batchId();
+            try {
+                SalaryRequest request = recovered.request(objectMapper);
+                BatchJob job = new BatchJob(batchId);
+                jobs.put(batchId, job);
+
+                SalaryAcknowledgement prior = intakeGuard.findPrior(batchId, BatchIntakeGuard.hash(request));
+                if (prior != null) { // Acknowledged, but the crash came before the journal said so
+                    journal.record(batchId, BatchJournal.Stage.ACKNOWLEDGED, prior.getStatus());
+                    job.setAcknowledgement(prior);
+                    job.setStatus("COMPLETED");
+                    continue;
+                }
+                if (!intakeGuard.tryResume(batchId, BatchIntakeGuard.hash(request))) {
+                    continue;
+                }
+
+                BatchJournal.Stage stage = recovered.stage();
+                File file = recovered.data() == null ? null : new File(recovered.data());
+                if (stage == BatchJournal.Stage.GENERATED && file.exists()) {
+                    encrypt.submit(job, true, () -> runEncrypt(job, request, file));
+                } else if (stage == BatchJournal.Stage.ENCRYPTED && file.exists()) {
+                    upload.submit(job, true, () -> runUpload(job, request, file));
+                } else if (stage == BatchJournal.Stage.UPLOADED) {
+                    acknowledge.submit(job, true, () -> runAcknowledge(job, request, null));
+                } else if (stage == BatchJournal.Stage.UPLOAD_FAILED) {
+                    acknowledge.submit(job, true, () -> runAcknowledge(job, request, recovered.data()));
+                } else {
+                    generate.submit(job, true, () -> runGenerate(job, request));
+                }
+                System.out.println("Resuming salary batch " + batchId + " after stage " + stage);
+            } catch (Exception e) {
+                System.err.println("Unable to resume salary batch " + batchId + ": " + e.getMessage());
+                journal.record(batchId, BatchJournal.Stage.FAILED, "Resume failed: " + e.getMessage());
+                intakeGuard.finish(batchId);
+            }
+        }
+    }
+
+    private void runGenerate(BatchJob job, SalaryRequest request) throws Exception {
+        job.setStatus("GENERATING");
+        File batch = salaryService.generateBatchFile(request);
+        journal.record(job.getSalaryBatchId(), BatchJournal.Stage.GENERATED, batch.getPath());
+        encrypt.submit(job, true, () -> runEncrypt(job, request, batch));
+    }
+
+    private void runEncrypt(BatchJob job, SalaryRequest request, File batch) throws Exception {
+        job.setStatus("ENCRYPTING");
+        File encrypted = salaryService.encryptBatchFile(batch);
+        journal.record(job.getSalaryBatchId(), BatchJournal.Stage.ENCRYPTED, encrypted.getPath());
+        upload.submit(job, true, () -> runUpload(job, request, encrypted));
+    }
+
+    private void runUpload(BatchJob job, SalaryRequest request, File encrypted) {
+        job.setStatus("UPLOADING");
+        String uploadError = null;
+        try {
+            salaryService.uploadBatchFile(encrypted);
+            journal.record(job.getSalaryBatchId(), BatchJournal.Stage.UPLOADED, null);
+        } catch (IOException e) {
+            uploadError = e.getMessage();
+            journal.record(job.getSalaryBatchId(), BatchJournal.Stage.UPLOAD_FAILED, uploadError);
+        }
+        String failure = uploadError;
+        acknowledge.submit(job, true, () -> runAcknowledge(job, request, failure));
+    }
+
+    private void runAcknowledge(BatchJob job, SalaryRequest request, String uploadFailure) {
+        job.setStatus("ACKNOWLEDGING");
+        job.setAcknowledgement(uploadFailure != null
+                ? salaryService.recordUploadFailure(request, uploadFailure)
+                : salaryService.acknowledge(request));
+        journal.record(job.getSalaryBatchId(), BatchJournal.Stage.ACKNOWLEDGED, job.getAcknowledgement().getStatus());
+        job.setStatus("COMPLETED");
+        intakeGuard.finish(job.getSalaryBatchId());
+    }
+
+    public BatchJob getJob(String salaryBatchId) {
+        return jobs.get(salaryBatchId);
+    }
+
+    /**
+     * Per-stage queue depth, utilisation and latency, for sizing the pools
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("jobsTracked", jobs.size());
+        for (Stage stage : new Stage[]{generate, encrypt, upload, acknowledge}) {
+            metrics.put(stage.name, stage.snapshot());
+        }
+        return metrics;
+    }
+
+    private void evictFinishedJobs() {
+        Instant cutoff = Instant.now().minus(Duration.ofMinutes(jobRetentionMinutes));
+        jobs.values().removeIf(j -> j.isFinished() && j.getUpdatedAt().isBefore(cutoff));
+    }
+
+    @FunctionalInterface
+    private interface StageTask {
+        void run() throws Exception;
+    }
+
+    /**
+     * One pipeline stage: a fixed pool over a bounded queue plus its counters
+     */
+    private static class Stage {
+        private final String name;
+        private final ThreadPoolExecutor executor;
+        private final Consumer<BatchJob> onFailure;
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder serviceNanos = new LongAdder();
+        private final LongAdder waitNanos = new LongAdder();
+        private final AtomicLong maxServiceNanos = new AtomicLong();
+
+        Stage(String name, int threads, int capacity, Consumer<BatchJob> onFailure) {
+            this.name = name;
+            this.onFailure = onFailure;
+            AtomicInteger counter = new AtomicInteger();
+            this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(capacity),
+                    r -> {
+                        Thread t = new Thread(r, "pipeline-" + name + "-" + counter.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    });
+        }
+
+        /**
+         * Run the task on this stage. With {@code block} the caller waits for queue
+         * space (back-pressure from downstream); otherwise a full queue is rejected.
+         */
+        void submit(BatchJob job, boolean block, StageTask task) {
+            long enqueued = System.nanoTime();
+            Runnable runnable = () -> {
+                long started = System.nanoTime();
+                waitNanos.add(started - enqueued);
+                try {
+                    task.run();
+                    completed.increment();
+                } catch (Exception e) {
+                    failed.increment();
+                    job.setError(name + " stage failed: " + e.getMessage());
+                    job.setStatus("FAILED");
+                    onFailure.accept(job);
+                } finally {
+                    long elapsed = System.nanoTime() - started;
+                    serviceNanos.add(elapsed);
+                    maxServiceNanos.accumulateAndGet(elapsed, Math::max);
+                }
+            };
+
+            if (!block) {
+                executor.execute(runnable);
+                return;
+            }
+            if (executor.isShutdown()) {
+                throw new RejectedExecutionException("Pipeline stopped");
+            }
+            try {
+                executor.prestartAllCoreThreads();
+                executor.getQueue().put(runnable);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException("Interrupted waiting for " + name + " stage", e);
+            }
+        }
+
+        Map<String, Object> snapshot() {
+            long done = completed.sum() + failed.sum();
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("queueDepth", executor.getQueue().size());
+            m.put("queueCapacity", executor.getQueue().size() + executor.getQueue().remainingCapacity());
+            m.put("activeThreads", executor.getActiveCount());
+            m.put("poolSize", executor.getMaximumPoolSize());
+            m.put("completed", completed.sum());
+            m.put("failed", failed.sum());
+            m.put("avgLatencyMs", done == 0 ? 0.0 : serviceNanos.sum() / 1e6 / done);
+            m.put("maxLatencyMs", maxServiceNanos.get() / 1e6);
+            m.put("avgQueueWaitMs", done == 0 ? 0.0 : waitNanos.sum() / 1e6 / done);
+            return m;
+        }
+    }
+}
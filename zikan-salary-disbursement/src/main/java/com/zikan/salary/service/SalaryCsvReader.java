@@ -0,0 +1,239 @@
+package com.zikan.salary.service;
+
+import com.zikan.salary.model.SalaryRequest;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Pull-based reader for salary batch CSV files.
+ *
+ * The header block (company details) is read eagerly when the reader is opened,
+ * employee rows are read one at a time as the caller pulls them, so memory use
+ * does not grow with the size of the file. Layout matches the files produced by
+ * SalaryService: a header row, a values row, a blank line, then the employee section.
+ * Fields follow RFC 4180: a field in double quotes may hold commas, line breaks and
+ * doubled quotes ({@code ""}), e.g. {@code "Acme, Ltd"}.
+ */
+public class SalaryCsvReader implements SalaryRecordReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final BufferedReader reader;
+    private final SalaryRequest header = new SalaryRequest();
+
+    private int idCol = -1, nameCol = -1, accountCol = -1, bankCol = -1, amountCol = -1;
+    private int employeeColumns;
+    private final List<String> fields = new ArrayList<>();
+    private final StringBuilder field = new StringBuilder();
+    private String[] pending;
+    private IllegalArgumentException pendingError;
+    private int lineNumber;
+    private int recordLine;
+    private int recordNumber;
+
+    public SalaryCsvReader(File file) throws IOException {
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        this.reader = new BufferedReader(Channels.newReader(channel,
+                StandardCharsets.UTF_8.newDecoder()
+                        .onMalformedInput(CodingErrorAction.REPLACE)
+                        .onUnmappableCharacter(CodingErrorAction.REPLACE), -1), BUFFER_SIZE);
+        try {
+            readHeaderBlock();
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public SalaryRequest getHeader() { return header; }
+
+    /**
+     * 1-based line number of the last line read from the file.
+     */
+    public int getLineNumber() { return lineNumber; }
+
+    @Override
+    public int getRecordNumber() { return recordNumber; }
+
+    @Override
+    public boolean hasNext() {
+        if (pending != null || pendingError != null) {
+            return true;
+        }
+        try {
+            pending = nextRecord(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (IllegalArgumentException e) {
+            pendingError = e; // Raised by next(), like any other malformed row
+        }
+        return pending != null || pendingError != null;
+    }
+
+    /**
+     * Returns the next employee record. A malformed row raises an
+     * IllegalArgumentException but is consumed, so iteration can continue.
+     */
+    @Override
+    public SalaryRequest.Employee next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        String[] cols = pending;
+        IllegalArgumentException error = pendingError;
+        pending = null;
+        pendingError = null;
+        recordNumber++;
+
+        if (error != null) {
+            throw error;
+        }
+        if (cols.length != employeeColumns) {
+            throw new IllegalArgumentException("Line " + recordLine + ": expected "
+                    + employeeColumns + " columns");
+        }
+
+        SalaryRequest.Employee employee = new SalaryRequest.Employee();
+        employee.setEmployeeId(cols[idCol]);
+        employee.setName(cols[nameCol]);
+        employee.setAccountNumber(cols[accountCol]);
+        employee.setBankCode(cols[bankCol]);
+        employee.setAmount(parseAmount(cols[amountCol]));
+        return employee;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            reader.close();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void readHeaderBlock() throws IOException {
+        String[] names = nextRecord(true);
+        String[] cells = names == null ? null : nextRecord(false);
+        if (cells == null) {
+            throw new IllegalArgumentException("Missing header block");
+        }
+        if (cells.length != names.length) {
+            throw new IllegalArgumentException("Line " + recordLine + ": header values do not match header columns");
+        }
+        for (int i = 0; i < names.length; i++) {
+            switch (names[i]) {
+                case "companyName" -> header.setCompanyName(cells[i]);
+                case "batchId", "salaryBatchId" -> header.setSalaryBatchId(cells[i]);
+                case "companyAccount" -> header.setCompanyAccount(cells[i]);
+                case "salaryDate" -> header.setSalaryDate(cells[i]);
+                default -> SalaryRecordReader.setControlField(header, names[i], cells[i]);
+            }
+        }
+
+        String[] employeeNames = nextRecord(true);
+        if (employeeNames == null) {
+            throw new IllegalArgumentException("Missing employee section");
+        }
+        employeeColumns = employeeNames.length;
+        for (int i = 0; i < employeeNames.length; i++) {
+            switch (employeeNames[i]) {
+                case "employeeId" -> idCol = i;
+                case "name" -> nameCol = i;
+                case "accountNumber" -> accountCol = i;
+                case "bankCode" -> bankCol = i;
+                case "amount" -> amountCol = i;
+                default -> { }
+            }
+        }
+        if (idCol < 0 || nameCol < 0 || accountCol < 0 || bankCol < 0 || amountCol < 0) {
+            throw new IllegalArgumentException("Line " + recordLine
+                    + ": employee header must contain employeeId,name,accountNumber,bankCode,amount");
+        }
+    }
+
+    /**
+     * The next record's trimmed fields, or null at the end of the file. With {@code skipBlank}
+     * blank lines before the record are passed over, otherwise a blank line is a single
+     * empty field. A quoted field runs on across line breaks until its closing quote.
+     */
+    private String[] nextRecord(boolean skipBlank) throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+            lineNumber++;
+        } while (skipBlank && line.isBlank());
+        recordLine = lineNumber;
+
+        fields.clear();
+        field.setLength(0);
+        boolean quoted = false;
+        int i = 0;
+        while (true) {
+            if (i == line.length()) {
+                if (!quoted) {
+                    break;
+                }
+                line = reader.readLine(); // Quoted field continues on the next line
+                if (line == null) {
+                    throw new IllegalArgumentException("Line " + recordLine + ": unterminated quoted field");
+                }
+                lineNumber++;
+                field.append('\n');
+                i = 0;
+                continue;
+            }
+            char c = line.charAt(i++);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i < line.length() && line.charAt(i) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"' && field.toString().isBlank()) {
+                field.setLength(0);
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString().trim());
+        return fields.toArray(new String[0]);
+    }
+
+    private long parseAmount(String value) {
+        long amount = 0;
+        if (value.isEmpty()) {
+            throw new IllegalArgumentException("Line " + recordLine + ": amount is required");
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9' || amount > (Long.MAX_VALUE - 9) / 10) {
+                throw new IllegalArgumentException("Line " + recordLine + ": invalid amount '" + value + "'");
+            }
+            amount = amount * 10 + (c - '0');
+        }
+        return amount;
+    }
+}
@@ -0,0 +1,77 @@
+package com.zikan.salary.service;
+
+import com.zikan.salary.model.SalaryRequest;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * Pull-based stream of employee records from an uploaded salary file.
+ * Implementations read one record at a time so memory does not grow with file size.
+ */
+public interface SalaryRecordReader extends Iterator<SalaryRequest.Employee>, Closeable {
+
+    /**
+     * Company/batch details of the file; employees are not populated.
+     * For JSON/XML the header fields may follow the employee list, so the header
+     * is only guaranteed complete once all records have been read.
+     */
+    SalaryRequest getHeader();
+
+    /**
+     * 1-based position of the last employee record returned (or rejected) by {@link #next()}.
+     */
+    int getRecordNumber();
+
+    /**
+     * Open a reader for the given file, picking the format from the file name.
+     */
+    static SalaryRecordReader open(File file, String fileName) throws IOException {
+        String lowerCase = fileName.toLowerCase();
+        if (lowerCase.endsWith(".csv")) {
+            return new SalaryCsvReader(file);
+        } else if (lowerCase.endsWith(".json")) {
+            return SalaryTokenReader.json(file);
+        } else if (lowerCase.endsWith(".xml")) {
+            return SalaryTokenReader.xml(file);
+        }
+        throw new IllegalArgumentException("Unsupported salary file format: " + fileName);
+    }
+
+    /**
+     * Parse an optional numeric header field (control total, record count); blank means absent.
+     */
+    static Long parseHeaderNumber(String field, String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            long number = Long.parseLong(value.trim());
+            if (number < 0) {
+                throw new NumberFormatException();
+            }
+            return number;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + field + " '" + value + "' in header");
+        }
+    }
+
+    /**
+     * Apply the optional control fields shared by all formats; other fields are ignored.
+     */
+    static void setControlField(SalaryRequest header, String field, String value) {
+        switch (field) {
+            case "controlTotal", "totalAmount" -> header.setControlTotal(parseHeaderNumber(field, value));
+            case "recordCount", "totalRecords" -> {
+                Long count = parseHeaderNumber(field, value);
+                if (count != null && count > Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException("Invalid " + field + " '" + value + "' in header");
+                }
+                header.setRecordCount(count == null ? null : count.intValue());
+            }
+            default -> { }
+        }
+    }
+}
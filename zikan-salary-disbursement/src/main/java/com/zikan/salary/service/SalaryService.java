@@ -3,11 +3,23 @@ package com.zikan.salary.service;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
-import java.util.Random;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import com.zikan.salary.model.SalaryAcknowledgement;
 import com.zikan.salary.model.SalaryRequest;
@@ -21,6 +33,17 @@ public class SalaryService {
     private final FileValidationService validationService;
     private final InfosysIntegrationService infosysService;
     private final SftpService sftpService;
+    private final UploadTransport uploadTransport;
+    private final PaymentStatusReconciler reconciler;
+    private final BatchIntakeGuard intakeGuard;
+    private final TransactionStatusService transactionStatusService;
+    private final EmployeeMasterDataCache masterData;
+    private final FundsReservationLedger funds;
+    private final BatchJournal journal;
+    private final PaymentCheckpointService checkpoints;
+    private final AcknowledgementFileWriter ackFiles;
+    private final AcknowledgementDelivery delivery;
+    private final ClientBatchScheduler scheduler;
 
     @Value("${zikan.workdir}")
     private String workdir;
@@ -28,98 +51,201 @@ public class SalaryService {
     @Value("${zikan.publicKeyPath}")
     private String publicKeyPath;
 
-    @Value("${zikan.rclone.remote}")
-    private String rcloneRemote;
-
-    @Value("${zikan.rclone.dest}")
-    private String rcloneDest;
-
     @Value("${zikan.encryption.enabled}")
     private boolean encryptionEnabled;
 
+    @Value("${zikan.encryption.streaming:false}")
+    private boolean encryptionStreaming;
+
+    @Value("${zikan.approval.required:false}")
+    private boolean approvalRequired;
+
     public SalaryService(SalaryAcknowledgementRepository repository, GpgService gpg, 
                         FileValidationService validationService, InfosysIntegrationService infosysService,
-                        SftpService sftpService) {
+                        SftpService sftpService, UploadTransport uploadTransport,
+                        PaymentStatusReconciler reconciler, BatchIntakeGuard intakeGuard,
+                        TransactionStatusService transactionStatusService, EmployeeMasterDataCache masterData,
+                        FundsReservationLedger funds, BatchJournal journal,
+                        PaymentCheckpointService checkpoints, AcknowledgementFileWriter ackFiles,
+                        AcknowledgementDelivery delivery, ClientBatchScheduler scheduler) {
         this.repository = repository;
         this.gpg = gpg;
         this.validationService = validationService;
         this.infosysService = infosysService;
         this.sftpService = sftpService;
+        this.uploadTransport = uploadTransport;
+        this.reconciler = reconciler;
+        this.intakeGuard = intakeGuard;
+        this.transactionStatusService = transactionStatusService;
+        this.masterData = masterData;
+        this.funds = funds;
+        this.journal = journal;
+        this.checkpoints = checkpoints;
+        this.ackFiles = ackFiles;
+        this.delivery = delivery;
+        this.scheduler = scheduler;
     }
 
     public SalaryAcknowledgement process(SalaryRequest request) throws Exception {
-        // 1) Ensure directories
+        String batchId = request.getSalaryBatchId();
+        String contentHash = BatchIntakeGuard.hash(request);
+        SalaryAcknowledgement prior = intakeGuard.findPrior(batchId, contentHash);
+        if (prior != null) {
+            return prior;
+        }
+        if (!intakeGuard.tryBegin(batchId, contentHash)) {
+            return intakeGuard.inProgress(batchId);
+        }
+        try {
+            journal.accept(request);
+            File batch = generateBatchFile(request);
+            journal.record(batchId, BatchJournal.Stage.GENERATED, batch.getPath());
+            File encrypted = encryptBatchFile(batch);
+            journal.record(batchId, BatchJournal.Stage.ENCRYPTED, encrypted.getPath());
+            SalaryAcknowledgement ack;
+            try {
+                uploadBatchFile(encrypted);
+                journal.record(batchId, BatchJournal.Stage.UPLOADED, null);
+                ack = acknowledge(request);
+            } catch (IOException e) {
+                journal.record(batchId, BatchJournal.Stage.UPLOAD_FAILED, e.getMessage());
+                ack = recordUploadFailure(request, e.getMessage());
+            }
+            journal.record(batchId, BatchJournal.Stage.ACKNOWLEDGED, ack.getStatus());
+            return ack;
+        } catch (Exception e) {
+            journal.record(batchId, BatchJournal.Stage.FAILED, e.getMessage());
+            throw e;
+        } finally {
+            intakeGuard.finish(batchId);
+        }
+    }
+
+    /**
+     * Stage 1: write the batch CSV into the work directory. In streaming mode the CSV is
+     * compressed and encrypted on the way out, so only the .gpg file is written.
+     */
+    public File generateBatchFile(SalaryRequest request) throws IOException {
+        // Ensure directories
         File base = new File(workdir);
         if (!base.exists() && !base.mkdirs()) {
             throw new IllegalStateException("Unable to create workdir: " + base);
         }
 
-        // 2) Generate batch CSV
-        File batch = new File(base, "salary_batch_" + request.getSalaryBatchId() + ".csv");
-        try (BufferedWriter w = new BufferedWriter(new FileWriter(batch))) {
-            w.write("companyName,batchId,companyAccount,salaryDate,generatedAt\n");
-            w.write(String.join(",", safe(request.getCompanyName()), safe(request.getSalaryBatchId()),
-                    safe(request.getCompanyAccount()), safe(request.getSalaryDate()),
-                    LocalDateTime.now().toString()));
-            w.write("\n\nemployeeId,name,accountNumber,bankCode,amount\n");
-            for (SalaryRequest.Employee e : request.getEmployees()) {
-                w.write(String.join(",",
-                        safe(e.getEmployeeId()),
-                        safe(e.getName()),
-                        safe(e.getAccountNumber()),
-                        safe(e.getBankCode()),
-                        String.valueOf(e.getAmount())));
-                w.write("\n");
+        String name = "salary_batch_" + request.getSalaryBatchId() + ".csv";
+        if (isStreamingEncryption()) {
+            File encrypted = new File(base, name + ".gpg");
+            File partial = new File(base, name + ".gpg.part");
+            try (BufferedWriter w = new BufferedWriter(new OutputStreamWriter(
+                    gpg.openEncryptedStream(Files.newOutputStream(partial.toPath()), new File(publicKeyPath), name),
+                    StandardCharsets.UTF_8))) {
+                writeBatchCsv(request, w);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(partial.toPath());
+                throw e;
             }
+            Files.move(partial.toPath(), encrypted.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            return encrypted;
         }
 
-        // 3) Encrypt with GPG (if enabled)
-        File encrypted = batch;
-        if (encryptionEnabled) {
-            encrypted = gpg.encryptFile(batch, new File(publicKeyPath));
+        File batch = new File(base, name);
+        try (BufferedWriter w = new BufferedWriter(new FileWriter(batch))) {
+            writeBatchCsv(request, w);
         }
+        return batch;
+    }
 
-        // 4) Upload via rclone (if enabled)
-        if (encryptionEnabled) {
-            ProcessBuilder pb = new ProcessBuilder(
-                    "rclone", "copy",
-                    encrypted.getAbsolutePath(),
-                    rcloneRemote + ":/" + rcloneDest
-            );
-            pb.inheritIO();
-            Process r = pb.start();
-            int exit = r.waitFor();
-            if (exit != 0) {
-                // If upload fails, still record FAILED ack
-                SalaryAcknowledgement failed = new SalaryAcknowledgement(
-                        request.getSalaryBatchId(),
-                        "FAILED",
-                        "Upload to Drive failed (exit " + exit + ")."
-                );
-                return repository.save(failed);
-            }
+    private void writeBatchCsv(SalaryRequest request, Writer w) throws IOException {
+        w.write("companyName,batchId,companyAccount,salaryDate,generatedAt\n");
+        w.write(String.join(",", safe(request.getCompanyName()), safe(request.getSalaryBatchId()),
+                safe(request.getCompanyAccount()), safe(request.getSalaryDate()),
+                LocalDateTime.now().toString()));
+        w.write("\n\nemployeeId,name,accountNumber,bankCode,amount\n");
+        for (SalaryRequest.Employee e : request.getEmployees()) {
+            w.write(String.join(",",
+                    safe(e.getEmployeeId()),
+                    safe(e.getName()),
+                    safe(e.getAccountNumber()),
+                    safe(e.getBankCode()),
+                    String.valueOf(e.getAmount())));
+            w.write("\n");
+        }
+    }
+
+    /**
+     * Stage 2: encrypt the batch file with GPG (if enabled and not already done while generating)
+     */
+    public File encryptBatchFile(File batch) throws IOException, InterruptedException {
+        if (!encryptionEnabled || isStreamingEncryption()) {
+            return batch;
+        }
+        return gpg.encryptFile(batch, new File(publicKeyPath));
+    }
+
+    private boolean isStreamingEncryption() {
+        return encryptionEnabled && encryptionStreaming;
+    }
+
+    /**
+     * Stage 3: upload via the configured transport (if enabled)
+     */
+    public void uploadBatchFile(File encrypted) throws IOException {
+        if (!encryptionEnabled) {
+            return;
         }
+        uploadTransport.upload(encrypted);
+    }
+
+    /**
+     * If upload fails, still record FAILED ack
+     */
+    public SalaryAcknowledgement recordUploadFailure(SalaryRequest request, String reason) {
+        SalaryAcknowledgement failed = new SalaryAcknowledgement(
+                request.getSalaryBatchId(),
+                "FAILED",
+                "Upload to Drive failed (" + reason + ")."
+        );
+        return intakeGuard.save(failed);
+    }
 
-        // 5) Mimic Finacle-like acknowledgement
+    /**
+     * Stage 4: mimic Finacle-like acknowledgement, persist & return
+     */
+    public SalaryAcknowledgement acknowledge(SalaryRequest request) {
         String[] statuses = {"SUCCESS", "PENDING", "FAILED"};
-        String status = statuses[new Random().nextInt(statuses.length)];
+        String status = statuses[ThreadLocalRandom.current().nextInt(statuses.length)];
         String message = switch (status) {
             case "SUCCESS" -> "Salary batch processed successfully.";
             case "PENDING" -> "Salary batch is pending approval.";
             default -> "Salary batch failed due to core-banking checks.";
         };
 
-        // 6) Persist & return
         SalaryAcknowledgement ack = new SalaryAcknowledgement(request.getSalaryBatchId(), status, message);
-        return repository.save(ack);
+        if ("PENDING".equals(status)) {
+            ack.setApprovalStatus(ApprovalService.PENDING);
+        }
+        return intakeGuard.save(ack);
     }
 
     /**
      * Enhanced processing method for host-to-host integration
-     * This method implements the complete workflow: SFTP -> Validation -> Infosys -> Acknowledgement
+     * This method implements the complete workflow: SFTP -> Validation -> Infosys -> Acknowledgement.
+     * Submissions to Infosys count against {@code client}'s rate limit (see {@link ClientRateLimiter}).
+     * With zikan.approval.required a new batch stops before Infosys as AWAITING_APPROVAL, its funds
+     * still reserved, and is submitted by {@link #onApprovalDecided} once a checker approves it.
      */
-    public SalaryAcknowledgement processHostToHost(File uploadedFile, String fileName) throws Exception {
+    public SalaryAcknowledgement processHostToHost(File uploadedFile, String fileName, String client) throws Exception {
+        String batchId = null;
+        String reservedBatchId = null;
         try {
+            // 0. Replayed file: answer with the original acknowledgement without parsing it again,
+            // unless some of its records were not accepted and are to be sent again
+            String contentHash = BatchIntakeGuard.hash(uploadedFile);
+            SalaryAcknowledgement replay = intakeGuard.findPriorByContent(contentHash);
+            if (replay != null && !checkpoints.hasOutstanding(replay.getSalaryBatchId())) {
+                return replay;
+            }
+
             // 1. File Validation
             FileValidationService.ValidationResult validationResult = validationService.validateSalaryFile(uploadedFile, fileName);
             
@@ -130,82 +256,192 @@ public class SalaryService {
 
             SalaryRequest salaryRequest = validationResult.getSalaryRequest();
 
-            // 2. Maker-Checker Workflow (simplified for demo)
-            if (!approveSalaryBatch(salaryRequest)) {
-                return createFailedAcknowledgement("REJECTED", 
-                    "Salary batch rejected by maker-checker workflow");
+            // Idempotent intake: one run per salaryBatchId, plus resubmissions of a partly accepted batch
+            SalaryAcknowledgement prior = intakeGuard.findPrior(salaryRequest.getSalaryBatchId(), contentHash);
+            if (prior != null && (prior.getId() == null || !checkpoints.hasOutstanding(prior.getSalaryBatchId()))) {
+                return prior;
+            }
+            if (!intakeGuard.tryBegin(salaryRequest.getSalaryBatchId(), contentHash)) {
+                return intakeGuard.inProgress(salaryRequest.getSalaryBatchId());
+            }
+            batchId = salaryRequest.getSalaryBatchId();
+            boolean resubmission = prior != null;
+            // The claimed row, read again since claiming it changed its version; a new claim has no outcome yet
+            SalaryAcknowledgement existing = repository.findBySalaryBatchId(batchId);
+            if (existing != null && BatchIntakeGuard.IN_PROGRESS.equals(existing.getStatus())) {
+                existing = null;
             }
 
-            // 3. Process through Infosys Core Banking
-            InfosysIntegrationService.InfosysResponse infosysResponse = infosysService.processSalaryBatch(salaryRequest);
-
-            // 4. Create detailed acknowledgement
-            SalaryAcknowledgement acknowledgement = createDetailedAcknowledgement(salaryRequest, infosysResponse);
+            // 2. Verify employees against registered master data, reserve the batch total
+            // against the company's available balance, then Maker-Checker Workflow (simplified for demo)
+            List<String> unverified = masterData.verify(salaryRequest);
+            if (!unverified.isEmpty()) {
+                return createFailedAcknowledgement("VERIFICATION_FAILED",
+                    "Employee verification failed: " + String.join(", ", unverified));
+            }
+            FundsReservationLedger.Reservation reservation = funds.reserve(
+                    checkpoints.hasOutstanding(batchId) ? checkpoints.outstanding(salaryRequest) : salaryRequest);
+            if (!reservation.isGranted()) {
+                return createFailedAcknowledgement("INSUFFICIENT_FUNDS", reservation.getMessage());
+            }
+            reservedBatchId = batchId; // Released below unless the batch is paid
+            if (!resubmission && approvalRequired) {
+                SalaryAcknowledgement held = new SalaryAcknowledgement(batchId, ApprovalService.AWAITING_APPROVAL,
+                        "Salary batch is awaiting checker approval.");
+                held.setApprovalStatus(ApprovalService.PENDING);
+                held.setClient(client);
+                held.setSourceFile(uploadedFile.getAbsolutePath());
+                SalaryAcknowledgement saved = intakeGuard.save(held);
+                reservedBatchId = null; // Held until the checker decides
+                return saved;
+            }
 
-            // 5. Log to database
-            return repository.save(acknowledgement);
+            // 3-6. Infosys, acknowledgement, tracking
+            SalaryAcknowledgement saved = submit(salaryRequest, existing, client);
+            reservedBatchId = null;
+            return saved;
 
         } catch (Exception e) {
             return createFailedAcknowledgement("PROCESSING_ERROR", 
                 "Error processing salary batch: " + e.getMessage());
+        } finally {
+            funds.release(reservedBatchId);
+            intakeGuard.finish(batchId);
         }
     }
 
     /**
-     * Process salary batch from SFTP upload
+     * Submit a verified, claimed batch whose funds are reserved to Infosys and store the outcome,
+     * on {@code prior} if the batch already had an outcome (a held, failed or resubmitted batch)
      */
-    public void processSftpUpload(File file, String fileName) {
-        try {
-            SalaryAcknowledgement result = processHostToHost(file, fileName);
-            
-            // Send acknowledgement back to corporate client via SFTP
-            sendAcknowledgementToClient(result, fileName);
-            
-        } catch (Exception e) {
-            // Log error and create failure acknowledgement
-            SalaryAcknowledgement errorAck = createFailedAcknowledgement("SFTP_PROCESSING_ERROR", 
-                "Error processing SFTP upload: " + e.getMessage());
-            sendAcknowledgementToClient(errorAck, fileName);
+    private SalaryAcknowledgement submit(SalaryRequest salaryRequest, SalaryAcknowledgement prior, String client)
+            throws Exception {
+        // 3. Process through Infosys Core Banking
+        InfosysIntegrationService.InfosysResponse infosysResponse = infosysService.processSalaryBatch(salaryRequest, client);
+
+        // 4. Create detailed acknowledgement
+        SalaryAcknowledgement acknowledgement = createDetailedAcknowledgement(salaryRequest, infosysResponse);
+
+        // 5. Log to database; an approved, retried or resubmitted batch updates its acknowledgement
+        // and the sent records' results
+        SalaryAcknowledgement saved;
+        if (prior != null) {
+            prior.setStatus(acknowledgement.getStatus());
+            prior.setMessage(acknowledgement.getMessage());
+            prior.setClient(client);
+            saved = intakeGuard.save(prior);
+            transactionStatusService.applyUpdates(saved.getSalaryBatchId(), infosysResponse.getTransactionStatuses());
+        } else {
+            acknowledgement.setClient(client);
+            saved = intakeGuard.save(acknowledgement); // Written over the batch's claim
+            transactionStatusService.recordAll(saved.getSalaryBatchId(), infosysResponse.getTransactionStatuses());
+        }
+
+        // 6. Follow the payment until core banking reports a final status; the reconciler
+        // then settles the funds reservation
+        if (!reconciler.track(saved.getSalaryBatchId(), saved.getStatus())) {
+            funds.settle(saved.getSalaryBatchId());
         }
+        return saved;
     }
 
     /**
-     * Maker-Checker approval workflow
+     * A checker decided a batch held for approval: queue an approved one for submission on its
+     * client's scheduler queue, or tell the client a rejected one will not be paid
      */
-    private boolean approveSalaryBatch(SalaryRequest request) {
-        // This would implement the actual maker-checker workflow
-        // For now, we'll do basic validation
-        
-        // Check if company account has sufficient funds
-        if (!checkSufficientFunds(request)) {
-            return false;
+    @TransactionalEventListener
+    public void onApprovalDecided(ApprovalService.Decided decision) {
+        SalaryAcknowledgement ack = repository.findBySalaryBatchId(decision.salaryBatchId());
+        if (ack == null || ack.getSourceFile() == null) {
+            return; // Not held by this service
         }
-        
-        // Check if all employees are valid
-        if (!validateEmployees(request)) {
-            return false;
+        File file = new File(ack.getSourceFile());
+        if (decision.decision() == ApprovalService.Decision.APPROVE) {
+            scheduler.submit(ack.getClient(), ClientBatchScheduler.Lane.NORMAL, file.length(),
+                    () -> submitApproved(decision.salaryBatchId()));
+        } else {
+            sendAcknowledgement(ack, file.getName(), ack.getClient());
         }
-        
-        // Additional business rules can be added here
-        return true;
     }
 
     /**
-     * Check if company account has sufficient funds
+     * Queue again the batches approved before a restart whose submission was still waiting on
+     * the scheduler; until submitted they stay AWAITING_APPROVAL
      */
-    private boolean checkSufficientFunds(SalaryRequest request) {
-        // This would integrate with core banking to check account balance
-        // For demo purposes, we'll assume funds are available
-        return true;
+    @EventListener(ApplicationReadyEvent.class)
+    void resumeApproved() {
+        List<String> approved = repository.findBatchIds(ApprovalService.APPROVED, ApprovalService.AWAITING_APPROVAL);
+        for (String batchId : approved) {
+            SalaryAcknowledgement ack = repository.findBySalaryBatchId(batchId);
+            scheduler.submit(ack.getClient(), ClientBatchScheduler.Lane.NORMAL, new File(ack.getSourceFile()).length(),
+                    () -> submitApproved(batchId));
+        }
+        if (!approved.isEmpty()) {
+            System.out.println("Re-queued " + approved.size() + " approved salary batch(es) for submission");
+        }
     }
 
     /**
-     * Validate employees against HR system
+     * Read an approved batch back from its uploaded file and submit it
      */
-    private boolean validateEmployees(SalaryRequest request) {
-        // This would integrate with HR system to validate employee records
-        // For demo purposes, we'll assume all employees are valid
-        return true;
+    void submitApproved(String batchId) {
+        SalaryAcknowledgement held = repository.findBySalaryBatchId(batchId);
+        if (held == null || !intakeGuard.tryBegin(batchId, held.getContentHash())) {
+            return; // Being submitted
+        }
+        held = repository.findBySalaryBatchId(batchId); // As claimed
+        if (!ApprovalService.AWAITING_APPROVAL.equals(held.getStatus())) {
+            intakeGuard.finish(batchId);
+            return; // Already submitted
+        }
+        File file = new File(held.getSourceFile());
+        String reservedBatchId = batchId;
+        SalaryAcknowledgement result;
+        try {
+            FileValidationService.ValidationResult validationResult = validationService.validateSalaryFile(file, file.getName());
+            SalaryRequest salaryRequest = validationResult.getSalaryRequest();
+            if (!validationResult.isValid() || !batchId.equals(salaryRequest.getSalaryBatchId())) {
+                throw new IllegalStateException("uploaded file " + file + " no longer holds this batch");
+            }
+            // Normally still reserved since intake; reserved again if this node restarted meanwhile
+            FundsReservationLedger.Reservation reservation = funds.reserve(salaryRequest);
+            if (!reservation.isGranted()) {
+                throw new IllegalStateException(reservation.getMessage());
+            }
+            result = submit(salaryRequest, held, held.getClient());
+            reservedBatchId = null;
+        } catch (Exception e) {
+            held.setStatus("FAILED");
+            held.setMessage("Approved salary batch could not be submitted: " + e.getMessage());
+            result = intakeGuard.save(held);
+        } finally {
+            funds.release(reservedBatchId);
+            intakeGuard.finish(batchId);
+        }
+        sendAcknowledgement(result, file.getName(), held.getClient());
+    }
+
+    /**
+     * Process salary batch from SFTP upload and return the acknowledgement file to the client
+     */
+    public void processSftpUpload(File file, String fileName, String client) {
+        SalaryAcknowledgement result;
+        try {
+            result = processHostToHost(file, fileName, client);
+        } catch (Exception e) {
+            result = createFailedAcknowledgement("SFTP_PROCESSING_ERROR",
+                "Error processing SFTP upload: " + e.getMessage());
+        }
+        sendAcknowledgement(result, fileName, client);
+    }
+
+    private void sendAcknowledgement(SalaryAcknowledgement result, String fileName, String client) {
+        try {
+            delivery.enqueue(client, ackFiles.write(result, fileName, client));
+        } catch (Exception e) {
+            // Log error but don't fail the main process
+            System.err.println("Failed to send acknowledgement to client: " + e.getMessage());
+        }
     }
 
     /**
@@ -219,21 +455,14 @@ public class SalaryService {
         acknowledgement.setStatus(infosysResponse.getStatus());
         acknowledgement.setMessage(infosysResponse.getMessage());
         
-        // Add detailed transaction information
-        if (infosysResponse.getTransactionStatuses() != null) {
-            StringBuilder detailedMessage = new StringBuilder(acknowledgement.getMessage());
-            detailedMessage.append("\n\nTransaction Details:\n");
-            
-            for (InfosysIntegrationService.TransactionStatus status : infosysResponse.getTransactionStatuses()) {
-                detailedMessage.append(String.format("Employee %s (%s): %s\n", 
-                    status.getEmployeeId(), status.getAccountNumber(), status.getStatus()));
-                
-                if (status.getErrorMessage() != null) {
-                    detailedMessage.append(String.format("  Error: %s\n", status.getErrorMessage()));
-                }
+        // Per-transaction results are stored in salary_transactions; summarise them here
+        List<InfosysIntegrationService.TransactionStatus> statuses = infosysResponse.getTransactionStatuses();
+        if (statuses != null && !statuses.isEmpty()) {
+            Map<String, Integer> counts = new TreeMap<>();
+            for (InfosysIntegrationService.TransactionStatus status : statuses) {
+                counts.merge(String.valueOf(status.getStatus()), 1, Integer::sum);
             }
-            
-            acknowledgement.setMessage(detailedMessage.toString());
+            acknowledgement.setMessage(acknowledgement.getMessage() + " (" + statuses.size() + " transactions: " + counts + ")");
         }
         
         return acknowledgement;
@@ -249,54 +478,5 @@ public class SalaryService {
         return acknowledgement;
     }
 
-    /**
-     * Send acknowledgement back to corporate client
-     */
-    private void sendAcknowledgementToClient(SalaryAcknowledgement acknowledgement, String originalFileName) {
-        try {
-            // Create acknowledgement file
-            String ackFileName = "ACK_" + originalFileName.replaceAll("\\.[^.]+$", ".txt");
-            File ackFile = new File(workdir + "/acknowledgements/" + ackFileName);
-            ackFile.getParentFile().mkdirs();
-            
-            try (BufferedWriter writer = new BufferedWriter(new FileWriter(ackFile))) {
-                writer.write("Salary Batch Acknowledgement\n");
-                writer.write("============================\n\n");
-                writer.write("Batch ID: " + acknowledgement.getSalaryBatchId() + "\n");
-                writer.write("Status: " + acknowledgement.getStatus() + "\n");
-                writer.write("Message: " + acknowledgement.getMessage() + "\n");
-                writer.write("Processed At: " + LocalDateTime.now() + "\n");
-            }
-            
-            // Upload acknowledgement to SFTP server for client to download
-            // This would use the SftpService to upload the acknowledgement file
-            
-        } catch (Exception e) {
-            // Log error but don't fail the main process
-            System.err.println("Failed to send acknowledgement to client: " + e.getMessage());
-        }
-    }
-
     private String safe(String s) { return s == null ? "" : s.replace(",", " "); }
-
-    /**
-     * Approve a pending salary batch for payment processing
-     */
-    public SalaryAcknowledgement approveBatch(String batchId) throws Exception {
-        SalaryAcknowledgement existing = repository.findBySalaryBatchId(batchId);
-        if (existing == null) {
-            throw new IllegalArgumentException("Salary batch not found: " + batchId);
-        }
-
-        if ("PENDING".equals(existing.getStatus())) {
-            existing.setStatus("APPROVED");
-            existing.setMessage("Salary batch approved and payment will be processed.");
-        } else if ("APPROVED".equals(existing.getStatus())) {
-            existing.setMessage("Salary batch was already approved.");
-        } else {
-            throw new IllegalStateException("Cannot approve batch with status: " + existing.getStatus());
-        }
-
-        return repository.save(existing);
-    }
 }
@@ -0,0 +1,264 @@
+package com.zikan.salary.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.dataformat.xml.XmlFactory;
+import com.zikan.salary.model.SalaryRequest;
+
+import javax.xml.stream.XMLInputFactory;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.NoSuchElementException;
+
+/**
+ * Pull-based reader for JSON and XML salary files built on Jackson's token stream.
+ *
+ * Only the current employee object is materialised; the document is never bound
+ * into a tree. Accepts the same shape as the REST payload:
+ * <pre>
+ * { "salaryBatchId": ..., "companyName": ..., "employees": [ { "employeeId": ... }, ... ] }
+ * </pre>
+ * and its XML equivalent, with employees either wrapped
+ * ({@code <employees><employee>..</employee></employees>}) or unwrapped
+ * (repeated {@code <employees>..</employees>} elements).
+ */
+public class SalaryTokenReader implements SalaryRecordReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final XmlFactory XML_FACTORY = createXmlFactory();
+
+    private enum Context { ROOT, ARRAY, WRAPPER, DONE }
+
+    private final JsonParser parser;
+    private final SalaryRequest header = new SalaryRequest();
+
+    private Context context = Context.ROOT;
+    private String pendingField;
+    private boolean fetched;
+    private boolean hasRecord;
+    private int recordNumber;
+
+    // Fields of the record under the cursor, reused between records
+    private String employeeId, name, accountNumber, bankCode, amount;
+
+    private SalaryTokenReader(JsonParser parser) throws IOException {
+        this.parser = parser;
+        try {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Salary file must contain a single batch object");
+            }
+        } catch (IOException | RuntimeException e) {
+            parser.close();
+            throw e;
+        }
+    }
+
+    public static SalaryTokenReader json(File file) throws IOException {
+        return new SalaryTokenReader(JSON_FACTORY.createParser(open(file)));
+    }
+
+    public static SalaryTokenReader xml(File file) throws IOException {
+        return new SalaryTokenReader(XML_FACTORY.createParser(open(file)));
+    }
+
+    @Override
+    public SalaryRequest getHeader() { return header; }
+
+    @Override
+    public int getRecordNumber() { return recordNumber; }
+
+    @Override
+    public boolean hasNext() {
+        if (!fetched) {
+            try {
+                hasRecord = advance();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            fetched = true;
+        }
+        return hasRecord;
+    }
+
+    /**
+     * Returns the next employee record. A record with an unparseable amount raises
+     * an IllegalArgumentException but is fully consumed, so iteration can continue.
+     */
+    @Override
+    public SalaryRequest.Employee next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        fetched = false;
+        recordNumber++;
+
+        SalaryRequest.Employee employee = new SalaryRequest.Employee();
+        employee.setEmployeeId(employeeId);
+        employee.setName(name);
+        employee.setAccountNumber(accountNumber);
+        employee.setBankCode(bankCode);
+        employee.setAmount(parseAmount(amount));
+        return employee;
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+
+    /**
+     * Move the cursor to the next employee object, collecting header fields on the way.
+     */
+    private boolean advance() throws IOException {
+        while (true) {
+            switch (context) {
+                case DONE:
+                    return false;
+
+                case ROOT: {
+                    JsonToken token = parser.nextToken();
+                    if (token == null || token == JsonToken.END_OBJECT) {
+                        context = Context.DONE;
+                        continue;
+                    }
+                    String field = parser.currentName();
+                    JsonToken value = parser.nextToken();
+                    if ("employees".equals(field) && value == JsonToken.START_ARRAY) {
+                        context = Context.ARRAY;
+                    } else if ("employees".equals(field) && value == JsonToken.START_OBJECT) {
+                        // XML: either a wrapper of <employee> elements or a single unwrapped record
+                        JsonToken first = parser.nextToken();
+                        if (first == JsonToken.END_OBJECT) {
+                            continue;
+                        }
+                        String firstField = parser.currentName();
+                        if (isEmployeeField(firstField)) {
+                            readEmployee(firstField);
+                            return true;
+                        }
+                        context = Context.WRAPPER;
+                        pendingField = firstField;
+                    } else if (value.isScalarValue()) {
+                        setHeaderField(field, parser.getValueAsString());
+                    } else {
+                        parser.skipChildren();
+                    }
+                    continue;
+                }
+
+                case ARRAY: {
+                    JsonToken token = parser.nextToken();
+                    if (token == JsonToken.END_ARRAY) {
+                        context = Context.ROOT;
+                    } else if (token == JsonToken.START_OBJECT) {
+                        readEmployee(null);
+                        return true;
+                    } else if (token == null) {
+                        context = Context.DONE;
+                    } else {
+                        parser.skipChildren();
+                    }
+                    continue;
+                }
+
+                case WRAPPER: {
+                    if (pendingField == null) {
+                        JsonToken token = parser.nextToken();
+                        if (token == null || token == JsonToken.END_OBJECT) {
+                            context = token == null ? Context.DONE : Context.ROOT;
+                            continue;
+                        }
+                    }
+                    pendingField = null;
+                    JsonToken value = parser.nextToken();
+                    if (value == JsonToken.START_OBJECT) {
+                        readEmployee(null);
+                        return true;
+                    }
+                    parser.skipChildren();
+                    continue;
+                }
+            }
+        }
+    }
+
+    /**
+     * Read the employee object under the cursor. If {@code firstField} is set, its
+     * FIELD_NAME token has already been consumed and the value is next.
+     */
+    private void readEmployee(String firstField) throws IOException {
+        employeeId = name = accountNumber = bankCode = amount = null;
+        String field = firstField;
+        while (true) {
+            if (field == null) {
+                JsonToken token = parser.nextToken();
+                if (token == null || token == JsonToken.END_OBJECT) {
+                    return;
+                }
+                field = parser.currentName();
+            }
+            JsonToken value = parser.nextToken();
+            if (value != null && value.isScalarValue()) {
+                String text = parser.getValueAsString();
+                switch (field) {
+                    case "employeeId" -> employeeId = text;
+                    case "name" -> name = text;
+                    case "accountNumber" -> accountNumber = text;
+                    case "bankCode" -> bankCode = text;
+                    case "amount" -> amount = text;
+                    default -> { }
+                }
+            } else {
+                parser.skipChildren();
+            }
+            field = null;
+        }
+    }
+
+    private void setHeaderField(String field, String value) {
+        switch (field) {
+            case "salaryBatchId", "batchId" -> header.setSalaryBatchId(value);
+            case "companyName" -> header.setCompanyName(value);
+            case "companyAccount" -> header.setCompanyAccount(value);
+            case "salaryDate" -> header.setSalaryDate(value);
+            default -> SalaryRecordReader.setControlField(header, field, value);
+        }
+    }
+
+    private static boolean isEmployeeField(String field) {
+        return switch (field) {
+            case "employeeId", "name", "accountNumber", "bankCode", "amount" -> true;
+            default -> false;
+        };
+    }
+
+    private long parseAmount(String value) {
+        if (value == null || value.isBlank()) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid amount '" + value + "'");
+        }
+    }
+
+    private static InputStream open(File file) throws IOException {
+        return new BufferedInputStream(Files.newInputStream(file.toPath()), BUFFER_SIZE);
+    }
+
+    private static XmlFactory createXmlFactory() {
+        // Uploaded files come from outside the bank: no DTDs or external entities
+        XMLInputFactory input = XMLInputFactory.newFactory();
+        input.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        input.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return new XmlFactory(input);
+    }
+}
@@ -1,19 +1,63 @@
 package com.zikan.salary.service;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.sshd.common.file.virtualfs.VirtualFileSystemFactory;
+import org.apache.sshd.core.CoreModuleProperties;
+import org.apache.sshd.server.SshServer;
+import org.apache.sshd.server.keyprovider.SimpleGeneratorHostKeyProvider;
+import org.apache.sshd.server.session.ServerSession;
+import org.apache.sshd.sftp.server.FileHandle;
+import org.apache.sshd.sftp.server.Handle;
+import org.apache.sshd.sftp.server.SftpEventListener;
+import org.apache.sshd.sftp.server.SftpSubsystemFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.CopyOption;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
- * Simplified SFTP Service for handling file uploads from corporate clients
- * This is a placeholder implementation for demonstration purposes
+ * Embedded SFTP server that receives salary files from corporate clients.
+ *
+ * Intake is event driven: when a client closes a file it wrote under the upload
+ * directory (or renames a finished upload into it), the file is queued with
+ * {@link ClientBatchScheduler} under the uploading SFTP user, which hands it to
+ * SalaryService when that client's turn comes. Files put in the urgent directory
+ * go to the URGENT lane. There is no directory polling.
+ *
+ * Every account has its own home under zikan.sftp.rootDir ({@code <rootDir>/<user>}),
+ * so a client sees only its own upload, urgent and processed directories.
  */
 @Service
 public class SftpService {
 
+    // Shipped in examples and docs; never accepted as a real account password
+    private static final String PLACEHOLDER_PASSWORD = "password";
+
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+
+    private final ObjectProvider<SalaryService> salaryService;
+    private final ClientBatchScheduler scheduler;
+
+    @Value("${zikan.sftp.enabled:false}")
+    private boolean enabled;
+
     @Value("${zikan.sftp.host:localhost}")
     private String sftpHost;
 
@@ -23,53 +67,113 @@ public class SftpService {
     @Value("${zikan.sftp.username:corporate}")
     private String sftpUsername;
 
-    @Value("${zikan.sftp.password:password}")
+    @Value("${zikan.sftp.password:}")
     private String sftpPassword;
 
+    @Value("${zikan.sftp.rootDir:${zikan.workdir}/sftp}")
+    private String rootDir;
+
+    @Value("${zikan.sftp.hostKeyPath:${zikan.workdir}/sftp-hostkey.ser}")
+    private String hostKeyPath;
+
     @Value("${zikan.sftp.uploadDir:/uploads}")
     private String uploadDir;
 
+    @Value("${zikan.sftp.urgentDir:/urgent}")
+    private String urgentDir;
+
     @Value("${zikan.sftp.processedDir:/processed}")
     private String processedDir;
 
-    /**
-     * Initialize SFTP connection
-     * This is a placeholder implementation
-     */
-    public void initializeSftpConnection() {
-        System.out.println("Initializing SFTP connection to " + sftpHost + ":" + sftpPort);
-        // In a real implementation, this would set up the SFTP connection
+    @Value("${zikan.sftp.users:}")
+    private String additionalUsers;
+
+    @Value("${zikan.sftp.maxSessionsPerUser:64}")
+    private int maxSessionsPerUser;
+
+    private SshServer server;
+
+    public SftpService(ObjectProvider<SalaryService> salaryService, ClientBatchScheduler scheduler) {
+        this.salaryService = salaryService;
+        this.scheduler = scheduler;
     }
 
     /**
-     * Monitor SFTP directory for new salary files
-     * This is a placeholder implementation
+     * Start the embedded SFTP server (when zikan.sftp.enabled=true)
      */
-    public void monitorForNewFiles() {
-        System.out.println("Monitoring SFTP directory: " + uploadDir);
-        // In a real implementation, this would monitor the SFTP directory
-        // and process new files as they arrive
+    @PostConstruct
+    public void initializeSftpConnection() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Path root = Paths.get(rootDir).toAbsolutePath();
+
+        // One account per corporate client: the user name identifies the client to the scheduler
+        Map<String, byte[]> passwords = new HashMap<>();
+        passwords.put(sftpUsername, sftpPassword.getBytes(StandardCharsets.UTF_8));
+        for (String entry : additionalUsers.split(",")) {
+            int colon = entry.indexOf(':');
+            if (colon > 0) {
+                passwords.put(entry.substring(0, colon).trim(), entry.substring(colon + 1).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        for (Map.Entry<String, byte[]> account : passwords.entrySet()) {
+            String password = new String(account.getValue(), StandardCharsets.UTF_8);
+            if (password.isBlank() || PLACEHOLDER_PASSWORD.equals(password)) {
+                throw new IllegalStateException("SFTP account '" + account.getKey() + "' has no password or the placeholder "
+                        + "password; set zikan.sftp.password / zikan.sftp.users before enabling the SFTP server");
+            }
+        }
+
+        VirtualFileSystemFactory fileSystems = new VirtualFileSystemFactory();
+        for (String user : passwords.keySet()) {
+            Path home = home(user);
+            Files.createDirectories(home.resolve(relative(uploadDir)));
+            Files.createDirectories(home.resolve(relative(urgentDir)));
+            Files.createDirectories(home.resolve(relative(processedDir)));
+            fileSystems.setUserHomeDir(user, home);
+        }
+
+        SftpSubsystemFactory sftp = new SftpSubsystemFactory();
+        sftp.addSftpEventListener(new UploadListener());
+
+        server = SshServer.setUpDefaultServer();
+        server.setHost(sftpHost);
+        server.setPort(sftpPort);
+        server.setKeyPairProvider(new SimpleGeneratorHostKeyProvider(Paths.get(hostKeyPath)));
+        server.setPasswordAuthenticator((username, password, session) ->
+                passwords.containsKey(username) && MessageDigest.isEqual(
+                        passwords.get(username), password.getBytes(StandardCharsets.UTF_8)));
+        server.setSubsystemFactories(List.of(sftp));
+        server.setFileSystemFactory(fileSystems);
+        CoreModuleProperties.MAX_CONCURRENT_SESSIONS.set(server, maxSessionsPerUser);
+        server.start();
+
+        System.out.println("SFTP server listening on " + sftpHost + ":" + server.getPort() + ", root " + root);
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        if (server != null) {
+            server.stop();
+        }
     }
 
     /**
-     * Process an uploaded salary file
-     * This is a placeholder implementation
+     * Process an uploaded salary file: move it out of the upload directory so it is
+     * picked up exactly once, then run it through host-to-host processing. The
+     * acknowledgement goes back to {@code client}, the SFTP user that uploaded it.
      */
-    public void processUploadedFile(File file, String fileName) {
+    public void processUploadedFile(File file, String fileName, String client) {
         try {
-            System.out.println("Processing uploaded file: " + fileName);
-            
-            // Create processed file path
-            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-            File processedFile = new File("temp/processed_" + timestamp + "_" + fileName);
-            processedFile.getParentFile().mkdirs();
-            
-            // In a real implementation, this would process the file
-            // For now, just copy it to the processed directory
-            java.nio.file.Files.copy(file.toPath(), processedFile.toPath());
-            
-            System.out.println("File processed successfully: " + processedFile.getName());
-            
+            String timestamp = LocalDateTime.now().format(TIMESTAMP);
+            Path processed = home(client)
+                    .resolve(relative(processedDir))
+                    .resolve(timestamp + "_" + fileName);
+            Files.move(file.toPath(), processed, StandardCopyOption.ATOMIC_MOVE);
+
+            salaryService.getObject().processSftpUpload(processed.toFile(), fileName, client);
+
         } catch (Exception e) {
             System.err.println("Error processing uploaded file: " + fileName + " - " + e.getMessage());
         }
@@ -79,34 +183,64 @@ public class SftpService {
      * Check if file is a valid salary file
      */
     public boolean isSalaryFile(String fileName) {
-        return fileName.toLowerCase().endsWith(".csv") || 
-               fileName.toLowerCase().endsWith(".xml") || 
+        return fileName.toLowerCase().endsWith(".csv") ||
+               fileName.toLowerCase().endsWith(".xml") ||
                fileName.toLowerCase().endsWith(".json");
     }
 
     /**
-     * Send acknowledgement file back to client
-     * This is a placeholder implementation
+     * Queue a completed upload for its client if it is a salary file in the upload or urgent directory
      */
-    public void sendAcknowledgementToClient(String batchId, String status, String message) {
-        try {
-            String ackFileName = "ACK_" + batchId + ".txt";
-            File ackFile = new File("temp/acknowledgements/" + ackFileName);
-            ackFile.getParentFile().mkdirs();
-            
-            try (java.io.FileWriter writer = new java.io.FileWriter(ackFile)) {
-                writer.write("Salary Batch Acknowledgement\n");
-                writer.write("============================\n\n");
-                writer.write("Batch ID: " + batchId + "\n");
-                writer.write("Status: " + status + "\n");
-                writer.write("Message: " + message + "\n");
-                writer.write("Processed At: " + LocalDateTime.now() + "\n");
+    private void dispatch(Path virtualPath, String client) {
+        String path = virtualPath.toAbsolutePath().normalize().toString().replace('\\', '/');
+        String fileName = virtualPath.getFileName().toString();
+        ClientBatchScheduler.Lane lane = isDirectlyIn(path, urgentDir) ? ClientBatchScheduler.Lane.URGENT
+                : isDirectlyIn(path, uploadDir) ? ClientBatchScheduler.Lane.NORMAL : null;
+        if (lane == null || !isSalaryFile(fileName)) {
+            return;
+        }
+        File file = home(client).resolve(path.substring(1)).toFile();
+        scheduler.submit(client, lane, file.length(), () -> processUploadedFile(file, fileName, client));
+    }
+
+    /**
+     * A user's home directory, which is the root of everything that user sees over SFTP
+     */
+    private Path home(String user) {
+        if (user == null || !user.matches("[A-Za-z0-9._-]+") || user.startsWith(".")) {
+            throw new IllegalArgumentException("Invalid SFTP user name: " + user);
+        }
+        return Paths.get(rootDir).toAbsolutePath().resolve(user);
+    }
+
+    private static boolean isDirectlyIn(String path, String dir) {
+        String prefix = dir.endsWith("/") ? dir : dir + "/";
+        return path.startsWith(prefix) && path.indexOf('/', prefix.length()) < 0;
+    }
+
+    private static String relative(String dir) {
+        return dir.startsWith("/") ? dir.substring(1) : dir;
+    }
+
+    /**
+     * Fires on SFTP file events; a write handle being closed means the upload is complete
+     */
+    private class UploadListener implements SftpEventListener {
+
+        @Override
+        public void closed(ServerSession session, String remoteHandle, Handle localHandle, Throwable thrown) {
+            if (thrown == null && localHandle instanceof FileHandle fileHandle
+                    && fileHandle.getOpenOptions().contains(StandardOpenOption.WRITE)) {
+                dispatch(localHandle.getFile(), session.getUsername());
+            }
+        }
+
+        @Override
+        public void moved(ServerSession session, Path srcPath, Path dstPath, Collection<CopyOption> opts, Throwable thrown) {
+            // Clients that upload to a temporary name and rename when done
+            if (thrown == null) {
+                dispatch(dstPath, session.getUsername());
             }
-            
-            System.out.println("Acknowledgement sent to client: " + ackFileName);
-            
-        } catch (Exception e) {
-            System.err.println("Error sending acknowledgement: " + e.getMessage());
         }
     }
 }
@@ -0,0 +1,242 @@
+package com.zikan.salary.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.sshd.sftp.client.SftpClient;
+import org.apache.sshd.sftp.common.SftpConstants;
+import org.apache.sshd.sftp.common.SftpException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.integration.file.remote.session.CachingSessionFactory;
+import org.springframework.integration.file.remote.session.Session;
+import org.springframework.integration.sftp.session.DefaultSftpSessionFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Uploads batch files over SFTP using a pool of reusable sessions, so files after
+ * the first skip the connect/auth handshake.
+ *
+ * Each file is written to {@code <name>.part} and renamed once complete. Next to the
+ * partial file, {@code <name>.part.src} records the size and modification time of the
+ * source being sent and the SHA-256 of its first 64 KiB. If a previous attempt left a
+ * partial file behind and that record still matches the source, the upload resumes
+ * from the partial file's size; otherwise (e.g. the file was regenerated under the
+ * same name) the partial file is discarded and the upload starts over. Only the head
+ * is hashed so the fingerprint does not cost a second read of the whole file; an
+ * encrypted batch starts with its randomly generated session key, so a regenerated
+ * one always differs there.
+ */
+@Service
+@ConditionalOnProperty(name = "zikan.upload.transport", havingValue = "sftp")
+public class SftpUploadTransport implements UploadTransport {
+
+    @Value("${zikan.upload.sftp.host:localhost}")
+    private String host;
+
+    @Value("${zikan.upload.sftp.port:22}")
+    private int port;
+
+    @Value("${zikan.upload.sftp.username:}")
+    private String username;
+
+    @Value("${zikan.upload.sftp.password:}")
+    private String password;
+
+    @Value("${zikan.upload.sftp.privateKeyPath:}")
+    private String privateKeyPath;
+
+    @Value("${zikan.upload.sftp.allowUnknownKeys:false}")
+    private boolean allowUnknownKeys;
+
+    @Value("${zikan.upload.sftp.knownHostsPath:}")
+    private String knownHostsPath;
+
+    @Value("${zikan.upload.sftp.remoteDir:/}")
+    private String remoteDir;
+
+    @Value("${zikan.upload.sftp.poolSize:4}")
+    private int poolSize;
+
+    @Value("${zikan.upload.sftp.sessionWaitTimeout:30000}")
+    private long sessionWaitTimeout;
+
+    private static final int FINGERPRINT_BYTES = 64 * 1024;
+
+    private CachingSessionFactory<SftpClient.DirEntry> sessionFactory;
+    private ExecutorService uploadExecutor;
+
+    @PostConstruct
+    void init() {
+        DefaultSftpSessionFactory factory = new DefaultSftpSessionFactory(false);
+        factory.setHost(host);
+        factory.setPort(port);
+        factory.setUser(username);
+        if (!password.isEmpty()) {
+            factory.setPassword(password);
+        }
+        if (!privateKeyPath.isEmpty()) {
+            factory.setPrivateKey(new FileSystemResource(privateKeyPath));
+        }
+        if (!knownHostsPath.isEmpty()) {
+            factory.setKnownHostsResource(new FileSystemResource(knownHostsPath));
+        }
+        factory.setAllowUnknownKeys(allowUnknownKeys);
+
+        sessionFactory = new CachingSessionFactory<>(factory, poolSize);
+        sessionFactory.setSessionWaitTimeout(sessionWaitTimeout);
+        sessionFactory.setTestSession(true);
+
+        AtomicInteger counter = new AtomicInteger();
+        uploadExecutor = Executors.newFixedThreadPool(poolSize, r -> {
+            Thread t = new Thread(r, "sftp-upload-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        uploadExecutor.shutdown();
+        sessionFactory.destroy();
+    }
+
+    @Override
+    public void upload(File file) throws IOException {
+        String target = remotePath(file.getName());
+        String partial = target + ".part";
+        String source = partial + ".src";
+        String fingerprint = fingerprint(file);
+
+        try (Session<SftpClient.DirEntry> session = sessionFactory.getSession()) {
+            SftpClient client = (SftpClient) session.getClientInstance();
+            ensureRemoteDir(session);
+
+            long offset = remoteSize(client, partial);
+            if (offset > 0 && (offset > file.length() || !fingerprint.equals(readRemote(session, source)))) {
+                session.remove(partial); // Left by an upload of different content
+                offset = 0;
+            }
+            if (offset == 0) {
+                session.write(new ByteArrayInputStream(fingerprint.getBytes(StandardCharsets.UTF_8)), source);
+            }
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(file.toPath()))) {
+                if (offset > 0) {
+                    in.skipNBytes(offset);
+                    session.append(in, partial);
+                } else {
+                    session.write(in, partial);
+                }
+            }
+            if (session.exists(target)) {
+                session.remove(target);
+            }
+            session.rename(partial, target);
+            session.remove(source);
+        }
+    }
+
+    /**
+     * Upload files concurrently, up to one per pooled session
+     */
+    @Override
+    public void uploadAll(List<File> files) throws IOException {
+        List<Future<?>> futures = new ArrayList<>(files.size());
+        for (File file : files) {
+            futures.add(uploadExecutor.submit(() -> {
+                upload(file);
+                return null;
+            }));
+        }
+
+        List<String> failures = new ArrayList<>();
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                futures.get(i).get();
+            } catch (ExecutionException e) {
+                failures.add(files.get(i).getName() + ": " + e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted waiting for SFTP uploads", e);
+            }
+        }
+        if (!failures.isEmpty()) {
+            throw new IOException("SFTP upload failed for " + String.join(", ", failures));
+        }
+    }
+
+    /**
+     * Size, modification time and SHA-256 of the first {@link #FINGERPRINT_BYTES} of a source file
+     */
+    private static String fingerprint(File file) throws IOException {
+        byte[] head;
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            head = in.readNBytes(FINGERPRINT_BYTES);
+        }
+        try {
+            String hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(head));
+            return file.length() + " " + file.lastModified() + " " + hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Contents of a small remote file, or null if it does not exist
+     */
+    private static String readRemote(Session<SftpClient.DirEntry> session, String path) throws IOException {
+        if (!session.exists(path)) {
+            return null;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        session.read(path, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private long remoteSize(SftpClient client, String path) throws IOException {
+        try {
+            return client.stat(path).getSize();
+        } catch (SftpException e) {
+            if (e.getStatus() == SftpConstants.SSH_FX_NO_SUCH_FILE) {
+                return 0;
+            }
+            throw e;
+        }
+    }
+
+    private void ensureRemoteDir(Session<SftpClient.DirEntry> session) throws IOException {
+        if (!remoteDir.isEmpty() && !"/".equals(remoteDir) && !session.exists(remoteDir)) {
+            try {
+                session.mkdir(remoteDir);
+            } catch (IOException e) {
+                // Another upload may have created it concurrently
+                if (!session.exists(remoteDir)) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private String remotePath(String fileName) {
+        return remoteDir.endsWith("/") ? remoteDir + fileName : remoteDir + "/" + fileName;
+    }
+}
@@ -0,0 +1,102 @@
+package com.zikan.salary.service;
+
+import com.zikan.salary.model.SalaryTransaction;
+import com.zikan.salary.repository.SalaryTransactionRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Stores per-employee payment results in salary_transactions.
+ *
+ * Rows are inserted through the persistence context in JDBC batches of
+ * hibernate.jdbc.batch_size (ids come from a pooled sequence, so Hibernate can
+ * batch them), flushing and clearing every batch so memory stays flat. Status
+ * updates only touch the rows whose status actually changed.
+ */
+@Service
+public class TransactionStatusService {
+
+    private final SalaryTransactionRepository repository;
+    private final EntityManager entityManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:500}")
+    private int batchSize;
+
+    public TransactionStatusService(SalaryTransactionRepository repository, EntityManager entityManager) {
+        this.repository = repository;
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Insert the results of a freshly submitted batch
+     */
+    @Transactional
+    public void recordAll(String salaryBatchId, List<InfosysIntegrationService.TransactionStatus> statuses) {
+        if (statuses == null) {
+            return;
+        }
+        int pending = 0;
+        for (InfosysIntegrationService.TransactionStatus status : statuses) {
+            SalaryTransaction txn = new SalaryTransaction(salaryBatchId, status.getEmployeeId(), status.getAccountNumber());
+            copy(status, txn);
+            entityManager.persist(txn);
+            if (++pending == batchSize) {
+                entityManager.flush();
+                entityManager.clear();
+                pending = 0;
+            }
+        }
+    }
+
+    /**
+     * Apply status changes reported for a batch. Returns the number of rows changed or added.
+     */
+    @Transactional
+    public int applyUpdates(String salaryBatchId, List<InfosysIntegrationService.TransactionStatus> statuses) {
+        if (statuses == null || statuses.isEmpty()) {
+            return 0;
+        }
+        int changed = 0;
+        for (int from = 0; from < statuses.size(); from += batchSize) {
+            List<InfosysIntegrationService.TransactionStatus> slice =
+                    statuses.subList(from, Math.min(statuses.size(), from + batchSize));
+            Map<String, InfosysIntegrationService.TransactionStatus> byEmployee = new HashMap<>(slice.size() * 2);
+            for (InfosysIntegrationService.TransactionStatus status : slice) {
+                byEmployee.put(status.getEmployeeId(), status);
+            }
+
+            for (SalaryTransaction txn : repository.findBySalaryBatchIdAndEmployeeIdIn(salaryBatchId, byEmployee.keySet())) {
+                InfosysIntegrationService.TransactionStatus status = byEmployee.remove(txn.getEmployeeId());
+                if (!Objects.equals(txn.getStatus(), status.getStatus())
+                        || !Objects.equals(txn.getErrorCode(), status.getErrorCode())) {
+                    copy(status, txn);
+                    changed++;
+                }
+            }
+            for (InfosysIntegrationService.TransactionStatus status : byEmployee.values()) {
+                SalaryTransaction txn = new SalaryTransaction(salaryBatchId, status.getEmployeeId(), status.getAccountNumber());
+                copy(status, txn);
+                entityManager.persist(txn);
+                changed++;
+            }
+            entityManager.flush();
+            entityManager.clear();
+        }
+        return changed;
+    }
+
+    private static void copy(InfosysIntegrationService.TransactionStatus status, SalaryTransaction txn) {
+        txn.setStatus(status.getStatus());
+        txn.setErrorCode(status.getErrorCode());
+        txn.setErrorMessage(status.getErrorMessage());
+        txn.setUpdatedAt(Instant.now());
+    }
+}
@@ -0,0 +1,27 @@
+package com.zikan.salary.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Delivers encrypted batch files to the outbound destination.
+ * The active implementation is selected by {@code zikan.upload.transport}.
+ */
+public interface UploadTransport {
+
+    /**
+     * Upload a single file, throwing if it did not reach the destination
+     */
+    void upload(File file) throws IOException;
+
+    /**
+     * Upload several files. Implementations may run the uploads in parallel;
+     * the default uploads them one after the other.
+     */
+    default void uploadAll(List<File> files) throws IOException {
+        for (File file : files) {
+            upload(file);
+        }
+    }
+}
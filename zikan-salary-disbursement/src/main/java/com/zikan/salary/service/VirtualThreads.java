@@ -0,0 +1,40 @@
+package com.zikan.salary.service;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Supplier;
+
+/**
+ * Executors for the opt-in virtual-thread mode (spring.threads.virtual.enabled, the same
+ * switch Spring Boot uses for Tomcat). The Java 21 API is looked up reflectively so the
+ * default Java 17 build still compiles; on an older runtime the mode falls back to the
+ * platform-thread executor.
+ */
+final class VirtualThreads {
+
+    private VirtualThreads() { }
+
+    /**
+     * A virtual thread per task when {@code virtual} is set and the runtime supports it,
+     * otherwise the executor from {@code platform}
+     */
+    static ExecutorService executor(boolean virtual, String namePrefix, Supplier<ExecutorService> platform) {
+        if (!virtual) {
+            return platform.get();
+        }
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 1L);
+            ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            Method perTask = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) perTask.invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            System.err.println("Virtual threads need Java 21 (running " + Runtime.version().feature()
+                    + "); " + namePrefix + "* stays on platform threads");
+            return platform.get();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.zikan.salary.repository;
+
+import com.zikan.salary.model.SalaryAcknowledgement;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Set-based status updates on an in-memory H2 database
+ */
+@DataJpaTest
+class SalaryAcknowledgementRepositoryTest {
+
+    @Autowired
+    private SalaryAcknowledgementRepository repository;
+
+    @Test
+    void reconcileStatusAllOnlyMovesBatchesStillInTheOldStatus() {
+        repository.saveAll(List.of(
+                new SalaryAcknowledgement("SAL001", "PENDING", "Submitted"),
+                new SalaryAcknowledgement("SAL002", "PENDING", "Submitted"),
+                new SalaryAcknowledgement("SAL003", "QUEUED", "Submitted")));
+        Instant at = Instant.now();
+
+        int updated = repository.reconcileStatusAll(List.of("SAL001", "SAL002", "SAL003"), "PENDING", "PROCESSING",
+                "In progress", at);
+
+        assertThat(updated).isEqualTo(2);
+        SalaryAcknowledgement moved = repository.findBySalaryBatchId("SAL001");
+        assertThat(moved.getStatus()).isEqualTo("PROCESSING");
+        assertThat(moved.getMessage()).isEqualTo("In progress");
+        assertThat(moved.getStatusChangedAt()).isNotNull();
+        assertThat(moved.getVersion()).isEqualTo(1L);
+        assertThat(repository.findBySalaryBatchId("SAL003").getStatus()).isEqualTo("QUEUED");
+    }
+
+    @Test
+    void reconcileStatusAllKeepsTheMessageWhenCoreBankingSentNone() {
+        repository.save(new SalaryAcknowledgement("SAL004", "PENDING", "Submitted"));
+
+        repository.reconcileStatusAll(List.of("SAL004"), "PENDING", "SUCCESS", null, Instant.now());
+
+        SalaryAcknowledgement settled = repository.findBySalaryBatchId("SAL004");
+        assertThat(settled.getStatus()).isEqualTo("SUCCESS");
+        assertThat(settled.getMessage()).isEqualTo("Submitted");
+    }
+}
@@ -0,0 +1,171 @@
+package com.zikan.salary.service;
+
+import org.apache.sshd.server.session.ServerSession;
+import org.apache.sshd.sftp.server.FileHandle;
+import org.apache.sshd.sftp.server.SftpEventListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Acknowledgement files pushed to a client's drop on an embedded SSHD server
+ */
+class AcknowledgementDeliveryTest {
+
+    @TempDir
+    Path dir;
+
+    private final FailOnce failOnce = new FailOnce();
+    private TestSftpServer server;
+    private AcknowledgementDelivery delivery;
+    private Path remote;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        remote = dir.resolve("remote");
+        server = new TestSftpServer(remote, failOnce);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (delivery != null) {
+            delivery.shutdown();
+        }
+        server.close();
+    }
+
+    @Test
+    void acknowledgementsOfOneWindowShareASession() throws Exception {
+        start(300);
+        File first = ack("ACK_a_SAL1.csv", "first");
+        File second = ack("ACK_b_SAL2.csv", "second");
+        File third = ack("ACK_c_SAL3.csv", "third");
+
+        delivery.enqueue("acme", first);
+        delivery.enqueue("acme", second);
+        delivery.enqueue("acme", third);
+
+        assertThat(eventually(() -> pushed() == 3)).isTrue();
+        assertThat(delivery.getMetrics()).containsEntry("sessions", 1L).containsEntry("failedSessions", 0L);
+        assertThat(remoteFiles("acme")).containsExactlyInAnyOrder("ACK_a_SAL1.csv", "ACK_b_SAL2.csv", "ACK_c_SAL3.csv");
+        assertThat(remote.resolve("acknowledgements/acme/ACK_b_SAL2.csv")).hasContent("second");
+    }
+
+    @Test
+    void eachClientGetsItsOwnDirectory() throws Exception {
+        start(100);
+
+        delivery.enqueue("acme", ack("ACK_payroll_SAL1.csv", "acme"));
+        delivery.enqueue("globex", ack("ACK_payroll_SAL2.csv", "globex"));
+
+        assertThat(eventually(() -> pushed() == 2)).isTrue();
+        assertThat(remote.resolve("acknowledgements/acme/ACK_payroll_SAL1.csv")).hasContent("acme");
+        assertThat(remote.resolve("acknowledgements/globex/ACK_payroll_SAL2.csv")).hasContent("globex");
+        assertThat(remoteFiles("acme")).containsExactly("ACK_payroll_SAL1.csv");
+    }
+
+    @Test
+    void filesOfAFailedSessionAreRetried() throws Exception {
+        start(100);
+        failOnce.arm("ACK_b_SAL2.csv.part");
+
+        delivery.enqueue("acme", ack("ACK_a_SAL1.csv", "first"));
+        delivery.enqueue("acme", ack("ACK_b_SAL2.csv", "second"));
+        delivery.enqueue("acme", ack("ACK_c_SAL3.csv", "third"));
+
+        assertThat(eventually(() -> pushed() == 3)).isTrue();
+        assertThat(delivery.getMetrics()).containsEntry("failedSessions", 1L).containsEntry("sessions", 2L);
+        assertThat(remoteFiles("acme")).containsExactlyInAnyOrder("ACK_a_SAL1.csv", "ACK_b_SAL2.csv", "ACK_c_SAL3.csv");
+        assertThat(remote.resolve("acknowledgements/acme/ACK_b_SAL2.csv")).hasContent("second");
+    }
+
+    @Test
+    void shutdownSendsWhatIsStillQueued() throws Exception {
+        start(60_000);
+
+        delivery.enqueue("acme", ack("ACK_late_SAL9.csv", "late"));
+        delivery.shutdown();
+        delivery = null;
+
+        assertThat(remote.resolve("acknowledgements/acme/ACK_late_SAL9.csv")).hasContent("late");
+    }
+
+    private void start(long coalesceMs) {
+        delivery = new AcknowledgementDelivery();
+        ReflectionTestUtils.setField(delivery, "enabled", true);
+        ReflectionTestUtils.setField(delivery, "host", "localhost");
+        ReflectionTestUtils.setField(delivery, "port", server.getPort());
+        ReflectionTestUtils.setField(delivery, "username", TestSftpServer.USER);
+        ReflectionTestUtils.setField(delivery, "password", TestSftpServer.PASSWORD);
+        ReflectionTestUtils.setField(delivery, "privateKeyPath", "");
+        ReflectionTestUtils.setField(delivery, "knownHostsPath", "");
+        ReflectionTestUtils.setField(delivery, "allowUnknownKeys", true);
+        ReflectionTestUtils.setField(delivery, "remoteDir", "/acknowledgements");
+        ReflectionTestUtils.setField(delivery, "coalesceMs", coalesceMs);
+        ReflectionTestUtils.setField(delivery, "maxAttempts", 3);
+        delivery.init();
+    }
+
+    private File ack(String name, String content) throws IOException {
+        Path file = dir.resolve("local").resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+        return file.toFile();
+    }
+
+    private long pushed() {
+        Map<String, Object> metrics = delivery.getMetrics();
+        return (Long) metrics.get("filesPushed");
+    }
+
+    private Stream<String> remoteFiles(String client) throws IOException {
+        try (Stream<Path> files = Files.list(remote.resolve("acknowledgements").resolve(client))) {
+            return files.map(p -> p.getFileName().toString()).toList().stream();
+        }
+    }
+
+    private static boolean eventually(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < deadline) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            Thread.sleep(50);
+        }
+        return condition.getAsBoolean();
+    }
+
+    /**
+     * Refuses the first write to one file name, like a connection dropped mid-session
+     */
+    private static final class FailOnce implements SftpEventListener {
+        private volatile String fileName;
+        private final AtomicBoolean failed = new AtomicBoolean();
+
+        void arm(String fileName) {
+            this.fileName = fileName;
+        }
+
+        @Override
+        public void writing(ServerSession session, String remoteHandle, FileHandle localHandle,
+                            long offset, byte[] data, int dataOffset, int dataLen) throws IOException {
+            if (localHandle.getFile().getFileName().toString().equals(fileName) && failed.compareAndSet(false, true)) {
+                throw new IOException("Connection dropped");
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.zikan.salary.service;
+
+import com.zikan.salary.model.SalaryRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Duplicate detection over one batch: {@link BatchIntegrityCheck} (IDs and account numbers
+ * packed into open-addressing long sets) vs a {@code HashSet<String>} per field. Scores are
+ * records/s; run with {@code -prof gc} for the bytes allocated per record
+ * ({@code gc.alloc.rate.norm}), which for both is the sets' own memory since the strings
+ * already exist in the parsed records. The records are reused across invocations, so the
+ * baseline's strings have their hash codes cached; parsed fresh from a file they would not.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+@OperationsPerInvocation(BatchIntegrityBenchmark.RECORDS)
+public class BatchIntegrityBenchmark {
+
+    static final int RECORDS = 1_000_000;
+    private static final int CHUNK_SIZE = 8192; // zikan.validation.chunkSize default
+
+    @State(Scope.Benchmark)
+    public static class Batch {
+
+        /** Sized for the whole batch up front, or grown from the validation chunk size as FileValidationService does */
+        @Param({"true", "false"})
+        boolean presized;
+
+        SalaryRequest.Employee[] employees;
+
+        @Setup(Level.Trial)
+        public void generate() {
+            employees = SyntheticPayroll.employees(RECORDS).toArray(new SalaryRequest.Employee[0]);
+        }
+    }
+
+    @Benchmark
+    public BatchIntegrityCheck longHashSet(Batch batch) {
+        BatchIntegrityCheck check = new BatchIntegrityCheck(batch.presized ? RECORDS : CHUNK_SIZE);
+        List<String> errors = new ArrayList<>();
+        SalaryRequest.Employee[] employees = batch.employees;
+        for (int i = 0; i < employees.length; i++) {
+            check.accept(employees[i], i + 1, errors);
+        }
+        if (!errors.isEmpty()) {
+            throw new IllegalStateException(errors.get(0));
+        }
+        return check;
+    }
+
+    @Benchmark
+    public long hashSetOfStrings(Batch batch) {
+        int expected = batch.presized ? RECORDS : CHUNK_SIZE;
+        Set<String> employeeIds = new HashSet<>(expected * 4 / 3 + 1);
+        Set<String> accountNumbers = new HashSet<>(expected * 4 / 3 + 1);
+        List<String> errors = new ArrayList<>();
+        long total = 0;
+        SalaryRequest.Employee[] employees = batch.employees;
+        for (int i = 0; i < employees.length; i++) {
+            SalaryRequest.Employee employee = employees[i];
+            if (!employeeIds.add(employee.getEmployeeId())) {
+                errors.add("Record " + (i + 1) + ": Duplicate employee ID " + employee.getEmployeeId());
+            }
+            if (!accountNumbers.add(employee.getAccountNumber())) {
+                errors.add("Record " + (i + 1) + ": Duplicate account number " + employee.getAccountNumber());
+            }
+            total = Math.addExact(total, employee.getAmount());
+        }
+        if (!errors.isEmpty()) {
+            throw new IllegalStateException(errors.get(0));
+        }
+        return total + employeeIds.size() + accountNumbers.size();
+    }
+}
@@ -0,0 +1,128 @@
+package com.zikan.salary.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zikan.salary.model.SalaryRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Journaling batches and recovering the unfinished ones when the journal is reopened
+ */
+class BatchJournalTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path dir;
+
+    private BatchJournal journal;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    @Test
+    void unfinishedBatchesAreRecoveredAtTheirLastStage() throws IOException {
+        journal = open();
+        journal.accept(SyntheticPayroll.request("SAL001", 3));
+        journal.record("SAL001", BatchJournal.Stage.GENERATED, "/work/salary_batch_SAL001.csv");
+        journal.accept(SyntheticPayroll.request("SAL002", 3));
+        journal.record("SAL002", BatchJournal.Stage.ACKNOWLEDGED, "SUCCESS");
+        reopen();
+
+        List<BatchJournal.Recovered> recovered = journal.takeRecovered();
+        assertThat(recovered).singleElement().satisfies(r -> {
+            assertThat(r.batchId()).isEqualTo("SAL001");
+            assertThat(r.stage()).isEqualTo(BatchJournal.Stage.GENERATED);
+            assertThat(r.data()).isEqualTo("/work/salary_batch_SAL001.csv");
+            assertThat(r.request(objectMapper).getEmployees()).hasSize(3);
+        });
+    }
+
+    @Test
+    void payrollLargerThanASegmentIsAcceptedAndRecovered() throws IOException {
+        journal = open(); // 1 MB segments
+        SalaryRequest large = SyntheticPayroll.request("SAL003", 50_000); // About 5 MB as JSON
+        journal.accept(large);
+        reopen();
+
+        SalaryRequest recovered = journal.takeRecovered().get(0).request(objectMapper);
+        assertThat(recovered.getEmployees()).hasSize(50_000);
+        assertThat(recovered.getEmployees().get(49_999).getAccountNumber())
+                .isEqualTo(large.getEmployees().get(49_999).getAccountNumber());
+    }
+
+    @Test
+    void requestFileIsDeletedOnceTheBatchHasFinished() throws Exception {
+        journal = open();
+        journal.accept(SyntheticPayroll.request("SAL004", 3));
+        assertThat(requestFiles()).hasSize(1);
+
+        journal.record("SAL004", BatchJournal.Stage.FAILED, "Upload refused");
+
+        assertThat(eventually(() -> requestFiles().isEmpty())).isTrue();
+    }
+
+    @Test
+    void requestFilesNoBatchNeedsAreRemovedOnStartup() throws IOException {
+        Files.createDirectories(dir.resolve("requests"));
+        Files.writeString(dir.resolve("requests/left-by-a-crash.json"), "{}");
+        journal = open();
+        journal.accept(SyntheticPayroll.request("SAL005", 3));
+        reopen();
+
+        assertThat(requestFiles()).hasSize(1);
+        assertThat(journal.takeRecovered()).extracting(BatchJournal.Recovered::batchId).containsExactly("SAL005");
+    }
+
+    private BatchJournal open() throws IOException {
+        BatchJournal opened = new BatchJournal(objectMapper);
+        ReflectionTestUtils.setField(opened, "enabled", true);
+        ReflectionTestUtils.setField(opened, "dir", dir.toString());
+        ReflectionTestUtils.setField(opened, "segmentSizeMb", 1);
+        ReflectionTestUtils.setField(opened, "flushIntervalMs", 2L);
+        ReflectionTestUtils.setField(opened, "syncOnAccept", true);
+        ReflectionTestUtils.setField(opened, "syncTimeoutMs", 5000L);
+        opened.open();
+        return opened;
+    }
+
+    private void reopen() throws IOException {
+        journal.close();
+        journal = open();
+    }
+
+    private List<Path> requestFiles() {
+        try (Stream<Path> files = Files.list(dir.resolve("requests"))) {
+            return files.toList();
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static boolean eventually(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            Thread.sleep(20);
+        }
+        return condition.getAsBoolean();
+    }
+}
@@ -0,0 +1,100 @@
+package com.zikan.salary.service;
+
+import com.zikan.salary.model.SalaryRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Records/s through the field rules of {@link EmployeeRecordValidator} (compiled character
+ * classes) vs the {@link Pattern} checks they replaced, on 10k records of which
+ * {@code invalidPercent} have a bad account number. Run with {@code -prof gc} to see
+ * that a valid record costs no allocation on the compiled path.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@OperationsPerInvocation(EmployeeValidationBenchmark.RECORDS)
+public class EmployeeValidationBenchmark {
+
+    static final int RECORDS = 10_000;
+
+    private static final Pattern ACCOUNT_NUMBER_PATTERN = Pattern.compile("^[0-9]{10}$");
+    private static final Pattern BANK_CODE_PATTERN = Pattern.compile("^[0-9]{3}$");
+    private static final Pattern EMPLOYEE_ID_PATTERN = Pattern.compile("^[A-Z0-9]{6,10}$");
+
+    @State(Scope.Benchmark)
+    public static class Records {
+
+        @Param({"0", "10"})
+        int invalidPercent;
+
+        SalaryRequest.Employee[] employees;
+
+        @Setup(Level.Trial)
+        public void generate() {
+            employees = SyntheticPayroll.employees(RECORDS).toArray(new SalaryRequest.Employee[0]);
+            if (invalidPercent > 0) {
+                for (int i = 0; i < RECORDS; i += 100 / invalidPercent) {
+                    employees[i].setAccountNumber("12345");
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public List<String> compiledRules(Records records) {
+        List<String> errors = new ArrayList<>();
+        SalaryRequest.Employee[] employees = records.employees;
+        for (int i = 0; i < employees.length; i++) {
+            EmployeeRecordValidator.validate(employees[i], i + 1, errors);
+        }
+        return errors;
+    }
+
+    @Benchmark
+    public List<String> regex(Records records) {
+        List<String> errors = new ArrayList<>();
+        SalaryRequest.Employee[] employees = records.employees;
+        for (int i = 0; i < employees.length; i++) {
+            validateWithPatterns(employees[i], i + 1, errors);
+        }
+        return errors;
+    }
+
+    /** The per-record checks as FileValidationService made them before the compiled rules */
+    private static void validateWithPatterns(SalaryRequest.Employee employee, int recordNumber, List<String> errors) {
+        if (employee.getEmployeeId() == null || !EMPLOYEE_ID_PATTERN.matcher(employee.getEmployeeId()).matches()) {
+            errors.add("Record " + recordNumber + ": Invalid employee ID format");
+        }
+        if (employee.getName() == null || employee.getName().trim().isEmpty()) {
+            errors.add("Record " + recordNumber + ": Employee name is required");
+        }
+        if (employee.getAccountNumber() == null || !ACCOUNT_NUMBER_PATTERN.matcher(employee.getAccountNumber()).matches()) {
+            errors.add("Record " + recordNumber + ": Invalid account number format (must be 10 digits)");
+        }
+        if (employee.getBankCode() == null || !BANK_CODE_PATTERN.matcher(employee.getBankCode()).matches()) {
+            errors.add("Record " + recordNumber + ": Invalid bank code format (must be 3 digits)");
+        }
+        if (employee.getAmount() <= 0) {
+            errors.add("Record " + recordNumber + ": Amount must be greater than 0");
+        }
+        if (employee.getAmount() > EmployeeRecordValidator.MAX_AMOUNT) {
+            errors.add("Record " + recordNumber + ": Amount exceeds maximum limit");
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.zikan.salary.service;
+
+import org.bouncycastle.bcpg.ArmoredOutputStream;
+import org.bouncycastle.bcpg.HashAlgorithmTags;
+import org.bouncycastle.bcpg.PublicKeyAlgorithmTags;
+import org.bouncycastle.crypto.generators.RSAKeyPairGenerator;
+import org.bouncycastle.crypto.params.RSAKeyGenerationParameters;
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPKeyRingGenerator;
+import org.bouncycastle.openpgp.PGPSignature;
+import org.bouncycastle.openpgp.operator.bc.BcPGPContentSignerBuilder;
+import org.bouncycastle.openpgp.operator.bc.BcPGPDigestCalculatorProvider;
+import org.bouncycastle.openpgp.operator.bc.BcPGPKeyPair;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.util.Date;
+import java.util.stream.Stream;
+
+/**
+ * Batches/s that {@link GpgService} encrypts for one recipient key, spawning the gpg CLI
+ * per file ({@code mode=cli}, needs gpg 2.1.14 or later on PATH) vs in-process Bouncy Castle
+ * with the parsed key cached ({@code mode=native}), for payroll files of 1k and 100k rows.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class GpgEncryptionBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Batch {
+
+        @Param({"cli", "native"})
+        String mode;
+
+        @Param({"1000", "100000"})
+        int rows;
+
+        Path dir;
+        File input;
+        File publicKey;
+        GpgService gpg;
+
+        @Setup(Level.Trial)
+        public void write() throws IOException, PGPException {
+            dir = Files.createTempDirectory("gpg-bench");
+            input = SyntheticPayroll.csv(dir.resolve("SAL001.csv"), "SAL001", rows).toFile();
+            publicKey = writePublicKey(dir.resolve("bank.asc"));
+
+            gpg = new GpgService();
+            ReflectionTestUtils.setField(gpg, "mode", mode);
+        }
+
+        @TearDown(Level.Trial)
+        public void delete() throws IOException {
+            try (Stream<Path> paths = Files.walk(dir)) {
+                paths.sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+
+    @Benchmark
+    public File encryptFile(Batch batch) throws IOException, InterruptedException {
+        return batch.gpg.encryptFile(batch.input, batch.publicKey);
+    }
+
+    private static File writePublicKey(Path path) throws IOException, PGPException {
+        RSAKeyPairGenerator generator = new RSAKeyPairGenerator();
+        generator.init(new RSAKeyGenerationParameters(BigInteger.valueOf(0x10001), new SecureRandom(), 2048, 12));
+        PGPKeyRingGenerator rings = new PGPKeyRingGenerator(PGPSignature.POSITIVE_CERTIFICATION,
+                new BcPGPKeyPair(PublicKeyAlgorithmTags.RSA_GENERAL, generator.generateKeyPair(), new Date()),
+                "Benchmark Bank <keys@bank.test>", new BcPGPDigestCalculatorProvider().get(HashAlgorithmTags.SHA1),
+                null, null, new BcPGPContentSignerBuilder(PublicKeyAlgorithmTags.RSA_GENERAL, HashAlgorithmTags.SHA256),
+                null);
+        try (OutputStream out = new ArmoredOutputStream(Files.newOutputStream(path))) {
+            rings.generatePublicKeyRing().encode(out);
+        }
+        return path.toFile();
+    }
+}
@@ -0,0 +1,224 @@
+package com.zikan.salary.service;
+
+import org.bouncycastle.bcpg.ArmoredOutputStream;
+import org.bouncycastle.bcpg.HashAlgorithmTags;
+import org.bouncycastle.bcpg.PublicKeyAlgorithmTags;
+import org.bouncycastle.bcpg.sig.KeyFlags;
+import org.bouncycastle.crypto.generators.RSAKeyPairGenerator;
+import org.bouncycastle.crypto.params.RSAKeyGenerationParameters;
+import org.bouncycastle.openpgp.PGPCompressedData;
+import org.bouncycastle.openpgp.PGPEncryptedDataList;
+import org.bouncycastle.openpgp.PGPKeyPair;
+import org.bouncycastle.openpgp.PGPKeyRingGenerator;
+import org.bouncycastle.openpgp.PGPLiteralData;
+import org.bouncycastle.openpgp.PGPPublicKeyEncryptedData;
+import org.bouncycastle.openpgp.PGPSignature;
+import org.bouncycastle.openpgp.PGPSignatureSubpacketGenerator;
+import org.bouncycastle.openpgp.PGPUtil;
+import org.bouncycastle.openpgp.bc.BcPGPObjectFactory;
+import org.bouncycastle.openpgp.operator.bc.BcPGPContentSignerBuilder;
+import org.bouncycastle.openpgp.operator.bc.BcPGPDigestCalculatorProvider;
+import org.bouncycastle.openpgp.operator.bc.BcPGPKeyPair;
+import org.bouncycastle.openpgp.operator.bc.BcPublicKeyDataDecryptorFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Native (Bouncy Castle) mode: what GpgService encrypts must decrypt with the recipient's private key,
+ * and only a usable encryption key of the recipient is picked
+ */
+class GpgServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private GpgService gpg;
+
+    @BeforeEach
+    void setUp() {
+        gpg = new GpgService();
+        ReflectionTestUtils.setField(gpg, "mode", "native");
+    }
+
+    @Test
+    void encryptedFileDecryptsToTheOriginal() throws Exception {
+        PGPKeyPair key = generateKey();
+        File publicKey = writePublicKey(key, dir.resolve("public.asc"));
+        File input = dir.resolve("SAL001.csv").toFile();
+        Files.writeString(input.toPath(), "employeeId,name,accountNumber,bankCode,amount\nEMP001,John Doe,1111222233,001,500000\n");
+
+        File encrypted = gpg.encryptFile(input, publicKey);
+
+        assertThat(encrypted.getName()).isEqualTo("SAL001.csv.gpg");
+        Decrypted decrypted = decrypt(encrypted, key);
+        assertThat(decrypted.content()).isEqualTo(Files.readAllBytes(input.toPath()));
+        assertThat(decrypted.fileName()).isEqualTo("SAL001.csv");
+        assertThat(decrypted.integrityVerified()).isTrue();
+    }
+
+    @Test
+    void streamedPayloadLargerThanTheBufferRoundTrips() throws Exception {
+        PGPKeyPair key = generateKey();
+        File publicKey = writePublicKey(key, dir.resolve("public.asc"));
+        byte[] payload = new byte[1024 * 1024 + 17];
+        new Random(42).nextBytes(payload);
+
+        File encrypted = dir.resolve("stream.gpg").toFile();
+        try (OutputStream out = gpg.openEncryptedStream(Files.newOutputStream(encrypted.toPath()), publicKey, "stream.csv")) {
+            for (int off = 0; off < payload.length; off += 1000) {
+                out.write(payload, off, Math.min(1000, payload.length - off));
+            }
+        }
+
+        Decrypted decrypted = decrypt(encrypted, key);
+        assertThat(decrypted.content()).isEqualTo(payload);
+        assertThat(decrypted.integrityVerified()).isTrue();
+    }
+
+    @Test
+    void replacedKeyFileIsReadAgain() throws Exception {
+        File publicKey = dir.resolve("public.asc").toFile();
+        File input = dir.resolve("batch.csv").toFile();
+        Files.writeString(input.toPath(), "rotated", StandardCharsets.UTF_8);
+
+        PGPKeyPair oldKey = generateKey();
+        writePublicKey(oldKey, publicKey.toPath());
+        gpg.encryptFile(input, publicKey);
+
+        PGPKeyPair newKey = generateKey();
+        writePublicKey(newKey, publicKey.toPath());
+        assertThat(publicKey.setLastModified(publicKey.lastModified() + 2000)).isTrue();
+        File encrypted = gpg.encryptFile(input, publicKey);
+
+        assertThat(decrypt(encrypted, newKey).content()).isEqualTo("rotated".getBytes(StandardCharsets.UTF_8));
+        assertThatThrownBy(() -> decrypt(encrypted, oldKey)).isInstanceOf(Exception.class);
+    }
+
+    @Test
+    void encryptsToTheEncryptionSubkeyNotTheSigningPrimary() throws Exception {
+        PGPKeyPair primary = generateKey(daysAgo(0));
+        PGPKeyPair subkey = generateKey(daysAgo(0));
+        File publicKey = writePublicKey(dir.resolve("public.asc"), primary, KeyFlags.CERTIFY_OTHER | KeyFlags.SIGN_DATA,
+                new Subkey(subkey, KeyFlags.ENCRYPT_COMMS | KeyFlags.ENCRYPT_STORAGE, 0));
+        File input = dir.resolve("SAL002.csv").toFile();
+        Files.writeString(input.toPath(), "subkey", StandardCharsets.UTF_8);
+
+        File encrypted = gpg.encryptFile(input, publicKey);
+
+        assertThat(decrypt(encrypted, subkey).content()).isEqualTo("subkey".getBytes(StandardCharsets.UTF_8));
+        assertThatThrownBy(() -> decrypt(encrypted, primary)).isInstanceOf(Exception.class);
+    }
+
+    @Test
+    void expiredSubkeyIsPassedOverForAnOlderValidOne() throws Exception {
+        PGPKeyPair primary = generateKey(daysAgo(10));
+        PGPKeyPair valid = generateKey(daysAgo(5));
+        PGPKeyPair expired = generateKey(daysAgo(2)); // Newer, but valid for one day only
+        File publicKey = writePublicKey(dir.resolve("public.asc"), primary, KeyFlags.CERTIFY_OTHER | KeyFlags.SIGN_DATA,
+                new Subkey(valid, KeyFlags.ENCRYPT_COMMS, 0),
+                new Subkey(expired, KeyFlags.ENCRYPT_COMMS, 24 * 3600));
+        File input = dir.resolve("SAL003.csv").toFile();
+        Files.writeString(input.toPath(), "valid", StandardCharsets.UTF_8);
+
+        File encrypted = gpg.encryptFile(input, publicKey);
+
+        assertThat(decrypt(encrypted, valid).content()).isEqualTo("valid".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void keyWhoseOnlyEncryptionSubkeyExpiredIsRejected() throws Exception {
+        PGPKeyPair primary = generateKey(daysAgo(10));
+        File publicKey = writePublicKey(dir.resolve("public.asc"), primary, KeyFlags.CERTIFY_OTHER | KeyFlags.SIGN_DATA,
+                new Subkey(generateKey(daysAgo(2)), KeyFlags.ENCRYPT_COMMS, 24 * 3600));
+        File input = dir.resolve("SAL004.csv").toFile();
+        Files.writeString(input.toPath(), "expired", StandardCharsets.UTF_8);
+
+        assertThatThrownBy(() -> gpg.encryptFile(input, publicKey))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("revoked or expired");
+    }
+
+    private static PGPKeyPair generateKey() throws Exception {
+        return generateKey(new Date());
+    }
+
+    private static PGPKeyPair generateKey(Date created) throws Exception {
+        RSAKeyPairGenerator generator = new RSAKeyPairGenerator();
+        generator.init(new RSAKeyGenerationParameters(BigInteger.valueOf(0x10001), new SecureRandom(), 2048, 12));
+        return new BcPGPKeyPair(PublicKeyAlgorithmTags.RSA_GENERAL, generator.generateKeyPair(), created);
+    }
+
+    private static Date daysAgo(int days) {
+        return new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(days));
+    }
+
+    private static File writePublicKey(PGPKeyPair key, Path path) throws Exception {
+        PGPKeyRingGenerator rings = new PGPKeyRingGenerator(PGPSignature.POSITIVE_CERTIFICATION, key,
+                "Test Bank <keys@bank.test>", new BcPGPDigestCalculatorProvider().get(HashAlgorithmTags.SHA1),
+                null, null, new BcPGPContentSignerBuilder(PublicKeyAlgorithmTags.RSA_GENERAL, HashAlgorithmTags.SHA256),
+                null);
+        try (OutputStream out = new ArmoredOutputStream(Files.newOutputStream(path))) {
+            rings.generatePublicKeyRing().encode(out);
+        }
+        return path.toFile();
+    }
+
+    /** A key ring whose primary key carries {@code primaryFlags}, with the given subkeys bound to it */
+    private static File writePublicKey(Path path, PGPKeyPair primary, int primaryFlags, Subkey... subkeys) throws Exception {
+        PGPSignatureSubpacketGenerator primaryPackets = new PGPSignatureSubpacketGenerator();
+        primaryPackets.setKeyFlags(false, primaryFlags);
+        PGPKeyRingGenerator rings = new PGPKeyRingGenerator(PGPSignature.POSITIVE_CERTIFICATION, primary,
+                "Test Bank <keys@bank.test>", new BcPGPDigestCalculatorProvider().get(HashAlgorithmTags.SHA1),
+                primaryPackets.generate(), null,
+                new BcPGPContentSignerBuilder(PublicKeyAlgorithmTags.RSA_GENERAL, HashAlgorithmTags.SHA256), null);
+        for (Subkey subkey : subkeys) {
+            PGPSignatureSubpacketGenerator packets = new PGPSignatureSubpacketGenerator();
+            packets.setKeyFlags(false, subkey.flags());
+            if (subkey.validSeconds() > 0) {
+                packets.setKeyExpirationTime(false, subkey.validSeconds());
+            }
+            rings.addSubKey(subkey.key(), packets.generate(), null);
+        }
+        try (OutputStream out = new ArmoredOutputStream(Files.newOutputStream(path))) {
+            rings.generatePublicKeyRing().encode(out);
+        }
+        return path.toFile();
+    }
+
+    private record Subkey(PGPKeyPair key, int flags, long validSeconds) { }
+
+    private static Decrypted decrypt(File encrypted, PGPKeyPair key) throws Exception {
+        try (InputStream in = PGPUtil.getDecoderStream(Files.newInputStream(encrypted.toPath()))) {
+            PGPEncryptedDataList list = (PGPEncryptedDataList) new BcPGPObjectFactory(in).nextObject();
+            PGPPublicKeyEncryptedData data = (PGPPublicKeyEncryptedData) list.get(0);
+            InputStream clear = data.getDataStream(new BcPublicKeyDataDecryptorFactory(key.getPrivateKey()));
+            PGPCompressedData compressed = (PGPCompressedData) new BcPGPObjectFactory(clear).nextObject();
+            PGPLiteralData literal = (PGPLiteralData) new BcPGPObjectFactory(compressed.getDataStream()).nextObject();
+
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            literal.getInputStream().transferTo(content);
+            return new Decrypted(content.toByteArray(), literal.getFileName(), data.verify());
+        }
+    }
+
+    private record Decrypted(byte[] content, String fileName, boolean integrityVerified) { }
+}
@@ -0,0 +1,188 @@
+package com.zikan.salary.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zikan.salary.model.SalaryRequest;
+import com.zikan.salary.repository.PaymentCheckpointRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Chunked submission against a stub Infosys payment endpoint
+ */
+class InfosysIntegrationServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final StubInfosys infosys = new StubInfosys(objectMapper);
+    private final ClientRateLimiter rateLimiter = new ClientRateLimiter();
+    private InfosysHttpClient httpClient;
+    private InfosysIntegrationService service;
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.shutdown();
+        }
+        infosys.stop();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"blocking", "async"})
+    void largeBatchIsSentInChunksAndEveryRecordPaidOnce(String clientMode) throws IOException {
+        start(clientMode, 1000, 4, "");
+
+        InfosysIntegrationService.InfosysResponse result = service.processSalaryBatch(batch("SAL100", 2500), null);
+
+        assertThat(result.getStatus()).isEqualTo("SUCCESS");
+        assertThat(result.getTransactionStatuses()).hasSize(2500);
+        assertThat(infosys.chunkNumbers).containsExactlyInAnyOrder(1, 2, 3);
+        assertThat(infosys.totalChunks).containsOnly(3);
+        assertThat(infosys.paidKeys).hasSize(2500);
+        assertThat(infosys.duplicatePayments.get()).isZero();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"blocking", "async"})
+    void chunksInFlightStayWithinMaxInFlightAcrossBatches(String clientMode) throws Exception {
+        infosys.delayMs = 50;
+        start(clientMode, 100, 2, "");
+
+        ExecutorService callers = Executors.newFixedThreadPool(3);
+        try {
+            List<CompletableFuture<InfosysIntegrationService.InfosysResponse>> batches = new ArrayList<>();
+            for (int b = 0; b < 3; b++) {
+                String batchId = "SAL20" + b;
+                batches.add(CompletableFuture.supplyAsync(() -> service.processSalaryBatch(batch(batchId, 1000), null), callers));
+            }
+            for (CompletableFuture<InfosysIntegrationService.InfosysResponse> batch : batches) {
+                assertThat(batch.get(30, TimeUnit.SECONDS).getStatus()).isEqualTo("SUCCESS");
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        assertThat(infosys.posts.get()).isEqualTo(30);
+        assertThat(infosys.maxConcurrent.get()).isBetween(1, 2);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"blocking", "async"})
+    void unchunkedBatchesAlsoStayWithinMaxInFlight(String clientMode) throws Exception {
+        infosys.delayMs = 100;
+        start(clientMode, 0, 2, "");
+
+        ExecutorService callers = Executors.newFixedThreadPool(6);
+        try {
+            List<CompletableFuture<InfosysIntegrationService.InfosysResponse>> batches = new ArrayList<>();
+            for (int b = 0; b < 6; b++) {
+                String batchId = "SAL25" + b;
+                batches.add(CompletableFuture.supplyAsync(() -> service.processSalaryBatch(batch(batchId, 10), null), callers));
+            }
+            for (CompletableFuture<InfosysIntegrationService.InfosysResponse> batch : batches) {
+                assertThat(batch.get(30, TimeUnit.SECONDS).getStatus()).isEqualTo("SUCCESS");
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        assertThat(infosys.posts.get()).isEqualTo(6);
+        assertThat(infosys.maxConcurrent.get()).isBetween(1, 2);
+    }
+
+    @Test
+    void retriedChunkIsChargedToTheRateLimitOnce() throws IOException {
+        infosys.failFirstAttemptOfChunk = 2;
+        start("async", 1000, 4, "acme:1000000");
+
+        InfosysIntegrationService.InfosysResponse result = service.processSalaryBatch(batch("SAL300", 2500), "acme");
+
+        assertThat(result.getStatus()).isEqualTo("SUCCESS");
+        assertThat(infosys.posts.get()).isEqualTo(4);
+        assertThat(infosys.paidKeys).hasSize(2500);
+        assertThat(recordsCharged("acme")).isEqualTo(2500);
+    }
+
+    @Test
+    void chunkThatKeepsFailingLeavesTheBatchPartial() throws IOException {
+        infosys.alwaysFailChunk = 3;
+        start("blocking", 1000, 4, "");
+
+        InfosysIntegrationService.InfosysResponse result = service.processSalaryBatch(batch("SAL400", 2500), null);
+
+        assertThat(result.getStatus()).isEqualTo("PARTIAL");
+        assertThat(result.getTransactionStatuses())
+                .filteredOn(s -> "FAILED".equals(s.getStatus()))
+                .hasSize(500)
+                .allSatisfy(s -> assertThat(Integer.parseInt(s.getEmployeeId().substring(3))).isGreaterThanOrEqualTo(2000));
+        assertThat(result.getMessage()).contains("2000 of 2500 records accepted");
+        assertThat(infosys.posts.get()).isEqualTo(2 + 3); // Chunk 3 tried once plus chunkRetries times
+    }
+
+    private void start(String clientMode, int chunkSize, int maxInFlight, String clientRates) throws IOException {
+        infosys.start();
+
+        ReflectionTestUtils.setField(rateLimiter, "defaultRate", 0.0);
+        ReflectionTestUtils.setField(rateLimiter, "clientRates", clientRates);
+        ReflectionTestUtils.setField(rateLimiter, "burstSeconds", 1.0);
+        ReflectionTestUtils.invokeMethod(rateLimiter, "init");
+
+        httpClient = new InfosysHttpClient(objectMapper);
+        ReflectionTestUtils.setField(httpClient, "infosysBaseUrl", infosys.baseUrl());
+        ReflectionTestUtils.setField(httpClient, "timeout", 5000);
+        ReflectionTestUtils.setField(httpClient, "http2", false);
+        ReflectionTestUtils.invokeMethod(httpClient, "init");
+
+        InfosysTokenProvider tokenProvider = new InfosysTokenProvider(); // auth disabled: fixed token
+        PaymentCheckpointService checkpoints = new PaymentCheckpointService(mock(PaymentCheckpointRepository.class));
+
+        service = new InfosysIntegrationService(httpClient, tokenProvider, checkpoints, rateLimiter);
+        ReflectionTestUtils.setField(service, "infosysBaseUrl", infosys.baseUrl());
+        ReflectionTestUtils.setField(service, "timeout", 5000);
+        ReflectionTestUtils.setField(service, "chunkSize", chunkSize);
+        ReflectionTestUtils.setField(service, "maxInFlight", maxInFlight);
+        ReflectionTestUtils.setField(service, "chunkRetries", 2);
+        ReflectionTestUtils.setField(service, "chunkRetryBackoffMs", 10L);
+        ReflectionTestUtils.setField(service, "clientMode", clientMode);
+        service.init();
+    }
+
+    @SuppressWarnings("unchecked")
+    private long recordsCharged(String client) {
+        Map<String, Object> clients = (Map<String, Object>) rateLimiter.getMetrics().get("clients");
+        return (Long) ((Map<String, Object>) clients.get(client)).get("records");
+    }
+
+    private static SalaryRequest batch(String batchId, int records) {
+        SalaryRequest request = new SalaryRequest();
+        request.setSalaryBatchId(batchId);
+        request.setCompanyName("Zikan");
+        request.setCompanyAccount("1234567890");
+        request.setSalaryDate("2025-08-21");
+        List<SalaryRequest.Employee> employees = new ArrayList<>(records);
+        for (int i = 0; i < records; i++) {
+            SalaryRequest.Employee e = new SalaryRequest.Employee();
+            e.setEmployeeId(String.format("EMP%05d", i));
+            e.setName("Employee " + i);
+            e.setAccountNumber("1111222233");
+            e.setBankCode("001");
+            e.setAmount(1000 + i);
+            employees.add(e);
+        }
+        request.setEmployees(employees);
+        return request;
+    }
+}
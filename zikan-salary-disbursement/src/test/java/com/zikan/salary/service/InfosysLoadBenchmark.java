@@ -0,0 +1,138 @@
+package com.zikan.salary.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zikan.salary.model.SalaryRequest;
+import com.zikan.salary.repository.PaymentCheckpointRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Load test of {@link InfosysIntegrationService} against {@link StubInfosys}: 32 callers
+ * each submit a batch of {@code records} employees in chunks of {@code chunkSize}, and core
+ * banking answers every chunk after {@code latencyMs}. {@code throughput} is batches/s and
+ * {@code latency} the per-batch time with its percentiles (p0.99 is the p99), once with chunks
+ * sent from the fixed infosys-chunk pool ({@code virtual=false}) and once from a virtual thread
+ * each ({@code virtual=true}).
+ *
+ * The virtual runs need a Java 21 JVM, e.g. {@code -Dbenchmark="InfosysLoadBenchmark -jvm
+ * /path/to/jdk-21/bin/java"}; on Java 17 they fall back to the pool and match the platform runs.
+ */
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(32)
+public class InfosysLoadBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Target {
+
+        @Param({"false", "true"})
+        boolean virtual;
+
+        @Param({"16", "256"})
+        int maxInFlight;
+
+        @Param({"2000"})
+        int records;
+
+        @Param({"250"})
+        int chunkSize;
+
+        @Param({"20"})
+        long latencyMs;
+
+        final AtomicLong batches = new AtomicLong();
+        StubInfosys infosys;
+        InfosysIntegrationService service;
+        List<SalaryRequest.Employee> employees;
+
+        @Setup(Level.Trial)
+        public void start() throws IOException {
+            ObjectMapper objectMapper = new ObjectMapper();
+            infosys = new StubInfosys(objectMapper);
+            infosys.delayMs = latencyMs;
+            infosys.start();
+
+            InfosysHttpClient httpClient = new InfosysHttpClient(objectMapper);
+            ReflectionTestUtils.setField(httpClient, "infosysBaseUrl", infosys.baseUrl());
+            ReflectionTestUtils.setField(httpClient, "timeout", 30000);
+            ReflectionTestUtils.setField(httpClient, "http2", false);
+            ReflectionTestUtils.invokeMethod(httpClient, "init");
+
+            ClientRateLimiter rateLimiter = new ClientRateLimiter();
+            ReflectionTestUtils.setField(rateLimiter, "defaultRate", 0.0);
+            ReflectionTestUtils.setField(rateLimiter, "clientRates", "");
+            ReflectionTestUtils.setField(rateLimiter, "burstSeconds", 1.0);
+            ReflectionTestUtils.invokeMethod(rateLimiter, "init");
+
+            service = new InfosysIntegrationService(httpClient, new InfosysTokenProvider(),
+                    new PaymentCheckpointService(mock(PaymentCheckpointRepository.class)), rateLimiter);
+            ReflectionTestUtils.setField(service, "infosysBaseUrl", infosys.baseUrl());
+            ReflectionTestUtils.setField(service, "timeout", 30000);
+            ReflectionTestUtils.setField(service, "chunkSize", chunkSize);
+            ReflectionTestUtils.setField(service, "maxInFlight", maxInFlight);
+            ReflectionTestUtils.setField(service, "chunkRetries", 0);
+            ReflectionTestUtils.setField(service, "chunkRetryBackoffMs", 0L);
+            ReflectionTestUtils.setField(service, "clientMode", "blocking");
+            ReflectionTestUtils.setField(service, "virtualThreads", virtual);
+            service.init();
+
+            employees = SyntheticPayroll.employees(records);
+        }
+
+        @TearDown(Level.Iteration)
+        public void forget() {
+            infosys.reset();
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            service.shutdown();
+            infosys.stop();
+        }
+
+        InfosysIntegrationService.InfosysResponse submit() {
+            SalaryRequest request = SyntheticPayroll.request("SAL" + batches.incrementAndGet(), 0);
+            request.setEmployees(employees);
+            InfosysIntegrationService.InfosysResponse response = service.processSalaryBatch(request, null);
+            if (!"SUCCESS".equals(response.getStatus())) {
+                throw new IllegalStateException(response.getMessage());
+            }
+            return response;
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public InfosysIntegrationService.InfosysResponse throughput(Target target) {
+        return target.submit();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public InfosysIntegrationService.InfosysResponse latency(Target target) {
+        return target.submit();
+    }
+}
@@ -0,0 +1,177 @@
+package com.zikan.salary.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Token caching, shared fetches and background refresh against a stub auth endpoint
+ */
+class InfosysTokenProviderTest {
+
+    private final AtomicInteger fetches = new AtomicInteger();
+    private volatile long expiresInSeconds = 300;
+    private volatile long delayMs;
+    private final Set<Integer> failingFetches = ConcurrentHashMap.newKeySet();
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private InfosysTokenProvider provider;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        serverExecutor = Executors.newFixedThreadPool(4);
+        server.setExecutor(serverExecutor);
+        server.createContext("/api/v1/auth/token", this::issueToken);
+        server.start();
+
+        provider = new InfosysTokenProvider();
+        ReflectionTestUtils.setField(provider, "infosysBaseUrl", "http://localhost:" + server.getAddress().getPort());
+        ReflectionTestUtils.setField(provider, "infosysUsername", "bank_user");
+        ReflectionTestUtils.setField(provider, "infosysPassword", "bank_password");
+        ReflectionTestUtils.setField(provider, "timeout", 5000);
+        ReflectionTestUtils.setField(provider, "authEnabled", true);
+        ReflectionTestUtils.setField(provider, "authPath", "/api/v1/auth/token");
+        ReflectionTestUtils.setField(provider, "refreshAheadSeconds", 60L);
+        ReflectionTestUtils.setField(provider, "retrySeconds", 1L);
+        provider.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        provider.shutdown();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void tokenIsFetchedOnceAndCached() {
+        assertThat(provider.getToken()).isEqualTo("token-1");
+        assertThat(provider.getToken()).isEqualTo("token-1");
+        assertThat(fetches.get()).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentCallersShareOneFetch() throws Exception {
+        delayMs = 300;
+        ExecutorService callers = Executors.newFixedThreadPool(16);
+        CountDownLatch go = new CountDownLatch(1);
+        try {
+            List<Future<String>> tokens = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                tokens.add(callers.submit(() -> {
+                    go.await();
+                    return provider.getToken();
+                }));
+            }
+            go.countDown();
+            for (Future<String> token : tokens) {
+                assertThat(token.get(10, TimeUnit.SECONDS)).isEqualTo("token-1");
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+        assertThat(fetches.get()).isEqualTo(1);
+    }
+
+    @Test
+    void tokenIsReplacedInTheBackgroundBeforeItExpires() throws InterruptedException {
+        expiresInSeconds = 3;
+        ReflectionTestUtils.setField(provider, "refreshAheadSeconds", 2L);
+
+        assertThat(provider.getToken()).isEqualTo("token-1");
+
+        // Refreshed about a second later without any caller asking, while token-1 is still valid
+        assertThat(eventually(() -> "token-2".equals(provider.getToken()))).isTrue();
+        assertThat(fetches.get()).isGreaterThanOrEqualTo(2);
+    }
+
+    @Test
+    void failedBackgroundRefreshKeepsTheValidTokenAndRetries() throws InterruptedException {
+        expiresInSeconds = 4;
+        ReflectionTestUtils.setField(provider, "refreshAheadSeconds", 3L);
+        failingFetches.add(2);
+
+        assertThat(provider.getToken()).isEqualTo("token-1");
+        assertThat(eventually(() -> fetches.get() >= 2)).isTrue();
+        assertThat(provider.getToken()).isEqualTo("token-1");
+
+        // Retried retrySeconds after the failure
+        assertThat(eventually(() -> fetches.get() >= 3)).isTrue();
+        assertThat(eventually(() -> "token-3".equals(provider.getToken()))).isTrue();
+    }
+
+    @Test
+    void fetchFailureWithNoTokenIsReportedToTheCaller() {
+        failingFetches.add(1);
+
+        assertThatThrownBy(() -> provider.getToken())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Unable to obtain Infosys token");
+        assertThat(provider.getToken()).isEqualTo("token-2"); // The next caller fetches again
+    }
+
+    @Test
+    void disabledAuthNeverCallsTheEndpoint() {
+        ReflectionTestUtils.setField(provider, "authEnabled", false);
+
+        assertThat(provider.getToken()).isEqualTo("dummy_token");
+        assertThat(fetches.get()).isZero();
+    }
+
+    private void issueToken(HttpExchange exchange) throws IOException {
+        int n = fetches.incrementAndGet();
+        try {
+            if (delayMs > 0) {
+                Thread.sleep(delayMs);
+            }
+            if (failingFetches.contains(n)) {
+                exchange.sendResponseHeaders(500, -1);
+                return;
+            }
+            byte[] body = ("{\"accessToken\":\"token-" + n + "\",\"expiresIn\":" + expiresInSeconds + "}")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static boolean eventually(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            Thread.sleep(50);
+        }
+        return condition.getAsBoolean();
+    }
+}
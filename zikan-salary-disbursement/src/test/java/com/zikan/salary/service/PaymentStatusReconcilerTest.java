@@ -0,0 +1,120 @@
+package com.zikan.salary.service;
+
+import com.zikan.salary.model.SalaryAcknowledgement;
+import com.zikan.salary.repository.SalaryAcknowledgementRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Storing the statuses polled from core banking: one update per status change, per-batch saves only on conflict
+ */
+class PaymentStatusReconcilerTest {
+
+    private final InfosysIntegrationService infosys = mock(InfosysIntegrationService.class);
+    private final SalaryAcknowledgementRepository repository = mock(SalaryAcknowledgementRepository.class);
+    private final TransactionStatusService transactions = mock(TransactionStatusService.class);
+    private final FundsReservationLedger funds = mock(FundsReservationLedger.class);
+    private PaymentStatusReconciler reconciler;
+
+    @BeforeEach
+    void setUp() {
+        reconciler = new PaymentStatusReconciler(infosys, repository, transactions, funds);
+        ReflectionTestUtils.setField(reconciler, "enabled", true);
+        ReflectionTestUtils.setField(reconciler, "tickMs", 60_000L); // Ticks are driven by the test
+        ReflectionTestUtils.setField(reconciler, "initialDelayMs", 0L);
+        ReflectionTestUtils.setField(reconciler, "maxDelayMs", 0L);
+        ReflectionTestUtils.setField(reconciler, "maxPerTick", 500);
+        ReflectionTestUtils.setField(reconciler, "concurrency", 2);
+        ReflectionTestUtils.setField(reconciler, "finalStatuses", Set.of("SUCCESS", "FAILED"));
+        reconciler.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        reconciler.stop();
+    }
+
+    @Test
+    void batchesMovingToTheSameStatusAreStoredInOneUpdate() {
+        reports("SAL001", "PROCESSING", "In progress");
+        reports("SAL002", "PROCESSING", "In progress");
+        reports("SAL003", "SUCCESS", "Paid");
+        when(repository.reconcileStatusAll(any(), anyString(), anyString(), anyString(), any()))
+                .thenAnswer(call -> call.<Collection<?>>getArgument(0).size());
+        reconciler.track("SAL001", "PENDING");
+        reconciler.track("SAL002", "PENDING");
+        reconciler.track("SAL003", "PENDING");
+
+        reconciler.tick();
+
+        verify(repository).reconcileStatusAll(argThat(ids -> ids.containsAll(Set.of("SAL001", "SAL002")) && ids.size() == 2),
+                eq("PENDING"), eq("PROCESSING"), eq("In progress"), any(Instant.class));
+        verify(repository).reconcileStatusAll(argThat(ids -> ids.contains("SAL003") && ids.size() == 1),
+                eq("PENDING"), eq("SUCCESS"), eq("Paid"), any(Instant.class));
+        verify(repository, never()).findBySalaryBatchId(anyString());
+        verify(repository, never()).save(any());
+        verify(funds).settle("SAL003");
+        assertThat(reconciler.getMetrics()).containsEntry("tracked", 2).containsEntry("finalised", 1L);
+    }
+
+    @Test
+    void batchesTheUpdateMissedAreSavedOneByOneAndRetriedIfThatFails() {
+        reports("SAL004", "PROCESSING", "In progress");
+        reports("SAL005", "PROCESSING", "In progress");
+        reports("SAL006", "PROCESSING", "In progress");
+        when(repository.reconcileStatusAll(any(), anyString(), anyString(), anyString(), any())).thenReturn(1);
+        when(repository.findBySalaryBatchId("SAL004")).thenReturn(ack("SAL004", "PROCESSING"));
+        SalaryAcknowledgement moved = ack("SAL005", "QUEUED");
+        when(repository.findBySalaryBatchId("SAL005")).thenReturn(moved);
+        SalaryAcknowledgement conflicting = ack("SAL006", "QUEUED");
+        when(repository.findBySalaryBatchId("SAL006")).thenReturn(conflicting);
+        when(repository.save(conflicting)).thenThrow(new ObjectOptimisticLockingFailureException(SalaryAcknowledgement.class, 6L));
+        reconciler.track("SAL004", "PENDING");
+        reconciler.track("SAL005", "PENDING");
+        reconciler.track("SAL006", "PENDING");
+
+        reconciler.tick();
+
+        verify(repository, times(1)).save(moved);
+        assertThat(moved.getStatus()).isEqualTo("PROCESSING");
+        assertThat(moved.getMessage()).isEqualTo("In progress"); // Replaced, not appended to
+        assertThat(moved.getStatusChangedAt()).isNotNull();
+        assertThat(reconciler.getMetrics()).containsEntry("saveErrors", 1L);
+
+        reconciler.tick();
+
+        // SAL004 and SAL005 are now PROCESSING; SAL006 is still tried from PENDING
+        verify(repository).reconcileStatusAll(argThat(ids -> ids.size() == 1 && ids.contains("SAL006")),
+                eq("PENDING"), eq("PROCESSING"), eq("In progress"), any(Instant.class));
+    }
+
+    private void reports(String batchId, String status, String message) {
+        InfosysIntegrationService.InfosysResponse response = new InfosysIntegrationService.InfosysResponse();
+        response.setBatchId(batchId);
+        response.setStatus(status);
+        response.setMessage(message);
+        when(infosys.fetchPaymentStatus(batchId)).thenReturn(response);
+    }
+
+    private static SalaryAcknowledgement ack(String batchId, String status) {
+        return new SalaryAcknowledgement(batchId, status, "Submitted");
+    }
+}
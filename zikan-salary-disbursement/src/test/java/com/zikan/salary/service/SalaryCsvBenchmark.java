@@ -0,0 +1,118 @@
+package com.zikan.salary.service;
+
+import com.zikan.salary.model.SalaryRequest;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rows/sec of reading salary CSV files of 10k, 100k and 1M rows: the pull-based
+ * {@link SalaryCsvReader}, the same file loaded whole into a list of employees first
+ * (the approach the reader replaced), and full validation through
+ * {@link FileValidationService}. Run with {@code -prof gc} for the allocation rate
+ * ({@code gc.alloc.rate} and {@code gc.alloc.rate.norm}, bytes per file).
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class SalaryCsvBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Payroll {
+
+        @Param({"10000", "100000", "1000000"})
+        int rows;
+
+        Path file;
+        FileValidationService validation;
+
+        @Setup(Level.Trial)
+        public void write() throws IOException {
+            file = SyntheticPayroll.csv(Files.createTempFile("payroll", ".csv"), "SAL001", rows);
+
+            validation = new FileValidationService();
+            ReflectionTestUtils.setField(validation, "maxErrors", 1000);
+            ReflectionTestUtils.setField(validation, "chunkSize", 8192);
+            ReflectionTestUtils.setField(validation, "parallelThreshold", 2048);
+            validation.init();
+        }
+
+        @TearDown(Level.Trial)
+        public void delete() throws IOException {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Rows {
+        public long rows;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            rows = 0;
+        }
+    }
+
+    @Benchmark
+    public long streamingReader(Payroll payroll, Rows rows) throws IOException {
+        long total = 0;
+        try (SalaryCsvReader reader = new SalaryCsvReader(payroll.file.toFile())) {
+            while (reader.hasNext()) {
+                total += reader.next().getAmount();
+            }
+            rows.rows += reader.getRecordNumber();
+        }
+        return total;
+    }
+
+    @Benchmark
+    public void loadWholeFile(Payroll payroll, Rows rows, Blackhole bh) throws IOException {
+        List<String> lines = Files.readAllLines(payroll.file, StandardCharsets.UTF_8);
+        List<SalaryRequest.Employee> employees = new ArrayList<>(lines.size());
+        for (String line : lines.subList(4, lines.size())) {
+            String[] cols = line.split(",");
+            SalaryRequest.Employee e = new SalaryRequest.Employee();
+            e.setEmployeeId(cols[0].trim());
+            e.setName(cols[1].trim());
+            e.setAccountNumber(cols[2].trim());
+            e.setBankCode(cols[3].trim());
+            e.setAmount(Long.parseLong(cols[4].trim()));
+            employees.add(e);
+        }
+        rows.rows += employees.size();
+        bh.consume(employees);
+    }
+
+    @Benchmark
+    public FileValidationService.ValidationResult validateFile(Payroll payroll, Rows rows) {
+        File file = payroll.file.toFile();
+        FileValidationService.ValidationResult result = payroll.validation.validateSalaryFile(file, file.getName());
+        if (!result.isValid()) {
+            throw new IllegalStateException(String.join(", ", result.getErrors()));
+        }
+        rows.rows += result.getRecordCount();
+        return result;
+    }
+}
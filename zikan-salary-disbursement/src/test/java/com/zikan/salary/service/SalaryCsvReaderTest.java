@@ -0,0 +1,109 @@
+package com.zikan.salary.service;
+
+import com.zikan.salary.model.SalaryRequest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Header block and employee rows of salary CSV files, including RFC 4180 quoted fields
+ */
+class SalaryCsvReaderTest {
+
+    private static final String EMPLOYEE_HEADER = "employeeId,name,accountNumber,bankCode,amount\n";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsHeaderAndEmployeeRows() throws IOException {
+        try (SalaryCsvReader reader = new SalaryCsvReader(csv(
+                "companyName,batchId,companyAccount,salaryDate,recordCount\n"
+                        + "Acme,SAL001,1234567890,2025-08-21,2\n"
+                        + "\n"
+                        + EMPLOYEE_HEADER
+                        + "EMP001,John Doe,1111222233,001,150000\n"
+                        + "EMP002,Jane Roe,4444555566,002,175000\n"))) {
+            assertThat(reader.getHeader().getSalaryBatchId()).isEqualTo("SAL001");
+            assertThat(reader.getHeader().getRecordCount()).isEqualTo(2);
+
+            SalaryRequest.Employee first = reader.next();
+            assertThat(first.getEmployeeId()).isEqualTo("EMP001");
+            assertThat(first.getAmount()).isEqualTo(150000);
+            assertThat(reader.next().getAccountNumber()).isEqualTo("4444555566");
+            assertThat(reader.hasNext()).isFalse();
+            assertThat(reader.getRecordNumber()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void quotedFieldsMayHoldCommasQuotesAndLineBreaks() throws IOException {
+        try (SalaryCsvReader reader = new SalaryCsvReader(csv(
+                "companyName,batchId,companyAccount,salaryDate\n"
+                        + "\"Acme, Ltd\",SAL002,1234567890,2025-08-21\n"
+                        + "\n"
+                        + EMPLOYEE_HEADER
+                        + "EMP001,\"Doe, John\",1111222233,001,150000\n"
+                        + "EMP002,\"Jane \"\"JJ\"\" Roe\",4444555566,002,175000\n"
+                        + "EMP003,\"Ann\nMarie\",7777888899,003,90000\n"
+                        + "EMP004,Bob,1212121212,004,80000\n"))) {
+            assertThat(reader.getHeader().getCompanyName()).isEqualTo("Acme, Ltd");
+            assertThat(reader.next().getName()).isEqualTo("Doe, John");
+            assertThat(reader.next().getName()).isEqualTo("Jane \"JJ\" Roe");
+            assertThat(reader.next().getName()).isEqualTo("Ann\nMarie");
+            assertThat(reader.getLineNumber()).isEqualTo(8);
+
+            SalaryRequest.Employee last = reader.next();
+            assertThat(last.getEmployeeId()).isEqualTo("EMP004");
+            assertThat(reader.getRecordNumber()).isEqualTo(4);
+        }
+    }
+
+    @Test
+    void malformedRowIsReportedAndSkipped() throws IOException {
+        try (SalaryCsvReader reader = new SalaryCsvReader(csv(
+                "companyName,batchId,companyAccount,salaryDate\n"
+                        + "Acme,SAL003,1234567890,2025-08-21\n"
+                        + "\n"
+                        + EMPLOYEE_HEADER
+                        + "EMP001,Doe, John,1111222233,001,150000\n"
+                        + "EMP002,Jane Roe,4444555566,002,175000\n"))) {
+            assertThatThrownBy(reader::next)
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Line 5: expected 5 columns");
+            assertThat(reader.next().getEmployeeId()).isEqualTo("EMP002");
+        }
+    }
+
+    @Test
+    void unterminatedQuoteIsReportedOnTheRowItStarts() throws IOException {
+        try (SalaryCsvReader reader = new SalaryCsvReader(csv(
+                "companyName,batchId,companyAccount,salaryDate\n"
+                        + "Acme,SAL004,1234567890,2025-08-21\n"
+                        + "\n"
+                        + EMPLOYEE_HEADER
+                        + "EMP001,John Doe,1111222233,001,150000\n"
+                        + "EMP002,\"Jane Roe,4444555566,002,175000\n"
+                        + "EMP003,Bob,1212121212,004,80000\n"))) {
+            assertThat(reader.next().getEmployeeId()).isEqualTo("EMP001");
+            assertThat(reader.hasNext()).isTrue();
+            assertThatThrownBy(reader::next)
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Line 6: unterminated quoted field");
+            assertThat(reader.hasNext()).isFalse();
+        }
+    }
+
+    private File csv(String content) throws IOException {
+        Path file = dir.resolve("batch.csv");
+        Files.writeString(file, content);
+        return file.toFile();
+    }
+}
@@ -0,0 +1,127 @@
+package com.zikan.salary.service;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Upload throughput of {@link SftpUploadTransport} against an embedded SSHD server on
+ * loopback: one file at a time over a pooled session, and {@code uploadAll} spreading the
+ * files over the pool. The {@code megabytes} and {@code files} counters are reported per
+ * second (MB/s, files/s).
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SftpUploadBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Target {
+
+        @Param({"16"})
+        int fileCount;
+
+        @Param({"256", "4096"})
+        int fileSizeKb;
+
+        @Param({"4"})
+        int poolSize;
+
+        Path dir;
+        TestSftpServer server;
+        SftpUploadTransport transport;
+        List<File> files;
+
+        @Setup(Level.Trial)
+        public void start() throws IOException {
+            dir = Files.createTempDirectory("sftp-bench");
+            server = new TestSftpServer(dir.resolve("remote"));
+
+            transport = new SftpUploadTransport();
+            ReflectionTestUtils.setField(transport, "host", "localhost");
+            ReflectionTestUtils.setField(transport, "port", server.getPort());
+            ReflectionTestUtils.setField(transport, "username", TestSftpServer.USER);
+            ReflectionTestUtils.setField(transport, "password", TestSftpServer.PASSWORD);
+            ReflectionTestUtils.setField(transport, "privateKeyPath", "");
+            ReflectionTestUtils.setField(transport, "knownHostsPath", "");
+            ReflectionTestUtils.setField(transport, "allowUnknownKeys", true);
+            ReflectionTestUtils.setField(transport, "remoteDir", "/outbound");
+            ReflectionTestUtils.setField(transport, "poolSize", poolSize);
+            ReflectionTestUtils.setField(transport, "sessionWaitTimeout", 30000L);
+            transport.init();
+
+            Random random = new Random(42);
+            files = new ArrayList<>(fileCount);
+            for (int i = 0; i < fileCount; i++) {
+                byte[] content = new byte[fileSizeKb * 1024];
+                random.nextBytes(content);
+                Path file = dir.resolve("local").resolve("SAL" + i + ".csv.gpg");
+                Files.createDirectories(file.getParent());
+                Files.write(file, content);
+                files.add(file.toFile());
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() throws IOException {
+            transport.shutdown();
+            server.close();
+            try (Stream<Path> paths = Files.walk(dir)) {
+                paths.sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Sent {
+        public double megabytes;
+        public long files;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            megabytes = 0;
+            files = 0;
+        }
+
+        void add(Target target) {
+            megabytes += target.fileCount * target.fileSizeKb / 1024.0;
+            files += target.fileCount;
+        }
+    }
+
+    @Benchmark
+    public void sequential(Target target, Sent sent) throws IOException {
+        for (File file : target.files) {
+            target.transport.upload(file);
+        }
+        sent.add(target);
+    }
+
+    @Benchmark
+    public void parallel(Target target, Sent sent) throws IOException {
+        target.transport.uploadAll(target.files);
+        sent.add(target);
+    }
+}
@@ -0,0 +1,186 @@
+package com.zikan.salary.service;
+
+import org.apache.sshd.server.session.ServerSession;
+import org.apache.sshd.sftp.server.FileHandle;
+import org.apache.sshd.sftp.server.SftpEventListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Uploads against an embedded SSHD server, including uploads cut off part way and retried
+ */
+class SftpUploadTransportTest {
+
+    private static final int FILE_SIZE = 1024 * 1024;
+    private static final long FAIL_AFTER = 256 * 1024;
+
+    @TempDir
+    Path dir;
+
+    private final WriteTracker writes = new WriteTracker();
+    private TestSftpServer server;
+    private SftpUploadTransport transport;
+    private Path remote;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        remote = dir.resolve("remote");
+        server = new TestSftpServer(remote, writes);
+
+        transport = new SftpUploadTransport();
+        ReflectionTestUtils.setField(transport, "host", "localhost");
+        ReflectionTestUtils.setField(transport, "port", server.getPort());
+        ReflectionTestUtils.setField(transport, "username", TestSftpServer.USER);
+        ReflectionTestUtils.setField(transport, "password", TestSftpServer.PASSWORD);
+        ReflectionTestUtils.setField(transport, "privateKeyPath", "");
+        ReflectionTestUtils.setField(transport, "knownHostsPath", "");
+        ReflectionTestUtils.setField(transport, "allowUnknownKeys", true);
+        ReflectionTestUtils.setField(transport, "remoteDir", "/outbound");
+        ReflectionTestUtils.setField(transport, "poolSize", 2);
+        ReflectionTestUtils.setField(transport, "sessionWaitTimeout", 5000L);
+        transport.init();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        transport.shutdown();
+        server.close();
+    }
+
+    @Test
+    void uploadsUnderTheFinalNameWithNothingLeftBehind() throws IOException {
+        File file = source("SAL001.csv.gpg", 1);
+
+        transport.upload(file);
+        transport.upload(source("SAL002.csv.gpg", 2)); // Second file reuses the pooled session
+
+        assertThat(remote.resolve("outbound/SAL001.csv.gpg")).hasSameBinaryContentAs(file.toPath());
+        try (var listing = Files.list(remote.resolve("outbound"))) {
+            assertThat(listing.map(p -> p.getFileName().toString()))
+                    .containsExactlyInAnyOrder("SAL001.csv.gpg", "SAL002.csv.gpg");
+        }
+    }
+
+    @Test
+    void retryResumesFromThePartialFileOfTheSameSource() throws IOException {
+        File file = source("SAL003.csv.gpg", 3);
+        writes.failAfter(FAIL_AFTER);
+        assertThatThrownBy(() -> transport.upload(file)).isInstanceOf(IOException.class);
+        long partial = Files.size(remote.resolve("outbound/SAL003.csv.gpg.part"));
+        assertThat(partial).isPositive().isLessThanOrEqualTo(FAIL_AFTER);
+
+        writes.reset();
+        transport.upload(file);
+
+        assertThat(writes.bytes()).isEqualTo(FILE_SIZE - partial);
+        assertThat(remote.resolve("outbound/SAL003.csv.gpg")).hasSameBinaryContentAs(file.toPath());
+        assertThat(remote.resolve("outbound/SAL003.csv.gpg.part")).doesNotExist();
+        assertThat(remote.resolve("outbound/SAL003.csv.gpg.part.src")).doesNotExist();
+    }
+
+    @Test
+    void regeneratedFileOfTheSameNameStartsOver() throws IOException {
+        File file = source("SAL004.csv.gpg", 4);
+        writes.failAfter(FAIL_AFTER);
+        assertThatThrownBy(() -> transport.upload(file)).isInstanceOf(IOException.class);
+
+        // Same name and size, different content: the partial file must not be reused
+        source("SAL004.csv.gpg", 5);
+        writes.reset();
+        transport.upload(file);
+
+        assertThat(writes.bytes()).isEqualTo(FILE_SIZE);
+        assertThat(remote.resolve("outbound/SAL004.csv.gpg")).hasSameBinaryContentAs(file.toPath());
+    }
+
+    @Test
+    void uploadAllSendsFilesInParallelOverThePool() throws IOException {
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            files.add(source("SAL1" + i + ".csv.gpg", 10 + i));
+        }
+
+        transport.uploadAll(files);
+
+        for (File file : files) {
+            assertThat(remote.resolve("outbound").resolve(file.getName())).hasSameBinaryContentAs(file.toPath());
+        }
+        assertThat(writes.sessions()).isEqualTo(2); // poolSize
+    }
+
+    @Test
+    void uploadAllNamesTheFilesThatFailedAndSendsTheRest() throws IOException {
+        File ok = source("SAL020.csv.gpg", 20);
+        File missing = dir.resolve("SAL021.csv.gpg").toFile();
+
+        assertThatThrownBy(() -> transport.uploadAll(List.of(ok, missing)))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("SAL021.csv.gpg")
+                .hasMessageNotContaining("SAL020.csv.gpg");
+        assertThat(remote.resolve("outbound/SAL020.csv.gpg")).hasSameBinaryContentAs(ok.toPath());
+    }
+
+    private File source(String name, long seed) throws IOException {
+        byte[] content = new byte[FILE_SIZE];
+        new Random(seed).nextBytes(content);
+        Path path = dir.resolve(name);
+        Files.write(path, content);
+        return path.toFile();
+    }
+
+    /**
+     * Records writes to upload files and can refuse them past an offset, like a dropped connection
+     */
+    private static final class WriteTracker implements SftpEventListener {
+        private final AtomicLong bytes = new AtomicLong();
+        private final Set<ServerSession> sessions = ConcurrentHashMap.newKeySet();
+        private volatile long failAfter = Long.MAX_VALUE;
+
+        @Override
+        public void writing(ServerSession session, String remoteHandle, FileHandle localHandle,
+                            long offset, byte[] data, int dataOffset, int dataLen) throws IOException {
+            if (!localHandle.getFile().getFileName().toString().endsWith(".part")) {
+                return;
+            }
+            sessions.add(session);
+            if (bytes.get() + dataLen > failAfter) {
+                throw new IOException("Connection dropped");
+            }
+            bytes.addAndGet(dataLen);
+        }
+
+        void failAfter(long offset) {
+            failAfter = offset;
+        }
+
+        void reset() {
+            failAfter = Long.MAX_VALUE;
+            bytes.set(0);
+        }
+
+        long bytes() {
+            return bytes.get();
+        }
+
+        int sessions() {
+            return sessions.size();
+        }
+    }
+}
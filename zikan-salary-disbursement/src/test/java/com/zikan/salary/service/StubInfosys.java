@@ -0,0 +1,116 @@
+package com.zikan.salary.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Accepts every item of a posted chunk, recording what was paid and how many requests overlapped
+ */
+final class StubInfosys {
+    final AtomicInteger posts = new AtomicInteger();
+    final AtomicInteger maxConcurrent = new AtomicInteger();
+    final AtomicInteger duplicatePayments = new AtomicInteger();
+    final Set<String> paidKeys = ConcurrentHashMap.newKeySet();
+    final List<Integer> chunkNumbers = new CopyOnWriteArrayList<>();
+    final Set<Integer> totalChunks = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger concurrent = new AtomicInteger();
+    private final Set<String> failedOnce = ConcurrentHashMap.newKeySet();
+    volatile long delayMs;
+    volatile int failFirstAttemptOfChunk; // 0 = none; an unchunked request has chunk number 0
+    volatile int alwaysFailChunk;
+    private final ObjectMapper objectMapper;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    StubInfosys(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        executor = Executors.newCachedThreadPool(); // Never the bottleneck: maxInFlight is what is measured
+        server.setExecutor(executor);
+        server.createContext("/api/v1/payments/batch", this::handle);
+        server.start();
+    }
+
+    String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    /** Forget what was paid so far, e.g. between load-test iterations */
+    void reset() {
+        posts.set(0);
+        maxConcurrent.set(0);
+        duplicatePayments.set(0);
+        paidKeys.clear();
+        chunkNumbers.clear();
+        totalChunks.clear();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        int now = concurrent.incrementAndGet();
+        maxConcurrent.accumulateAndGet(now, Math::max);
+        try {
+            JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+            posts.incrementAndGet();
+            int chunk = request.path("chunkNumber").asInt(0);
+            if (delayMs > 0) {
+                Thread.sleep(delayMs);
+            }
+            if (chunk > 0 && (chunk == alwaysFailChunk
+                    || (chunk == failFirstAttemptOfChunk && failedOnce.add(request.path("batchId").asText())))) {
+                exchange.sendResponseHeaders(500, -1);
+                return;
+            }
+            chunkNumbers.add(chunk);
+            totalChunks.add(request.path("totalChunks").asInt(0));
+
+            ObjectNode response = objectMapper.createObjectNode();
+            response.put("status", "SUCCESS");
+            response.put("transactionId", "TX-" + request.path("batchId").asText() + "-" + chunk);
+            ArrayNode statuses = response.putArray("transactionStatuses");
+            for (JsonNode item : request.path("paymentItems")) {
+                if (!paidKeys.add(item.path("idempotencyKey").asText())) {
+                    duplicatePayments.incrementAndGet();
+                }
+                ObjectNode status = statuses.addObject();
+                status.put("employeeId", item.path("employeeId").asText());
+                status.put("accountNumber", item.path("accountNumber").asText());
+                status.put("status", "SUCCESS");
+            }
+            byte[] body = objectMapper.writeValueAsBytes(response);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exchange.sendResponseHeaders(503, -1);
+        } finally {
+            concurrent.decrementAndGet();
+            exchange.close();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.zikan.salary.service;
+
+import com.zikan.salary.model.SalaryRequest;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Valid, duplicate-free payroll data of any size for tests and benchmarks. Record {@code i}
+ * always has the same fields, so a file and a list of the same size describe the same batch.
+ */
+final class SyntheticPayroll {
+
+    private SyntheticPayroll() {
+    }
+
+    static SalaryRequest.Employee employee(int i) {
+        SalaryRequest.Employee e = new SalaryRequest.Employee();
+        e.setEmployeeId(employeeId(i));
+        e.setName("Employee " + i);
+        e.setAccountNumber(accountNumber(i));
+        e.setBankCode(String.format("%03d", i % 1000));
+        e.setAmount(amount(i));
+        return e;
+    }
+
+    static List<SalaryRequest.Employee> employees(int records) {
+        List<SalaryRequest.Employee> employees = new ArrayList<>(records);
+        for (int i = 0; i < records; i++) {
+            employees.add(employee(i));
+        }
+        return employees;
+    }
+
+    static SalaryRequest request(String batchId, int records) {
+        SalaryRequest request = new SalaryRequest();
+        request.setSalaryBatchId(batchId);
+        request.setCompanyName("Zikan");
+        request.setCompanyAccount("1234567890");
+        request.setSalaryDate("2025-08-21");
+        request.setEmployees(employees(records));
+        return request;
+    }
+
+    /**
+     * Core banking's result for each of {@code records} employees, all in {@code status}
+     */
+    static List<InfosysIntegrationService.TransactionStatus> statuses(int records, String status) {
+        List<InfosysIntegrationService.TransactionStatus> statuses = new ArrayList<>(records);
+        for (int i = 0; i < records; i++) {
+            InfosysIntegrationService.TransactionStatus s = new InfosysIntegrationService.TransactionStatus();
+            s.setEmployeeId(employeeId(i));
+            s.setAccountNumber(accountNumber(i));
+            s.setStatus(status);
+            statuses.add(s);
+        }
+        return statuses;
+    }
+
+    /**
+     * Write a salary CSV of {@code records} rows whose header declares the record count and control total
+     */
+    static Path csv(Path file, String batchId, int records) throws IOException {
+        long total = 0;
+        for (int i = 0; i < records; i++) {
+            total += amount(i);
+        }
+        try (BufferedWriter w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            w.write("companyName,batchId,companyAccount,salaryDate,recordCount,controlTotal\n");
+            w.write("Zikan," + batchId + ",1234567890,2025-08-21," + records + "," + total + "\n");
+            w.write("\nemployeeId,name,accountNumber,bankCode,amount\n");
+            for (int i = 0; i < records; i++) {
+                w.write(employeeId(i) + ",Employee " + i + "," + accountNumber(i) + ","
+                        + String.format("%03d", i % 1000) + "," + amount(i) + "\n");
+            }
+        }
+        return file;
+    }
+
+    static String employeeId(int i) {
+        return String.format("EMP%07d", i);
+    }
+
+    static String accountNumber(int i) {
+        return Long.toString(1000000000L + i);
+    }
+
+    static long amount(int i) {
+        return 100000 + i % 1000;
+    }
+}
@@ -0,0 +1,49 @@
+package com.zikan.salary.service;
+
+import org.apache.sshd.common.file.virtualfs.VirtualFileSystemFactory;
+import org.apache.sshd.server.SshServer;
+import org.apache.sshd.server.keyprovider.SimpleGeneratorHostKeyProvider;
+import org.apache.sshd.sftp.server.SftpEventListener;
+import org.apache.sshd.sftp.server.SftpSubsystemFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * In-process SFTP server on a free port with one password account whose home is {@code root}
+ */
+class TestSftpServer implements AutoCloseable {
+
+    static final String USER = "zikan";
+    static final String PASSWORD = "s3cret-test";
+
+    private final SshServer server;
+
+    TestSftpServer(Path root, SftpEventListener... listeners) throws IOException {
+        Files.createDirectories(root);
+        SftpSubsystemFactory sftp = new SftpSubsystemFactory();
+        for (SftpEventListener listener : listeners) {
+            sftp.addSftpEventListener(listener);
+        }
+
+        server = SshServer.setUpDefaultServer();
+        server.setHost("localhost");
+        server.setPort(0);
+        server.setKeyPairProvider(new SimpleGeneratorHostKeyProvider(root.resolveSibling(root.getFileName() + "-hostkey.ser")));
+        server.setPasswordAuthenticator((username, password, session) -> USER.equals(username) && PASSWORD.equals(password));
+        server.setSubsystemFactories(List.of(sftp));
+        server.setFileSystemFactory(new VirtualFileSystemFactory(root));
+        server.start();
+    }
+
+    int getPort() {
+        return server.getPort();
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.stop(true);
+    }
+}
@@ -0,0 +1,109 @@
+package com.zikan.salary.service;
+
+import com.zikan.salary.model.SalaryTransaction;
+import com.zikan.salary.repository.SalaryTransactionRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+/**
+ * Statuses/s that {@link TransactionStatusService#recordAll} inserts into salary_transactions,
+ * 100k per batch, with hibernate.jdbc.batch_size 500 (as configured) vs 1 (every row its own
+ * statement). In-memory H2 by default, where a statement costs no round trip; point it at a
+ * scratch Postgres database to see what batching saves, e.g. {@code -p url=jdbc:postgresql://localhost:5432/bench
+ * -p username=postgres -p password=...} (the tables are created and dropped).
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+@OperationsPerInvocation(TransactionStatusBenchmark.RECORDS)
+public class TransactionStatusBenchmark {
+
+    static final int RECORDS = 100_000;
+
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    @EntityScan(basePackageClasses = SalaryTransaction.class)
+    @EnableJpaRepositories(basePackageClasses = SalaryTransactionRepository.class)
+    @Import(TransactionStatusService.class)
+    static class Persistence {
+    }
+
+    @State(Scope.Benchmark)
+    public static class Database {
+
+        @Param({"500", "1"})
+        int jdbcBatchSize;
+
+        @Param({"jdbc:h2:mem:statusbench;DB_CLOSE_DELAY=-1"})
+        String url;
+
+        @Param({"sa"})
+        String username;
+
+        @Param({""})
+        String password;
+
+        ConfigurableApplicationContext context;
+        TransactionStatusService service;
+        JdbcTemplate jdbc;
+        List<InfosysIntegrationService.TransactionStatus> statuses;
+        int batches;
+
+        @Setup(Level.Trial)
+        public void start() {
+            // As arguments so they override application.properties
+            context = new SpringApplicationBuilder(Persistence.class)
+                    .web(WebApplicationType.NONE)
+                    .run("--spring.datasource.url=" + url,
+                            "--spring.datasource.username=" + username,
+                            "--spring.datasource.password=" + password,
+                            "--spring.datasource.driverClassName=",
+                            "--spring.jpa.hibernate.ddl-auto=create-drop",
+                            "--spring.jpa.show-sql=false",
+                            "--spring.jpa.properties.hibernate.jdbc.batch_size=" + jdbcBatchSize,
+                            "--spring.main.banner-mode=off",
+                            "--logging.level.root=WARN");
+            service = context.getBean(TransactionStatusService.class);
+            jdbc = context.getBean(JdbcTemplate.class);
+            statuses = SyntheticPayroll.statuses(RECORDS, "PENDING");
+        }
+
+        @TearDown(Level.Invocation)
+        public void truncate() {
+            jdbc.execute("truncate table salary_transactions");
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    public void recordAll(Database database) {
+        database.service.recordAll("SAL" + ++database.batches, database.statuses);
+    }
+}
@@ -0,0 +1,74 @@
+package com.zikan.salary.service;
+
+import com.zikan.salary.model.SalaryTransaction;
+import com.zikan.salary.repository.SalaryTransactionRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Per-employee results written to salary_transactions in JDBC batches, counted with Hibernate statistics
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false"
+})
+@Import(TransactionStatusService.class)
+class TransactionStatusServiceTest {
+
+    @Autowired
+    private TransactionStatusService service;
+
+    @Autowired
+    private SalaryTransactionRepository repository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void recordAllInsertsInJdbcBatches() {
+        service.recordAll("SAL001", SyntheticPayroll.statuses(2000, "PENDING"));
+
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(2000);
+        // 4 batches of 500 rows and 4 sequence calls (allocationSize 500), not a statement per row
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(10);
+        assertThat(repository.count()).isEqualTo(2000);
+    }
+
+    @Test
+    void applyUpdatesChangesOnlyTheRowsWhoseStatusMoved() {
+        service.recordAll("SAL002", SyntheticPayroll.statuses(1000, "PENDING"));
+        List<InfosysIntegrationService.TransactionStatus> updates = SyntheticPayroll.statuses(1500, "PENDING");
+        for (int i = 0; i < 1000; i += 2) {
+            updates.get(i).setStatus("SUCCESS");
+        }
+        statistics.clear();
+
+        int changed = service.applyUpdates("SAL002", updates);
+
+        assertThat(changed).isEqualTo(500 + 500); // Every other row of the first 1000, and 500 new rows
+        assertThat(statistics.getEntityUpdateCount()).isEqualTo(500);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(500);
+        // Per 500-row slice: one select, one update batch, one insert batch, plus the sequence calls
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(12);
+        assertThat(repository.findByEmployeeIdOrderById(SyntheticPayroll.employeeId(0)))
+                .extracting(SalaryTransaction::getStatus).containsExactly("SUCCESS");
+    }
+}